@@ -0,0 +1,37 @@
+package com.example.finanzaspersonales.benchmark;
+
+import com.example.finanzaspersonales.seguridad.SecurityConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de verificar una contraseña con el PasswordEncoder de SecurityConfig (BCrypt),
+ * que marca el tiempo mínimo de cada login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BCryptBenchmark {
+
+    private static final String CONTRASENA = "contrasenaDePrueba123";
+
+    private PasswordEncoder passwordEncoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        // passwordEncoder() no usa el filtro JWT ni el UserDetailsService
+        passwordEncoder = new SecurityConfig(null, null).passwordEncoder();
+        hash = passwordEncoder.encode(CONTRASENA);
+    }
+
+    @Benchmark
+    public boolean verificarContrasena() {
+        return passwordEncoder.matches(CONTRASENA, hash);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.finanzaspersonales.benchmark;
+
+import com.example.finanzaspersonales.seguridad.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación y validación de tokens con JwtService: validación con el token ya en la caché de tokens
+ * verificados y análisis completo (firma HMAC incluida) sin pasar por ella.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    // Misma clave de ejemplo que el perfil dev
+    private static final String CLAVE = "VGhpcyBpcyBhIHNlY3VyZSBhbmQgbG9uZyBzZWNyZXQga2V5IGZvciB0ZXN0aW5nIHB1cnBvc2VzIG9ubHku";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtService = new JwtService(CLAVE, 86_400_000L, 10_000);
+        token = jwtService.generarToken("benchmark");
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return jwtService.generarToken("benchmark");
+    }
+
+    @Benchmark
+    public String validarTokenEnCache() {
+        return jwtService.validarToken(token);
+    }
+
+    @Benchmark
+    public String analizarToken() {
+        return jwtService.extraerNombreUsuario(token);
+    }
+}
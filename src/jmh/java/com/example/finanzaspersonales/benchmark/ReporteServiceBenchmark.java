@@ -0,0 +1,165 @@
+package com.example.finanzaspersonales.benchmark;
+
+import com.example.finanzaspersonales.FinanzasPersonalesApplication;
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import com.example.finanzaspersonales.repositorio.TransaccionRepository;
+import com.example.finanzaspersonales.repositorio.UsuarioRepository;
+import com.example.finanzaspersonales.seguridad.UsuarioAutenticado;
+import com.example.finanzaspersonales.servicio.ReporteCache;
+import com.example.finanzaspersonales.servicio.ReporteService;
+import com.example.finanzaspersonales.servicio.columnar.MotorLibrosColumnares;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregación de ReporteService sobre 10k, 100k y 1M transacciones sintéticas en la base H2 del perfil dev.
+ * Se mide el reporte de un año (meses completos desde los acumulados y meses parciales desde las transacciones)
+ * y la agregación directa sobre la tabla de transacciones, sin acumulados. La caché de reportes se invalida
+ * en cada invocación para medir el cálculo y no el acierto de caché. Las variantes columnares miden la misma
+ * suma sobre el libro en memoria ya cargado, recorriendo las filas o con el índice de sumas prefijas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReporteServiceBenchmark {
+
+    private static final long USUARIO_ID = 1L;
+    private static final int CATEGORIAS = 20;
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 15);
+    private static final LocalDate FIN = LocalDate.of(2024, 11, 20);
+
+    @Param({"10000", "100000", "1000000"})
+    private int transacciones;
+
+    private ConfigurableApplicationContext contexto;
+    private ReporteService reporteService;
+    private ReporteCache reporteCache;
+    private TransaccionRepository transaccionRepository;
+    private Usuario usuario;
+    private MotorLibrosColumnares motorLibrosColumnares;
+    private MotorLibrosColumnares motorConIndice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = new SpringApplicationBuilder(FinanzasPersonalesApplication.class)
+                .profiles("dev")
+                .properties("server.port=0", "spring.jpa.show-sql=false", "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        cargarDatos(contexto.getBean(JdbcTemplate.class));
+
+        reporteService = contexto.getBean(ReporteService.class);
+        reporteCache = contexto.getBean(ReporteCache.class);
+        transaccionRepository = contexto.getBean(TransaccionRepository.class);
+        usuario = contexto.getBean(UsuarioRepository.class).getReferenceById(USUARIO_ID);
+
+        // Motor propio y habilitado, para no cambiar lo que miden los otros benchmarks; el libro se carga aquí
+        motorLibrosColumnares = new MotorLibrosColumnares(transaccionRepository, contexto.getBean(CategoriaRepository.class),
+                true, DataSize.ofGigabytes(1), Integer.MAX_VALUE, new SimpleMeterRegistry());
+        motorConIndice = new MotorLibrosColumnares(transaccionRepository, contexto.getBean(CategoriaRepository.class),
+                true, DataSize.ofGigabytes(1), 0, new SimpleMeterRegistry());
+        TransactionTemplate transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        transaccion.executeWithoutResult(estado -> motorLibrosColumnares.sumarPorTipoYCategoria(usuario, INICIO, FIN));
+        transaccion.executeWithoutResult(estado -> motorConIndice.sumarPorTipoYCategoria(usuario, INICIO, FIN));
+
+        UsuarioAutenticado principal = new UsuarioAutenticado(USUARIO_ID, "benchmark", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        SecurityContextHolder.clearContext();
+        contexto.close();
+    }
+
+    @Benchmark
+    public ReporteFinancieroDTO reporteConAcumulados() {
+        reporteCache.invalidarUsuario(USUARIO_ID);
+        return reporteService.generarReporteFinanciero(INICIO, FIN);
+    }
+
+    @Benchmark
+    public List<TotalPorCategoriaDTO> agregacionSinAcumulados() {
+        return transaccionRepository.sumarPorTipoYCategoria(usuario, INICIO, FIN);
+    }
+
+    @Benchmark
+    public List<TotalPorCategoriaDTO> agregacionColumnar() {
+        return motorLibrosColumnares.sumarPorTipoYCategoria(usuario, INICIO, FIN).orElseThrow();
+    }
+
+    @Benchmark
+    public List<TotalPorCategoriaDTO> agregacionColumnarConIndice() {
+        return motorConIndice.sumarPorTipoYCategoria(usuario, INICIO, FIN).orElseThrow();
+    }
+
+    private void cargarDatos(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO usuarios (id, nombre_usuario, contrasena) VALUES (?, ?, ?)", USUARIO_ID, "benchmark", "-");
+        for (int c = 1; c <= CATEGORIAS; c++) {
+            jdbc.update("INSERT INTO categorias (id, nombre, tipo, usuario_id) VALUES (?, ?, ?, ?)",
+                    c, "Categoria " + c, c % 4 == 0 ? "INGRESO" : "EGRESO", USUARIO_ID);
+        }
+
+        // Transacciones repartidas por 2024 y, a la vez, sus acumulados mensuales
+        Random aleatorio = new Random(42);
+        Map<String, Object[]> acumulados = new HashMap<>();
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 1; i <= transacciones; i++) {
+            int categoria = 1 + aleatorio.nextInt(CATEGORIAS);
+            String tipo = categoria % 4 == 0 ? "INGRESO" : "EGRESO";
+            LocalDate fecha = LocalDate.of(2024, 1, 1).plusDays(aleatorio.nextInt(366));
+            BigDecimal monto = BigDecimal.valueOf(100 + aleatorio.nextInt(100_000), 2);
+            lote.add(new Object[]{i, monto, tipo, "Movimiento " + i, Date.valueOf(fecha), categoria, USUARIO_ID});
+
+            LocalDate periodo = fecha.withDayOfMonth(1);
+            Object[] acumulado = acumulados.computeIfAbsent(categoria + tipo + periodo,
+                    k -> new Object[]{categoria, tipo, periodo, BigDecimal.ZERO, 0L});
+            acumulado[3] = ((BigDecimal) acumulado[3]).add(monto);
+            acumulado[4] = (Long) acumulado[4] + 1;
+
+            if (lote.size() == 10_000) {
+                insertarTransacciones(jdbc, lote);
+                lote.clear();
+            }
+        }
+        insertarTransacciones(jdbc, lote);
+
+        List<Object[]> filas = new ArrayList<>();
+        long id = 1;
+        for (Object[] a : acumulados.values()) {
+            filas.add(new Object[]{id++, USUARIO_ID, a[0], a[1], Date.valueOf((LocalDate) a[2]), a[3], a[4]});
+        }
+        jdbc.batchUpdate("INSERT INTO resumenes_mensuales (id, usuario_id, categoria_id, tipo, periodo, total, cantidad) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", filas);
+    }
+
+    private static void insertarTransacciones(JdbcTemplate jdbc, List<Object[]> lote) {
+        jdbc.batchUpdate("INSERT INTO transacciones (id, monto, tipo, descripcion, fecha, categoria_id, usuario_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", lote);
+    }
+}
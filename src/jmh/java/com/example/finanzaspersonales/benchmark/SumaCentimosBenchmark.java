@@ -0,0 +1,53 @@
+package com.example.finanzaspersonales.benchmark;
+
+import com.example.finanzaspersonales.servicio.SumaCentimos;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suma de montos con la escala de la columna (dos decimales) mediante BigDecimal::add, que crea un
+ * BigDecimal por fila, frente a SumaCentimos, que acumula en un long. Para ver la diferencia de memoria
+ * asignada por operación (gc.alloc.rate.norm), ejecutar con el perfilador de GC:
+ * mvn -P benchmark verify -Djmh.args="SumaCentimosBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SumaCentimosBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int tamano;
+
+    private List<BigDecimal> montos;
+
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        montos = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            montos.add(BigDecimal.valueOf(1 + aleatorio.nextInt(10_000_000), 2));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumaBigDecimal() {
+        return montos.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal sumaCentimos() {
+        SumaCentimos suma = new SumaCentimos();
+        for (BigDecimal monto : montos) {
+            suma.sumar(monto);
+        }
+        return suma.aBigDecimal();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.finanzaspersonales.benchmark;
+
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.mapper.TransaccionMapper;
+import com.example.finanzaspersonales.mapper.TransaccionMapperImpl;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversión de listas de Transaccion a TransaccionDTO con el mapper generado por MapStruct,
+ * tal como la hacen los listados y la paginación de TransaccionService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransaccionMapperBenchmark {
+
+    @Param({"100", "10000"})
+    private int tamano;
+
+    private final TransaccionMapper transaccionMapper = new TransaccionMapperImpl();
+    private List<Transaccion> transacciones;
+
+    @Setup
+    public void preparar() {
+        Usuario usuario = new Usuario(1L, "benchmark", "-", null);
+        Categoria categoria = new Categoria(1L, "Comida", TipoTransaccion.EGRESO, usuario);
+        transacciones = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            transacciones.add(new Transaccion((long) i, BigDecimal.valueOf(1000 + i, 2), TipoTransaccion.EGRESO,
+                    "Movimiento " + i, LocalDate.of(2024, 1, 1).plusDays(i % 366), categoria, usuario));
+        }
+    }
+
+    @Benchmark
+    public List<TransaccionDTO> aTransaccionDTO() {
+        return transacciones.stream()
+                .map(transaccionMapper::aTransaccionDTO)
+                .collect(Collectors.toList());
+    }
+}
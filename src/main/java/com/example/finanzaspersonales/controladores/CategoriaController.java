@@ -2,15 +2,18 @@ package com.example.finanzaspersonales.controladores;
 
 import com.example.finanzaspersonales.dto.operaciones.CategoriaDTO;
 import com.example.finanzaspersonales.servicio.CategoriaService;
+import com.example.finanzaspersonales.servicio.VersionDatosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -26,9 +29,11 @@ import java.util.List;
 public class CategoriaController {
 
     private final CategoriaService categoriaService;
+    private final VersionDatosService versionDatosService;
 
-    public CategoriaController(CategoriaService categoriaService) {
+    public CategoriaController(CategoriaService categoriaService, VersionDatosService versionDatosService) {
         this.categoriaService = categoriaService;
+        this.versionDatosService = versionDatosService;
     }
 
     /**
@@ -72,18 +77,25 @@ public class CategoriaController {
     /**
      * Obtiene todas las categorías del usuario autenticado.
      * URL: GET /api/categorias
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
      * @return ResponseEntity con una lista de categorías.
      */
     @Operation(summary = "Obtiene todas las categorías del usuario",
-            description = "Recupera una lista de todas las categorías definidas por el usuario autenticado.")
+            description = "Recupera una lista de todas las categorías definidas por el usuario autenticado. " +
+                    "Admite peticiones condicionales con If-None-Match (ETag de la versión de los datos del usuario).")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de categorías recuperada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
             @ApiResponse(responseCode = "403", description = "Acceso denegado")
     })
     @GetMapping
-    public ResponseEntity<List<CategoriaDTO>> obtenerTodasLasCategorias() {
+    public ResponseEntity<List<CategoriaDTO>> obtenerTodasLasCategorias(WebRequest webRequest) {
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
         List<CategoriaDTO> categorias = categoriaService.obtenerCategoriasDelUsuario();
-        return ResponseEntity.ok(categorias);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(categorias);
     }
 
     /**
@@ -0,0 +1,89 @@
+package com.example.finanzaspersonales.controladores;
+
+import com.example.finanzaspersonales.dto.importacion.FormatoExtracto;
+import com.example.finanzaspersonales.dto.importacion.ImportacionDTO;
+import com.example.finanzaspersonales.dto.importacion.SeparadorDecimal;
+import com.example.finanzaspersonales.servicio.ImportacionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Controlador REST para importar extractos bancarios.
+ * La importación se procesa en segundo plano; el cliente consulta su progreso con el ID devuelto.
+ */
+@RestController
+@RequestMapping("/api/importaciones")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Importación de Extractos", description = "Endpoints para importar transacciones desde extractos bancarios CSV u OFX.")
+public class ImportacionController {
+
+    private final ImportacionService importacionService;
+
+    public ImportacionController(ImportacionService importacionService) {
+        this.importacionService = importacionService;
+    }
+
+    /**
+     * Inicia la importación de un extracto bancario.
+     * URL: POST /api/importaciones
+     * @param archivo Archivo del extracto.
+     * @param formato Formato del extracto.
+     * @param separadorDecimal Separador decimal de los importes CSV.
+     * @param categoriaIngresoId Categoría por defecto para los ingresos.
+     * @param categoriaEgresoId Categoría por defecto para los egresos.
+     * @return ResponseEntity con el estado inicial de la importación.
+     */
+    @Operation(summary = "Importa un extracto bancario",
+            description = "Sube un extracto CSV (cabecera con fecha, descripcion, monto y opcionalmente tipo y categoria) u OFX. " +
+                    "Las líneas se validan y guardan por bloques: una línea errónea no impide importar las demás. " +
+                    "Sin separadorDecimal, los importes CSV que admiten dos lecturas (1,234) se rechazan como error de línea.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Importación aceptada y en cola"),
+            @ApiResponse(responseCode = "400", description = "Formato o parámetros inválidos"),
+            @ApiResponse(responseCode = "404", description = "Categoría por defecto no encontrada o no pertenece al usuario"),
+            @ApiResponse(responseCode = "429", description = "Demasiadas importaciones en curso"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacionDTO> iniciarImportacion(
+            @RequestParam("archivo") MultipartFile archivo,
+            @Parameter(description = "Formato del extracto (CSV u OFX)")
+            @RequestParam(defaultValue = "CSV") FormatoExtracto formato,
+            @Parameter(description = "Separador decimal de los importes CSV (PUNTO o COMA); si se omite se deduce de cada importe")
+            @RequestParam(required = false) SeparadorDecimal separadorDecimal,
+            @Parameter(description = "Categoría asignada a los ingresos sin categoría reconocida")
+            @RequestParam(required = false) Long categoriaIngresoId,
+            @Parameter(description = "Categoría asignada a los egresos sin categoría reconocida")
+            @RequestParam(required = false) Long categoriaEgresoId) {
+        ImportacionDTO importacion = importacionService.iniciarImportacion(archivo, formato, separadorDecimal,
+                categoriaIngresoId, categoriaEgresoId);
+        return new ResponseEntity<>(importacion, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Consulta el progreso de una importación.
+     * URL: GET /api/importaciones/{id}
+     * @param id ID de la importación.
+     * @return ResponseEntity con el estado y los contadores de la importación.
+     */
+    @Operation(summary = "Consulta el progreso de una importación",
+            description = "Devuelve el estado, las líneas leídas, importadas y con error, y los primeros errores encontrados.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Progreso de la importación"),
+            @ApiResponse(responseCode = "404", description = "Importación no encontrada, caducada o de otro usuario"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportacionDTO> obtenerImportacion(@PathVariable String id) {
+        return ResponseEntity.ok(importacionService.obtenerImportacion(id));
+    }
+}
@@ -1,26 +1,42 @@
 package com.example.finanzaspersonales.controladores;
 
 
+import com.example.finanzaspersonales.dto.agregacion.ComparacionPeriodosDTO;
+import com.example.finanzaspersonales.dto.agregacion.ComparacionReporteDTO;
+import com.example.finanzaspersonales.dto.agregacion.Granularidad;
 import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.SerieTemporalDTO;
+import com.example.finanzaspersonales.dto.agregacion.TrabajoReporteDTO;
+import com.example.finanzaspersonales.servicio.ComparacionReporteService;
 import com.example.finanzaspersonales.servicio.ReporteService;
+import com.example.finanzaspersonales.servicio.TrabajoReporteService;
+import com.example.finanzaspersonales.servicio.VersionDatosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 /**
  * Controlador REST para la generación de reportes financieros.
- * Expone un endpoint para obtener un resumen de finanzas para un período de tiempo.
+ * Expone endpoints para obtener un resumen de finanzas para un período de tiempo y su evolución en el tiempo.
  */
 @RestController
 @RequestMapping("/api/reportes")
@@ -29,9 +45,16 @@ import java.time.LocalDate;
 public class ReporteController {
 
     private final ReporteService reporteService;
+    private final TrabajoReporteService trabajoReporteService;
+    private final ComparacionReporteService comparacionReporteService;
+    private final VersionDatosService versionDatosService;
 
-    public ReporteController(ReporteService reporteService) {
+    public ReporteController(ReporteService reporteService, TrabajoReporteService trabajoReporteService,
+                             ComparacionReporteService comparacionReporteService, VersionDatosService versionDatosService) {
         this.reporteService = reporteService;
+        this.trabajoReporteService = trabajoReporteService;
+        this.comparacionReporteService = comparacionReporteService;
+        this.versionDatosService = versionDatosService;
     }
 
     /**
@@ -39,12 +62,14 @@ public class ReporteController {
      * URL: GET /api/reportes/financiero?fechaInicio=YYYY-MM-DD&fechaFin=YYYY-MM-DD
      * @param fechaInicio Fecha de inicio del período (formato YYYY-MM-DD).
      * @param fechaFin Fecha de fin del período (formato YYYY-MM-DD).
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
      * @return ResponseEntity con el ReporteFinancieroDTO.
      */
     @Operation(summary = "Genera un reporte financiero",
             description = "Devuelve un resumen de las finanzas del usuario autenticado para un período de tiempo determinado, agrupando los gastos por categoría.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Reporte generado exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Fechas inválidas"),
             @ApiResponse(responseCode = "403", description = "Acceso denegado")
     })
@@ -53,10 +78,160 @@ public class ReporteController {
             @Parameter(description = "Fecha de inicio del período (YYYY-MM-DD)", required = true)
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @Parameter(description = "Fecha de fin del período (YYYY-MM-DD)", required = true)
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            WebRequest webRequest) {
 
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
         ReporteFinancieroDTO reporte = reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
-        return ResponseEntity.ok(reporte);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(reporte);
+    }
+
+    /**
+     * Genera la serie temporal de ingresos, egresos, neto y saldo acumulado del usuario autenticado.
+     * URL: GET /api/reportes/serie?fechaInicio=YYYY-MM-DD&fechaFin=YYYY-MM-DD&granularidad=DIARIA|SEMANAL|MENSUAL
+     * @param fechaInicio Fecha de inicio del período (formato YYYY-MM-DD).
+     * @param fechaFin Fecha de fin del período (formato YYYY-MM-DD).
+     * @param granularidad Tamaño de cada intervalo (por defecto MENSUAL).
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
+     * @return ResponseEntity con la SerieTemporalDTO.
+     */
+    @Operation(summary = "Genera una serie temporal",
+            description = "Devuelve, para cada día, semana (de lunes a domingo) o mes del período, los ingresos, egresos, neto y el saldo acumulado desde el inicio del período. Los intervalos sin transacciones se incluyen con totales a cero.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Serie generada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Fechas inválidas o demasiados puntos para la granularidad"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/serie")
+    public ResponseEntity<SerieTemporalDTO> generarSerieTemporal(
+            @Parameter(description = "Fecha de inicio del período (YYYY-MM-DD)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @Parameter(description = "Fecha de fin del período (YYYY-MM-DD)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @Parameter(description = "Tamaño de cada intervalo")
+            @RequestParam(defaultValue = "MENSUAL") Granularidad granularidad,
+            WebRequest webRequest) {
+
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
+        SerieTemporalDTO serie = reporteService.generarSerieTemporal(fechaInicio, fechaFin, granularidad);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(serie);
+    }
+
+    /**
+     * Compara los reportes financieros del usuario autenticado en varios períodos.
+     * URL: POST /api/reportes/comparacion
+     * @param comparacionDTO Los períodos a comparar.
+     * @return ResponseEntity con un reporte por período y su variación respecto al anterior.
+     */
+    @Operation(summary = "Compara varios períodos",
+            description = "Devuelve, en una sola petición, el reporte financiero de cada período (p. ej. este año y el anterior) " +
+                    "y la variación de cada uno respecto al período anterior de la lista. Los períodos se calculan en paralelo.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Comparación generada exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Períodos inválidos"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @PostMapping("/comparacion")
+    public ResponseEntity<ComparacionReporteDTO> compararPeriodos(@Valid @RequestBody ComparacionPeriodosDTO comparacionDTO) {
+        return ResponseEntity.ok(comparacionReporteService.compararPeriodos(comparacionDTO.getPeriodos()));
+    }
+
+    /**
+     * Compara los últimos meses naturales del usuario autenticado.
+     * URL: GET /api/reportes/comparacion/mensual?meses=12&hasta=YYYY-MM-DD
+     * @param meses Número de meses a comparar (por defecto 12).
+     * @param hasta Una fecha del último mes a incluir (por defecto, hoy).
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
+     * @return ResponseEntity con un reporte por mes, del más antiguo al más reciente.
+     */
+    @Operation(summary = "Compara los últimos meses",
+            description = "Devuelve el reporte financiero de cada uno de los últimos meses naturales y su variación respecto al mes anterior.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Comparación generada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Número de meses inválido"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/comparacion/mensual")
+    public ResponseEntity<ComparacionReporteDTO> compararMeses(
+            @Parameter(description = "Número de meses a comparar (1-36)")
+            @RequestParam(defaultValue = "12") int meses,
+            @Parameter(description = "Fecha del último mes a incluir (YYYY-MM-DD); por defecto el mes actual")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            WebRequest webRequest) {
+        LocalDate ultimoMes = hasta != null ? hasta : LocalDate.now();
+        // Sin 'hasta' la respuesta depende también del mes actual
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(YearMonth.from(ultimoMes).toString());
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(comparacionReporteService.compararMeses(meses, ultimoMes));
     }
-}
 
+    /**
+     * Encola un reporte financiero para calcularlo en segundo plano (rangos de varios años).
+     * URL: POST /api/reportes/trabajos?fechaInicio=YYYY-MM-DD&fechaFin=YYYY-MM-DD
+     * @param fechaInicio Fecha de inicio del período (formato YYYY-MM-DD).
+     * @param fechaFin Fecha de fin del período (formato YYYY-MM-DD).
+     * @return ResponseEntity con el estado inicial del trabajo.
+     */
+    @Operation(summary = "Encola un reporte financiero asíncrono",
+            description = "Calcula el mismo reporte que /financiero en segundo plano. Devuelve el ID del trabajo para consultar su estado y recoger el resultado.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Trabajo aceptado y en cola"),
+            @ApiResponse(responseCode = "400", description = "Fechas inválidas"),
+            @ApiResponse(responseCode = "429", description = "Demasiados reportes en curso para el usuario o el servidor"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @PostMapping("/trabajos")
+    public ResponseEntity<TrabajoReporteDTO> encolarReporteFinanciero(
+            @Parameter(description = "Fecha de inicio del período (YYYY-MM-DD)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @Parameter(description = "Fecha de fin del período (YYYY-MM-DD)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        TrabajoReporteDTO trabajo = trabajoReporteService.encolarReporteFinanciero(fechaInicio, fechaFin);
+        return new ResponseEntity<>(trabajo, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Consulta el estado de un trabajo de reporte.
+     * URL: GET /api/reportes/trabajos/{id}
+     * @param id ID del trabajo.
+     * @return ResponseEntity con el estado del trabajo.
+     */
+    @Operation(summary = "Consulta el estado de un reporte asíncrono")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado del trabajo"),
+            @ApiResponse(responseCode = "404", description = "Trabajo no encontrado, caducado o de otro usuario"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/trabajos/{id}")
+    public ResponseEntity<TrabajoReporteDTO> obtenerTrabajo(@PathVariable String id) {
+        return ResponseEntity.ok(trabajoReporteService.obtenerTrabajo(id));
+    }
+
+    /**
+     * Obtiene el resultado de un trabajo de reporte terminado.
+     * URL: GET /api/reportes/trabajos/{id}/resultado
+     * @param id ID del trabajo.
+     * @return ResponseEntity con el ReporteFinancieroDTO.
+     */
+    @Operation(summary = "Obtiene el resultado de un reporte asíncrono")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reporte calculado"),
+            @ApiResponse(responseCode = "404", description = "Trabajo no encontrado, caducado o de otro usuario"),
+            @ApiResponse(responseCode = "409", description = "El trabajo no ha terminado o ha fallado"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/trabajos/{id}/resultado")
+    public ResponseEntity<ReporteFinancieroDTO> obtenerResultado(@PathVariable String id) {
+        return ResponseEntity.ok(trabajoReporteService.obtenerResultado(id));
+    }
+}
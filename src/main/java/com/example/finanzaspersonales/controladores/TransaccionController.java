@@ -1,16 +1,31 @@
 package com.example.finanzaspersonales.controladores;
 
+import com.example.finanzaspersonales.dto.exportacion.FormatoExportacion;
+import com.example.finanzaspersonales.dto.operaciones.FiltroTransaccionesDTO;
+import com.example.finanzaspersonales.dto.operaciones.LoteTransaccionesDTO;
 import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.dto.paginacion.PaginaDTO;
+import com.example.finanzaspersonales.servicio.BusquedaTextoService;
+import com.example.finanzaspersonales.servicio.ExportacionService;
+import com.example.finanzaspersonales.servicio.IdempotenciaService;
 import com.example.finanzaspersonales.servicio.TransaccionService;
+import com.example.finanzaspersonales.servicio.VersionDatosService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -26,29 +41,73 @@ import java.util.List;
 public class TransaccionController {
 
     private final TransaccionService transaccionService;
+    private final ExportacionService exportacionService;
+    private final VersionDatosService versionDatosService;
+    private final BusquedaTextoService busquedaTextoService;
+    private final IdempotenciaService idempotenciaService;
 
-    public TransaccionController(TransaccionService transaccionService) {
+    public TransaccionController(TransaccionService transaccionService, ExportacionService exportacionService,
+                                 VersionDatosService versionDatosService, BusquedaTextoService busquedaTextoService,
+                                 IdempotenciaService idempotenciaService) {
         this.transaccionService = transaccionService;
+        this.exportacionService = exportacionService;
+        this.versionDatosService = versionDatosService;
+        this.busquedaTextoService = busquedaTextoService;
+        this.idempotenciaService = idempotenciaService;
     }
 
     /**
      * Crea una nueva transacción para el usuario autenticado.
      * URL: POST /api/transacciones
+     * Con la cabecera Idempotency-Key, un reintento con la misma clave devuelve la transacción creada
+     * la primera vez (con la cabecera Idempotent-Replayed) en lugar de crear otra.
      * @param transaccionDTO DTO de la transacción a crear.
+     * @param claveIdempotencia Clave de idempotencia opcional generada por el cliente para esta operación.
      * @return ResponseEntity con la transacción creada.
      */
     @Operation(summary = "Crea una nueva transacción",
-            description = "Permite al usuario autenticado registrar un nuevo ingreso o egreso.")
+            description = "Permite al usuario autenticado registrar un nuevo ingreso o egreso. " +
+                    "Con la cabecera Idempotency-Key los reintentos de la misma operación no crean transacciones duplicadas.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Transacción creada exitosamente"),
-            @ApiResponse(responseCode = "400", description = "Datos de transacción inválidos"),
+            @ApiResponse(responseCode = "201", description = "Transacción creada exitosamente, o creada antes con la misma clave de idempotencia"),
+            @ApiResponse(responseCode = "400", description = "Datos de transacción inválidos, o clave de idempotencia inválida o ya usada con otra petición"),
             @ApiResponse(responseCode = "404", description = "Categoría no encontrada o no pertenece al usuario"),
             @ApiResponse(responseCode = "403", description = "Acceso denegado")
     })
     @PostMapping
-    public ResponseEntity<TransaccionDTO> crearTransaccion(@Valid @RequestBody TransaccionDTO transaccionDTO) {
-        TransaccionDTO nuevaTransaccion = transaccionService.crearTransaccion(transaccionDTO);
-        return new ResponseEntity<>(nuevaTransaccion, HttpStatus.CREATED);
+    public ResponseEntity<TransaccionDTO> crearTransaccion(
+            @Valid @RequestBody TransaccionDTO transaccionDTO,
+            @Parameter(description = "Clave única por operación; los reintentos deben repetirla")
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
+        if (claveIdempotencia == null) {
+            TransaccionDTO nuevaTransaccion = transaccionService.crearTransaccion(transaccionDTO);
+            return new ResponseEntity<>(nuevaTransaccion, HttpStatus.CREATED);
+        }
+        IdempotenciaService.TransaccionIdempotente resultado = idempotenciaService.crearTransaccion(claveIdempotencia, transaccionDTO);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", Boolean.toString(resultado.repetida()))
+                .body(resultado.transaccion());
+    }
+
+    /**
+     * Crea un lote de transacciones para el usuario autenticado en una sola petición.
+     * URL: POST /api/transacciones/batch
+     * @param loteDTO DTO con la lista de transacciones a crear.
+     * @return ResponseEntity con las transacciones creadas.
+     */
+    @Operation(summary = "Crea un lote de transacciones",
+            description = "Registra hasta 5000 ingresos o egresos en una sola operación. " +
+                    "Si alguna categoría no pertenece al usuario no se crea ninguna transacción del lote.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Transacciones creadas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos de transacción inválidos o lote vacío o demasiado grande"),
+            @ApiResponse(responseCode = "404", description = "Alguna categoría no encontrada o no pertenece al usuario"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<TransaccionDTO>> crearTransacciones(@Valid @RequestBody LoteTransaccionesDTO loteDTO) {
+        List<TransaccionDTO> nuevasTransacciones = transaccionService.crearTransacciones(loteDTO.getTransacciones());
+        return new ResponseEntity<>(nuevasTransacciones, HttpStatus.CREATED);
     }
 
     /**
@@ -73,18 +132,153 @@ public class TransaccionController {
     /**
      * Obtiene todas las transacciones del usuario autenticado.
      * URL: GET /api/transacciones
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
      * @return ResponseEntity con una lista de transacciones.
      */
     @Operation(summary = "Obtiene todas las transacciones del usuario",
-            description = "Recupera una lista de todas las transacciones (ingresos y egresos) del usuario autenticado.")
+            description = "Recupera una lista de todas las transacciones (ingresos y egresos) del usuario autenticado. " +
+                    "La respuesta lleva un ETag que cambia con cada escritura del usuario; reenviándolo en If-None-Match se obtiene 304 si no hay cambios.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de transacciones recuperada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
             @ApiResponse(responseCode = "403", description = "Acceso denegado")
     })
     @GetMapping
-    public ResponseEntity<List<TransaccionDTO>> obtenerTodasLasTransacciones() {
+    public ResponseEntity<List<TransaccionDTO>> obtenerTodasLasTransacciones(WebRequest webRequest) {
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
         List<TransaccionDTO> transacciones = transaccionService.obtenerTransaccionesDelUsuario();
-        return ResponseEntity.ok(transacciones);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(transacciones);
+    }
+
+    /**
+     * Obtiene una página de transacciones del usuario autenticado, de la más reciente a la más antigua.
+     * URL: GET /api/transacciones/pagina?tamano=50&cursor=...
+     * @param tamano Número de transacciones por página.
+     * @param cursor Cursor opaco devuelto por la página anterior (omitir para la primera página).
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
+     * @return ResponseEntity con la página de transacciones y el cursor de la siguiente.
+     */
+    @Operation(summary = "Obtiene las transacciones del usuario paginadas",
+            description = "Recupera las transacciones del usuario autenticado por páginas, ordenadas por fecha descendente. " +
+                    "Para obtener la página siguiente se reenvía el cursor devuelto en 'siguienteCursor'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de transacciones recuperada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Tamaño de página o cursor inválidos"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaDTO<TransaccionDTO>> obtenerPaginaDeTransacciones(
+            @Parameter(description = "Número de transacciones por página (1-500)")
+            @RequestParam(defaultValue = "50") int tamano,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
+        PaginaDTO<TransaccionDTO> pagina = transaccionService.obtenerPaginaDeTransacciones(cursor, tamano);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pagina);
+    }
+
+    /**
+     * Busca transacciones del usuario autenticado con filtros opcionales, ordenadas y paginadas por cursor.
+     * URL: GET /api/transacciones/buscar?fechaDesde=&fechaHasta=&tipo=&montoMinimo=&montoMaximo=&categoriaIds=&descripcion=&orden=&tamano=&cursor=
+     * @param filtro Criterios de búsqueda (todos opcionales) y orden.
+     * @param tamano Número de transacciones por página.
+     * @param cursor Cursor devuelto por la página anterior de la misma búsqueda (omitir para la primera página).
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
+     * @return ResponseEntity con la página de transacciones y el cursor de la siguiente.
+     */
+    @Operation(summary = "Busca transacciones del usuario con filtros",
+            description = "Filtra las transacciones del usuario autenticado por rango de fechas, tipo, rango de montos, categorías " +
+                    "y texto de la descripción, y las devuelve ordenadas por fecha o monto y paginadas por cursor. " +
+                    "Para la página siguiente se repiten los mismos filtros y se reenvía 'siguienteCursor'.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de transacciones recuperada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Filtros, tamaño de página o cursor inválidos"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/buscar")
+    public ResponseEntity<PaginaDTO<TransaccionDTO>> buscarTransacciones(
+            @ParameterObject @Valid FiltroTransaccionesDTO filtro,
+            @Parameter(description = "Número de transacciones por página (1-500)")
+            @RequestParam(defaultValue = "50") int tamano,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
+        PaginaDTO<TransaccionDTO> pagina = transaccionService.buscarTransacciones(filtro, cursor, tamano);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pagina);
+    }
+
+    /**
+     * Busca transacciones del usuario autenticado por el texto de su descripción, de la más relevante a la menos.
+     * URL: GET /api/transacciones/buscar-texto?texto=...&tamano=20&cursor=...
+     * @param texto Texto a buscar (p. ej. el nombre de un comercio).
+     * @param tamano Número de transacciones por página.
+     * @param cursor Cursor devuelto por la página anterior de la misma búsqueda (omitir para la primera página).
+     * @param webRequest La petición, para responder 304 si el ETag de If-None-Match sigue vigente.
+     * @return ResponseEntity con la página de transacciones y el cursor de la siguiente.
+     */
+    @Operation(summary = "Busca transacciones por texto",
+            description = "Devuelve las transacciones cuya descripción contiene todas las palabras del texto (cada una puede ser " +
+                    "el comienzo de una palabra), ordenadas por relevancia y paginadas por cursor.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de transacciones recuperada exitosamente"),
+            @ApiResponse(responseCode = "304", description = "Los datos no han cambiado desde el ETag enviado en If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Texto, tamaño de página o cursor inválidos"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/buscar-texto")
+    public ResponseEntity<PaginaDTO<TransaccionDTO>> buscarTransaccionesPorTexto(
+            @Parameter(description = "Texto a buscar en la descripción", required = true)
+            @RequestParam String texto,
+            @Parameter(description = "Número de transacciones por página (1-100)")
+            @RequestParam(defaultValue = "20") int tamano,
+            @Parameter(description = "Cursor devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+        String etag = versionDatosService.obtenerEtagDelUsuarioAutenticado(); // Antes de leer los datos
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null; // 304 sin consultar ni serializar los datos
+        }
+        PaginaDTO<TransaccionDTO> pagina = busquedaTextoService.buscarPorDescripcion(texto, cursor, tamano);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pagina);
+    }
+
+    /**
+     * Exporta todas las transacciones del usuario autenticado como NDJSON o CSV.
+     * La respuesta se escribe en streaming a medida que se leen las filas de la base de datos.
+     * URL: GET /api/transacciones/export?formato=NDJSON|CSV
+     * @param formato Formato de la exportación.
+     * @return ResponseEntity con el cuerpo en streaming.
+     */
+    @Operation(summary = "Exporta el libro completo de transacciones",
+            description = "Descarga todas las transacciones del usuario autenticado en orden cronológico, " +
+                    "en formato NDJSON (un objeto JSON por línea) o CSV.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación en curso"),
+            @ApiResponse(responseCode = "400", description = "Formato inválido"),
+            @ApiResponse(responseCode = "403", description = "Acceso denegado")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarTransacciones(
+            @Parameter(description = "Formato de exportación (NDJSON o CSV)")
+            @RequestParam(defaultValue = "NDJSON") FormatoExportacion formato) {
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarTransacciones(formato, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getTipoContenido()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transacciones." + formato.getExtension() + "\"")
+                .body(cuerpo);
     }
 
     /**
@@ -0,0 +1,21 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO de petición de una comparación de reportes: los períodos a comparar, en el orden en que se devuelven.
+ * Cada período se compara con el anterior de la lista.
+ */
+@Data
+public class ComparacionPeriodosDTO {
+
+    @NotEmpty(message = "La comparación debe contener al menos un período")
+    @Size(max = 36, message = "La comparación no puede contener más de 36 períodos")
+    private List<@NotNull(message = "Los períodos no pueden ser nulos") @Valid PeriodoDTO> periodos;
+}
@@ -0,0 +1,13 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Resultado de una comparación de reportes: un reporte por período, en el orden pedido.
+ */
+@Value
+public class ComparacionReporteDTO {
+    List<ReportePeriodoDTO> periodos;
+}
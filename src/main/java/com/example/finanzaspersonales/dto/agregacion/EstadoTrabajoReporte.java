@@ -0,0 +1,11 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+/**
+ * Estados por los que pasa un trabajo de reporte asíncrono.
+ */
+public enum EstadoTrabajoReporte {
+    PENDIENTE,
+    EN_CURSO,
+    COMPLETADO, // El resultado está disponible hasta que el trabajo caduque
+    FALLIDO
+}
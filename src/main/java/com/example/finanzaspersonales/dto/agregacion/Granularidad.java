@@ -0,0 +1,11 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+/**
+ * Tamaño de cada intervalo de una serie temporal.
+ * Las semanas son semanas ISO (de lunes a domingo).
+ */
+public enum Granularidad {
+    DIARIA,
+    SEMANAL,
+    MENSUAL
+}
@@ -0,0 +1,23 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Período (rango de fechas inclusive) de una comparación de reportes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodoDTO {
+
+    @NotNull(message = "La fecha de inicio del período no puede ser nula")
+    private LocalDate fechaInicio;
+
+    @NotNull(message = "La fecha de fin del período no puede ser nula")
+    private LocalDate fechaFin;
+}
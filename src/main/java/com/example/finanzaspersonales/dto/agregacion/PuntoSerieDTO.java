@@ -0,0 +1,20 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Un intervalo de una serie temporal: totales del intervalo y saldo acumulado al cerrarlo.
+ */
+@Value
+public class PuntoSerieDTO {
+    LocalDate fechaInicio; // Primer día del intervalo (inclusive)
+    LocalDate fechaFin;    // Último día del intervalo (inclusive)
+    BigDecimal ingresos;
+    BigDecimal egresos;
+    BigDecimal neto;
+    // Suma de los netos desde el inicio de la serie hasta este intervalo, incluido
+    BigDecimal saldoAcumulado;
+}
@@ -0,0 +1,17 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Reporte financiero de un período dentro de una comparación, con su variación respecto al período anterior
+ * (nula en el primero).
+ */
+@Value
+public class ReportePeriodoDTO {
+    LocalDate fechaInicio;
+    LocalDate fechaFin;
+    ReporteFinancieroDTO reporte;
+    VariacionReporteDTO variacion;
+}
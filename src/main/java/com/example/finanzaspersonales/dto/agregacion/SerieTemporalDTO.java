@@ -0,0 +1,19 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Serie temporal de ingresos, egresos y neto de un período, dividida en intervalos consecutivos.
+ * Incluye también los intervalos sin transacciones (con totales a cero), de modo que los puntos
+ * se pueden representar directamente. El primer y el último intervalo se recortan al período pedido.
+ */
+@Value
+public class SerieTemporalDTO {
+    LocalDate fechaInicio;
+    LocalDate fechaFin;
+    Granularidad granularidad;
+    List<PuntoSerieDTO> puntos;
+}
@@ -0,0 +1,18 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila agregada devuelta por la base de datos: suma de montos para un tipo de transacción
+ * y una categoría dentro de un período. Se construye directamente desde la consulta JPQL
+ * (SELECT new ...) para evitar hidratar entidades Transaccion en memoria.
+ */
+@Value
+public class TotalPorCategoriaDTO {
+    TipoTransaccion tipo;
+    String categoria; // Nombre de la categoría
+    BigDecimal total;
+}
@@ -0,0 +1,18 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila agregada devuelta por la base de datos: suma de montos de un tipo de transacción en un día.
+ * Se construye directamente desde la consulta JPQL (SELECT new ...).
+ */
+@Value
+public class TotalPorFechaDTO {
+    LocalDate fecha;
+    TipoTransaccion tipo;
+    BigDecimal total;
+}
@@ -0,0 +1,21 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * DTO con el estado de un trabajo de reporte asíncrono.
+ * El resultado se obtiene aparte, una vez que el estado es COMPLETADO.
+ */
+@Value
+public class TrabajoReporteDTO {
+    String id;
+    EstadoTrabajoReporte estado;
+    LocalDate fechaInicio;
+    LocalDate fechaFin;
+    Instant creado;
+    Instant terminado; // null mientras no termine
+    String error;      // Solo si el estado es FALLIDO
+}
@@ -0,0 +1,21 @@
+package com.example.finanzaspersonales.dto.agregacion;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Diferencias de un reporte respecto al del período anterior de la comparación.
+ * Los porcentajes son nulos cuando el valor del período anterior es cero.
+ */
+@Value
+public class VariacionReporteDTO {
+    BigDecimal ingresos;
+    BigDecimal egresos;
+    BigDecimal balanceNeto;
+    BigDecimal porcentajeIngresos;
+    BigDecimal porcentajeEgresos;
+    // Diferencia de gasto por categoría; incluye las categorías que solo aparecen en uno de los dos períodos
+    Map<String, BigDecimal> gastosPorCategoria;
+}
@@ -0,0 +1,25 @@
+package com.example.finanzaspersonales.dto.exportacion;
+
+/**
+ * Formatos disponibles para la exportación del libro de transacciones.
+ */
+public enum FormatoExportacion {
+    NDJSON("application/x-ndjson", "ndjson"), // Un objeto JSON por línea
+    CSV("text/csv", "csv");
+
+    private final String tipoContenido;
+    private final String extension;
+
+    FormatoExportacion(String tipoContenido, String extension) {
+        this.tipoContenido = tipoContenido;
+        this.extension = extension;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
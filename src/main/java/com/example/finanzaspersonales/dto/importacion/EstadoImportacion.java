@@ -0,0 +1,11 @@
+package com.example.finanzaspersonales.dto.importacion;
+
+/**
+ * Estados por los que pasa una importación de extracto bancario.
+ */
+public enum EstadoImportacion {
+    PENDIENTE,
+    EN_CURSO,
+    COMPLETADA,
+    FALLIDA // Error de lectura del archivo; los bloques ya confirmados se conservan
+}
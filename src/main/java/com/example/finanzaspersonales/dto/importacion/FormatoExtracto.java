@@ -0,0 +1,9 @@
+package com.example.finanzaspersonales.dto.importacion;
+
+/**
+ * Formatos de extracto bancario que se pueden importar.
+ */
+public enum FormatoExtracto {
+    CSV, // Cabecera con columnas fecha, descripcion, monto y, opcionalmente, tipo y categoria
+    OFX  // Open Financial Exchange (SGML 1.x o XML 2.x)
+}
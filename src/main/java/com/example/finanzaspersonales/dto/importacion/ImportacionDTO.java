@@ -0,0 +1,20 @@
+package com.example.finanzaspersonales.dto.importacion;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * DTO con el progreso de una importación de extracto bancario.
+ * Los contadores se actualizan a medida que se confirma cada bloque de líneas.
+ */
+@Value
+public class ImportacionDTO {
+    String id;
+    EstadoImportacion estado;
+    long lineasLeidas;
+    long lineasImportadas;
+    long lineasConError;
+    // Solo se conservan los primeros errores para acotar la memoria
+    List<String> errores;
+}
@@ -0,0 +1,9 @@
+package com.example.finanzaspersonales.dto.importacion;
+
+/**
+ * Separador decimal de los importes de un extracto CSV. El otro signo se admite como separador de miles.
+ */
+public enum SeparadorDecimal {
+    PUNTO, // 1,234.56
+    COMA   // 1.234,56
+}
@@ -0,0 +1,41 @@
+package com.example.finanzaspersonales.dto.operaciones;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO con los criterios de búsqueda de transacciones. Todos son opcionales y se combinan con AND;
+ * un criterio nulo o vacío no filtra.
+ */
+@Data
+public class FiltroTransaccionesDTO {
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaDesde;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate fechaHasta;
+
+    private TipoTransaccion tipo;
+
+    @DecimalMin(value = "0.00", message = "El monto mínimo no puede ser negativo")
+    private BigDecimal montoMinimo;
+
+    @DecimalMin(value = "0.00", message = "El monto máximo no puede ser negativo")
+    private BigDecimal montoMaximo;
+
+    @Size(max = 100, message = "Como máximo se puede filtrar por 100 categorías")
+    private List<Long> categoriaIds;
+
+    @Size(max = 100, message = "El texto a buscar no puede superar los 100 caracteres")
+    private String descripcion; // Subcadena, sin distinguir mayúsculas
+
+    private OrdenTransacciones orden = OrdenTransacciones.FECHA_DESC;
+}
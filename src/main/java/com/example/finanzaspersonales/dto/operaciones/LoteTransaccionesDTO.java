@@ -0,0 +1,21 @@
+package com.example.finanzaspersonales.dto.operaciones;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para la creación masiva de transacciones en una sola petición.
+ * Cada elemento se valida con las mismas reglas que una transacción individual.
+ */
+@Data
+public class LoteTransaccionesDTO {
+
+    @NotEmpty(message = "El lote debe contener al menos una transacción")
+    @Size(max = 5000, message = "El lote no puede contener más de 5000 transacciones")
+    @Valid
+    private List<TransaccionDTO> transacciones;
+}
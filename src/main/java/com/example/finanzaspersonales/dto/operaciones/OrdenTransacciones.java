@@ -0,0 +1,28 @@
+package com.example.finanzaspersonales.dto.operaciones;
+
+/**
+ * Orden de los resultados de una búsqueda de transacciones.
+ * El ID desempata siempre en el mismo sentido, de modo que el orden es total y admite paginación por clave.
+ */
+public enum OrdenTransacciones {
+    FECHA_DESC("fecha", true),
+    FECHA_ASC("fecha", false),
+    MONTO_DESC("monto", true),
+    MONTO_ASC("monto", false);
+
+    private final String campo;
+    private final boolean descendente;
+
+    OrdenTransacciones(String campo, boolean descendente) {
+        this.campo = campo;
+        this.descendente = descendente;
+    }
+
+    public String getCampo() {
+        return campo;
+    }
+
+    public boolean isDescendente() {
+        return descendente;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.finanzaspersonales.dto.paginacion;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * DTO que representa una página de resultados obtenida por paginación de conjunto de claves (keyset).
+ * El cursor es opaco para el cliente: basta con reenviarlo para obtener la página siguiente.
+ * Es nulo cuando no hay más resultados.
+ */
+@Value
+public class PaginaDTO<T> {
+    List<T> elementos;
+    String siguienteCursor;
+}
@@ -0,0 +1,25 @@
+package com.example.finanzaspersonales.evento;
+
+import lombok.Value;
+
+/**
+ * Describe un cambio sobre una transacción: alta (sin valores anteriores),
+ * modificación (con valores anteriores y nuevos) o baja (sin valores nuevos).
+ */
+@Value
+public class CambioTransaccion {
+    DatosTransaccion anterior;
+    DatosTransaccion nueva;
+
+    public static CambioTransaccion alta(DatosTransaccion nueva) {
+        return new CambioTransaccion(null, nueva);
+    }
+
+    public static CambioTransaccion modificacion(DatosTransaccion anterior, DatosTransaccion nueva) {
+        return new CambioTransaccion(anterior, nueva);
+    }
+
+    public static CambioTransaccion baja(DatosTransaccion anterior) {
+        return new CambioTransaccion(anterior, null);
+    }
+}
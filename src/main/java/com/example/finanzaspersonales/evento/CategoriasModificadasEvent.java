@@ -0,0 +1,12 @@
+package com.example.finanzaspersonales.evento;
+
+import lombok.Value;
+
+/**
+ * Evento publicado por CategoriaService cada vez que se crea, actualiza o elimina
+ * una categoría de un usuario.
+ */
+@Value
+public class CategoriasModificadasEvent implements EventoDatosUsuario {
+    Long usuarioId;
+}
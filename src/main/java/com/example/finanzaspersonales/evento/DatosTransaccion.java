@@ -0,0 +1,49 @@
+package com.example.finanzaspersonales.evento;
+
+import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Copia inmutable de los campos de una transacción en un momento dado.
+ * Permite a los oyentes de eventos conocer los valores anteriores y nuevos
+ * sin depender del estado de la entidad gestionada por JPA.
+ */
+@Value
+public class DatosTransaccion {
+    Long id;
+    Long categoriaId;
+    TipoTransaccion tipo;
+    LocalDate fecha;
+    BigDecimal monto;
+    String descripcion;
+
+    public DatosTransaccion(Long id, Long categoriaId, TipoTransaccion tipo, LocalDate fecha, BigDecimal monto, String descripcion) {
+        this.id = id;
+        this.categoriaId = categoriaId;
+        this.tipo = tipo;
+        this.fecha = fecha;
+        this.monto = monto;
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Copia sin la descripción, para las lecturas masivas que solo necesitan importes (p. ej. el motor columnar).
+     */
+    public DatosTransaccion(Long id, Long categoriaId, TipoTransaccion tipo, LocalDate fecha, BigDecimal monto) {
+        this(id, categoriaId, tipo, fecha, monto, null);
+    }
+
+    public static DatosTransaccion de(Transaccion transaccion) {
+        return new DatosTransaccion(
+                transaccion.getId(),
+                transaccion.getCategoria().getId(),
+                transaccion.getTipo(),
+                transaccion.getFecha(),
+                transaccion.getMonto(),
+                transaccion.getDescripcion());
+    }
+}
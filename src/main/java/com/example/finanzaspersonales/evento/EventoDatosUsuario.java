@@ -0,0 +1,10 @@
+package com.example.finanzaspersonales.evento;
+
+/**
+ * Contrato común de los eventos que indican que los datos financieros de un usuario han cambiado.
+ * Permite a los oyentes reaccionar a cualquier escritura (transacciones o categorías) con un único método.
+ */
+public interface EventoDatosUsuario {
+
+    Long getUsuarioId();
+}
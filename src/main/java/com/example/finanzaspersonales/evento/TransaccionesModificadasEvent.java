@@ -0,0 +1,16 @@
+package com.example.finanzaspersonales.evento;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Evento publicado por TransaccionService cada vez que se crean, actualizan o eliminan
+ * transacciones de un usuario. Los oyentes síncronos (@EventListener) se ejecutan dentro
+ * de la misma transacción que la escritura.
+ */
+@Value
+public class TransaccionesModificadasEvent implements EventoDatosUsuario {
+    Long usuarioId;
+    List<CambioTransaccion> cambios;
+}
@@ -0,0 +1,11 @@
+package com.example.finanzaspersonales.exception;
+
+/**
+ * Excepción lanzada cuando el servidor no admite más trabajos de un tipo en este momento
+ * (p. ej. importaciones en curso). Se mapea a un código de estado HTTP 429 (Too Many Requests).
+ */
+public class LimiteExcedidoException extends RuntimeException {
+    public LimiteExcedidoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.finanzaspersonales.exception;
+
+/**
+ * Excepción lanzada cuando los datos de una petición no son válidos para la operación (p. ej. un rango de fechas
+ * invertido, un tamaño de página fuera de rango o un cursor manipulado). Se mapea a un código de estado
+ * HTTP 400 (Bad Request); un IllegalArgumentException, en cambio, es un error de programación.
+ */
+public class SolicitudInvalidaException extends RuntimeException {
+    public SolicitudInvalidaException(String mensaje) {
+        super(mensaje);
+    }
+
+    public SolicitudInvalidaException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
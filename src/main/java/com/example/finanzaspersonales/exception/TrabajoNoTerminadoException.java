@@ -0,0 +1,11 @@
+package com.example.finanzaspersonales.exception;
+
+/**
+ * Excepción lanzada al pedir el resultado de un trabajo en segundo plano que todavía no ha terminado
+ * o que ha fallado. Se mapea a un código de estado HTTP 409 (Conflict).
+ */
+public class TrabajoNoTerminadoException extends RuntimeException {
+    public TrabajoNoTerminadoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.finanzaspersonales.generacion;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generador de datos sintéticos para pruebas de carga, activo solo con el perfil "seed".
+ * Crea N usuarios, M categorías por usuario y T transacciones por usuario con distribuciones realistas:
+ * montos log-normales (muchos gastos pequeños, pocos grandes), fechas con estacionalidad mensual y semanal,
+ * y una mezcla de ingresos y egresos. Con la misma semilla se generan siempre los mismos datos.
+ * Las filas se insertan con lotes JDBC, sin pasar por JPA, y los acumulados mensuales y la versión de los datos
+ * de cada usuario se escriben a la vez, de modo que los reportes y sus ETags son coherentes con las transacciones generadas.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+public class GeneradorDatosSinteticos implements ApplicationRunner {
+
+    private static final String PREFIJO_USUARIO = "seed-";
+    // Contraseña de todos los usuarios generados, para poder autenticarse en las pruebas de carga
+    private static final String CONTRASENA = "seed1234";
+    // Incremento de las secuencias (allocationSize de Transaccion y ResumenMensual)
+    private static final int INCREMENTO_SECUENCIA = 50;
+
+    private static final String[] NOMBRES_INGRESO = {"Salario", "Freelance", "Intereses", "Alquileres", "Reembolsos"};
+    private static final String[] NOMBRES_EGRESO = {"Supermercado", "Restaurantes", "Transporte", "Vivienda", "Suministros",
+            "Ocio", "Salud", "Ropa", "Educación", "Viajes", "Suscripciones", "Regalos", "Mascotas", "Hogar", "Impuestos"};
+    // Peso relativo de cada mes (enero a diciembre): cuesta de enero, verano y Navidad
+    private static final double[] PESO_MES = {0.8, 0.85, 0.95, 1.0, 1.0, 1.1, 1.3, 1.3, 0.95, 1.0, 1.15, 1.6};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationContext applicationContext;
+
+    @Value("${finanzas.seed.usuarios:10}")
+    private int usuarios;
+    @Value("${finanzas.seed.categorias-por-usuario:10}")
+    private int categoriasPorUsuario;
+    @Value("${finanzas.seed.transacciones-por-usuario:10000}")
+    private int transaccionesPorUsuario;
+    @Value("${finanzas.seed.meses:24}")
+    private int meses;
+    @Value("${finanzas.seed.proporcion-ingresos:0.1}")
+    private double proporcionIngresos;
+    @Value("${finanzas.seed.semilla:42}")
+    private long semilla;
+    @Value("${finanzas.seed.tamano-lote:5000}")
+    private int tamanoLote;
+    @Value("${finanzas.seed.salir-al-terminar:false}")
+    private boolean salirAlTerminar;
+
+    public GeneradorDatosSinteticos(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+                                    EntityManagerFactory entityManagerFactory, ApplicationContext applicationContext) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.entityManagerFactory = entityManagerFactory;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long inicio = System.nanoTime();
+        log.info("Generando {} usuarios x {} categorías x {} transacciones (semilla {})",
+                usuarios, categoriasPorUsuario, transaccionesPorUsuario, semilla);
+
+        Long rolUsuario = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE nombre = 'ROLE_USER'", Long.class);
+        String hash = passwordEncoder.encode(CONTRASENA);
+        ReservaIds idsTransacciones = new ReservaIds("transacciones_seq");
+        ReservaIds idsResumenes = new ReservaIds("resumenes_mensuales_seq");
+        LocalDate hasta = LocalDate.now();
+        LocalDate desde = hasta.minusMonths(meses).plusDays(1);
+
+        long total = 0;
+        for (int u = 0; u < usuarios; u++) {
+            // Un generador por usuario: los datos de cada usuario no dependen del tamaño del lote ni del resto
+            Random aleatorio = new Random(semilla * 1_000_003L + u);
+            String nombreUsuario = PREFIJO_USUARIO + semilla + "-" + u;
+            jdbcTemplate.update("INSERT INTO usuarios (nombre_usuario, contrasena) VALUES (?, ?)", nombreUsuario, hash);
+            Long usuarioId = jdbcTemplate.queryForObject("SELECT id FROM usuarios WHERE nombre_usuario = ?", Long.class, nombreUsuario);
+            jdbcTemplate.update("INSERT INTO usuarios_roles (usuario_id, rol_id) VALUES (?, ?)", usuarioId, rolUsuario);
+            jdbcTemplate.update("INSERT INTO versiones_datos (usuario_id, version) VALUES (?, 1)", usuarioId);
+
+            List<Long> ingresos = new ArrayList<>();
+            List<Long> egresos = new ArrayList<>();
+            crearCategorias(usuarioId, ingresos, egresos);
+
+            Map<String, Object[]> acumulados = new HashMap<>();
+            List<Object[]> lote = new ArrayList<>(tamanoLote);
+            for (int i = 0; i < transaccionesPorUsuario; i++) {
+                boolean esIngreso = aleatorio.nextDouble() < proporcionIngresos;
+                TipoTransaccion tipo = esIngreso ? TipoTransaccion.INGRESO : TipoTransaccion.EGRESO;
+                Long categoriaId = elegirCategoria(aleatorio, esIngreso ? ingresos : egresos);
+                BigDecimal monto = esIngreso ? montoLogNormal(aleatorio, 1200, 0.5) : montoLogNormal(aleatorio, 25, 1.1);
+                LocalDate fecha = fechaEstacional(aleatorio, desde, hasta, esIngreso);
+
+                lote.add(new Object[]{idsTransacciones.siguiente(), monto, tipo.name(), descripcion(tipo, i),
+                        Date.valueOf(fecha), categoriaId, usuarioId});
+                acumular(acumulados, categoriaId, tipo, fecha, monto);
+                if (lote.size() == tamanoLote) {
+                    insertarTransacciones(lote);
+                    lote.clear();
+                }
+            }
+            insertarTransacciones(lote);
+            insertarAcumulados(usuarioId, acumulados, idsResumenes);
+
+            total += transaccionesPorUsuario;
+            log.info("Usuario {} ({}/{}): {} transacciones en total, {} filas/s", nombreUsuario, u + 1, usuarios, total,
+                    Math.round(total / ((System.nanoTime() - inicio) / 1e9)));
+        }
+        log.info("Generación terminada en {} s. Contraseña de los usuarios '{}*': {}",
+                Math.round((System.nanoTime() - inicio) / 1e9), PREFIJO_USUARIO, CONTRASENA);
+
+        if (salirAlTerminar) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private void crearCategorias(Long usuarioId, List<Long> ingresos, List<Long> egresos) {
+        int numeroIngresos = Math.max(1, categoriasPorUsuario / 5);
+        List<Object[]> filas = new ArrayList<>();
+        for (int c = 0; c < categoriasPorUsuario; c++) {
+            boolean esIngreso = c < numeroIngresos;
+            String[] nombres = esIngreso ? NOMBRES_INGRESO : NOMBRES_EGRESO;
+            int indice = esIngreso ? c : c - numeroIngresos;
+            String nombre = nombres[indice % nombres.length] + (indice < nombres.length ? "" : " " + (indice / nombres.length + 1));
+            filas.add(new Object[]{nombre, (esIngreso ? TipoTransaccion.INGRESO : TipoTransaccion.EGRESO).name(), usuarioId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categorias (nombre, tipo, usuario_id) VALUES (?, ?, ?)", filas);
+        jdbcTemplate.query("SELECT id, tipo FROM categorias WHERE usuario_id = ? ORDER BY id", rs -> {
+            (TipoTransaccion.INGRESO.name().equals(rs.getString("tipo")) ? ingresos : egresos).add(rs.getLong("id"));
+        }, usuarioId);
+    }
+
+    /**
+     * Elige una categoría con una distribución tipo Zipf: la primera es la más frecuente.
+     */
+    private static Long elegirCategoria(Random aleatorio, List<Long> categorias) {
+        double suma = 0;
+        for (int k = 1; k <= categorias.size(); k++) {
+            suma += 1.0 / k;
+        }
+        double objetivo = aleatorio.nextDouble() * suma;
+        for (int k = 1; k <= categorias.size(); k++) {
+            objetivo -= 1.0 / k;
+            if (objetivo <= 0) {
+                return categorias.get(k - 1);
+            }
+        }
+        return categorias.get(categorias.size() - 1);
+    }
+
+    private static BigDecimal montoLogNormal(Random aleatorio, double mediana, double dispersion) {
+        double monto = Math.exp(Math.log(mediana) + dispersion * aleatorio.nextGaussian());
+        return BigDecimal.valueOf(Math.min(Math.max(monto, 0.01), 1_000_000)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Fecha aleatoria en el rango, aceptada con probabilidad proporcional al peso del mes y del día:
+     * los egresos se concentran en fin de semana y los ingresos a principio de mes.
+     */
+    private static LocalDate fechaEstacional(Random aleatorio, LocalDate desde, LocalDate hasta, boolean esIngreso) {
+        long dias = hasta.toEpochDay() - desde.toEpochDay() + 1;
+        while (true) {
+            LocalDate fecha = desde.plusDays((long) (aleatorio.nextDouble() * dias));
+            double peso = PESO_MES[fecha.getMonthValue() - 1] / 1.6;
+            if (esIngreso) {
+                peso *= fecha.getDayOfMonth() <= 5 ? 1.0 : 0.25;
+            } else {
+                DayOfWeek dia = fecha.getDayOfWeek();
+                peso *= dia == DayOfWeek.SATURDAY || dia == DayOfWeek.SUNDAY ? 1.0 : 0.6;
+            }
+            if (aleatorio.nextDouble() < peso) {
+                return fecha;
+            }
+        }
+    }
+
+    private static String descripcion(TipoTransaccion tipo, int indice) {
+        return (tipo == TipoTransaccion.INGRESO ? "Ingreso " : "Gasto ") + indice;
+    }
+
+    private static void acumular(Map<String, Object[]> acumulados, Long categoriaId, TipoTransaccion tipo,
+                                 LocalDate fecha, BigDecimal monto) {
+        LocalDate periodo = fecha.withDayOfMonth(1);
+        Object[] acumulado = acumulados.computeIfAbsent(categoriaId + ":" + tipo + ":" + periodo,
+                k -> new Object[]{categoriaId, tipo.name(), Date.valueOf(periodo), BigDecimal.ZERO, 0L});
+        acumulado[3] = ((BigDecimal) acumulado[3]).add(monto);
+        acumulado[4] = (Long) acumulado[4] + 1;
+    }
+
+    private void insertarTransacciones(List<Object[]> lote) {
+        if (!lote.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO transacciones (id, monto, tipo, descripcion, fecha, categoria_id, usuario_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)", lote);
+        }
+    }
+
+    private void insertarAcumulados(Long usuarioId, Map<String, Object[]> acumulados, ReservaIds ids) {
+        List<Object[]> filas = new ArrayList<>(acumulados.size());
+        for (Object[] a : acumulados.values()) {
+            filas.add(new Object[]{ids.siguiente(), usuarioId, a[0], a[1], a[2], a[3], a[4]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO resumenes_mensuales (id, usuario_id, categoria_id, tipo, periodo, total, cantidad) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", filas);
+    }
+
+    /**
+     * Reserva IDs de una secuencia con la misma semántica que el optimizador pooled de Hibernate:
+     * cada valor v obtenido de la secuencia reserva el bloque (v - 50, v]. Así los IDs generados aquí
+     * no chocan con los que asigne después la aplicación.
+     */
+    private final class ReservaIds {
+
+        private final String consulta;
+        private long siguiente;
+        private long limite;
+
+        ReservaIds(String secuencia) {
+            this.consulta = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                    .getSequenceSupport().getSequenceNextValString(secuencia);
+        }
+
+        long siguiente() {
+            if (siguiente > limite) {
+                limite = jdbcTemplate.queryForObject(consulta, Long.class);
+                siguiente = Math.max(1, limite - INCREMENTO_SECUENCIA + 1);
+            }
+            return siguiente++;
+        }
+    }
+}
@@ -2,7 +2,10 @@ package com.example.finanzaspersonales.handler;
 
 import com.example.finanzaspersonales.dto.error.ErrorResponseDTO;
 import com.example.finanzaspersonales.exception.AccesoDenegadoException;
+import com.example.finanzaspersonales.exception.LimiteExcedidoException;
 import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.exception.TrabajoNoTerminadoException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -38,6 +41,42 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(SolicitudInvalidaException.class)
+    public ResponseEntity<ErrorResponseDTO> handleSolicitudInvalidaException(SolicitudInvalidaException ex, HttpServletRequest request) {
+        ErrorResponseDTO errorResponse = new ErrorResponseDTO(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(LimiteExcedidoException.class)
+    public ResponseEntity<ErrorResponseDTO> handleLimiteExcedidoException(LimiteExcedidoException ex, HttpServletRequest request) {
+        ErrorResponseDTO errorResponse = new ErrorResponseDTO(
+                LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(TrabajoNoTerminadoException.class)
+    public ResponseEntity<ErrorResponseDTO> handleTrabajoNoTerminadoException(TrabajoNoTerminadoException ex, HttpServletRequest request) {
+        ErrorResponseDTO errorResponse = new ErrorResponseDTO(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     // Puedes añadir más manejadores para otras excepciones, como las de validación.
     // @ExceptionHandler(MethodArgumentNotValidException.class)
     // ...
@@ -32,6 +32,7 @@ public interface TransaccionMapper {
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "categoria", ignore = true) // La categoría se asignará en el servicio
+    @Mapping(target = "usuario", ignore = true) // El propietario también
     Transaccion aTransaccion(TransaccionDTO transaccionDTO);
 
     /**
@@ -41,6 +42,7 @@ public interface TransaccionMapper {
      */
     @Mapping(target = "id", ignore = true) // Ignorar el ID para actualizaciones
     @Mapping(target = "categoria", ignore = true) // La categoría se reasignará en el servicio
+    @Mapping(target = "usuario", ignore = true) // El propietario no cambia
     void actualizarTransaccionDesdeDTO(TransaccionDTO transaccionDTO, @MappingTarget Transaccion transaccion);
 
     /**
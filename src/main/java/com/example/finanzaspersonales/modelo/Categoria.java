@@ -3,6 +3,8 @@ package com.example.finanzaspersonales.modelo;
 import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 /**
@@ -17,7 +19,8 @@ import lombok.*;
 @NoArgsConstructor // Genera un constructor sin argumentos
 @AllArgsConstructor // Genera un constructor con todos los argumentos
 @Entity
-@Table(name = "categorias")
+@Table(name = "categorias", indexes = @Index(name = "idx_categorias_usuario", columnList = "usuario_id"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categorias")
 public class Categoria {
 
     @Id
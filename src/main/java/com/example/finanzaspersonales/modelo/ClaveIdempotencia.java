@@ -0,0 +1,43 @@
+package com.example.finanzaspersonales.modelo;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Entidad que registra una clave de idempotencia (cabecera Idempotency-Key) usada por un usuario al crear
+ * una transacción, junto con la huella de la petición y la respuesta devuelta, hasta su caducidad.
+ * La restricción única (usuario_id, clave) impide que dos peticiones con la misma clave creen dos transacciones,
+ * aunque lleguen a la vez a instancias distintas.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode(of = "id")
+@ToString
+@NoArgsConstructor // Genera un constructor sin argumentos
+@AllArgsConstructor // Genera un constructor con todos los argumentos
+@Entity
+@Table(name = "claves_idempotencia", uniqueConstraints = @UniqueConstraint(
+        name = "uk_claves_idempotencia_usuario_clave", columnNames = {"usuario_id", "clave"}))
+public class ClaveIdempotencia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private String clave;
+
+    @Column(nullable = false, length = 64)
+    private String huella; // SHA-256 de la petición: la misma clave con otro contenido se rechaza
+
+    @Column(length = 4000)
+    private String respuesta; // TransaccionDTO creado, en JSON; null mientras la creación no ha terminado
+
+    @Column(name = "caduca_en", nullable = false)
+    private Instant caducaEn;
+}
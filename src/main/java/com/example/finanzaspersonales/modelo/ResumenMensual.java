@@ -0,0 +1,52 @@
+package com.example.finanzaspersonales.modelo;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Entidad que acumula, por usuario, categoría, tipo y mes, la suma y la cantidad de transacciones.
+ * Se mantiene de forma incremental en la misma transacción que las escrituras de TransaccionService,
+ * de modo que los reportes sobre meses completos no necesitan recorrer la tabla de transacciones.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode(of = "id")
+@ToString(exclude = {"usuario", "categoria"})
+@NoArgsConstructor // Genera un constructor sin argumentos
+@AllArgsConstructor // Genera un constructor con todos los argumentos
+@Entity
+@Table(name = "resumenes_mensuales",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"usuario_id", "categoria_id", "tipo", "periodo"}))
+public class ResumenMensual {
+
+    @Id
+    // Secuencia por bloques, igual que Transaccion: las altas masivas crean varios acumulados a la vez
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resumenes_mensuales_seq")
+    @SequenceGenerator(name = "resumenes_mensuales_seq", sequenceName = "resumenes_mensuales_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "categoria_id", nullable = false)
+    private Categoria categoria;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoTransaccion tipo; // Tipo de la transacción (no el de la categoría)
+
+    @Column(nullable = false)
+    private LocalDate periodo; // Primer día del mes que resume
+
+    @Column(nullable = false)
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private long cantidad;
+}
@@ -2,6 +2,8 @@ package com.example.finanzaspersonales.modelo;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
@@ -10,6 +12,8 @@ import lombok.*;
 @AllArgsConstructor
 @Entity
 @Table(name = "roles")
+// Los roles son datos de referencia que no se modifican en ejecución: caché de segundo nivel de solo lectura
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "roles")
 public class Rol {
 
     @Id
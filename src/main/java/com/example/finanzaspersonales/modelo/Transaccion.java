@@ -11,17 +11,29 @@ import java.time.LocalDate;
  * Cada transacción está asociada a un usuario y una categoría específica.
  */
 @Entity
-@Table(name = "transacciones")
+// Los índices empiezan por usuario_id porque todas las consultas filtran por el propietario;
+// fecha (e id) a continuación convierte los rangos de fechas y la paginación en recorridos de índice.
+@Table(name = "transacciones", indexes = {
+        @Index(name = "idx_transacciones_usuario_fecha", columnList = "usuario_id, fecha, id"),
+        @Index(name = "idx_transacciones_usuario_categoria_fecha", columnList = "usuario_id, categoria_id, fecha"),
+        // Búsquedas filtradas: por tipo en orden de fecha, y por rango u orden de monto (con el id que desempata el cursor)
+        @Index(name = "idx_transacciones_usuario_tipo_fecha", columnList = "usuario_id, tipo, fecha, id"),
+        @Index(name = "idx_transacciones_usuario_monto", columnList = "usuario_id, monto, id"),
+        @Index(name = "idx_transacciones_categoria", columnList = "categoria_id")
+})
 @Getter
 @Setter
-@ToString (exclude = {"categoria"})
+@ToString (exclude = {"categoria", "usuario"})
 @EqualsAndHashCode(of = "id")
 @NoArgsConstructor // Genera un constructor sin argumentos
 @AllArgsConstructor // Genera un constructor con todos los argumentos
 public class Transaccion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con asignación por bloques (pooled): permite a Hibernate agrupar los INSERT en lotes JDBC,
+    // cosa imposible con IDENTITY, que obliga a ejecutar cada INSERT para conocer el ID.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transacciones_seq")
+    @SequenceGenerator(name = "transacciones_seq", sequenceName = "transacciones_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,5 +53,9 @@ public class Transaccion {
     @JoinColumn(name = "categoria_id", nullable = false)
     private Categoria categoria;
 
+    // Propietario, copiado de la categoría por TransaccionService: evita unir con categorias en cada consulta
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
 }
 
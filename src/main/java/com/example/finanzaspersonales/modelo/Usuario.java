@@ -2,6 +2,10 @@ package com.example.finanzaspersonales.modelo;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.Set;
 import java.util.HashSet;
@@ -10,6 +14,10 @@ import java.util.HashSet;
  * Entidad que representa a un usuario en el sistema de gestión de finanzas personales.
  * Un usuario tiene un identificador único, un nombre de usuario, una contraseña (hash)
  * y una lista de roles.
+ * <p>
+ * El nombre de usuario es su identificador natural: la autenticación de cada petición resuelve el usuario
+ * y sus roles desde la caché de segundo nivel (regiones usuarios-por-nombre, usuarios, usuarios-roles y roles)
+ * sin consultar la base de datos.
  */
 @Getter
 @Setter
@@ -18,12 +26,15 @@ import java.util.HashSet;
 @NoArgsConstructor // Genera un constructor sin argumentos
 @Entity
 @Table(name = "usuarios")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuarios")
+@NaturalIdCache(region = "usuarios-por-nombre")
 public class Usuario {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String nombreUsuario;
 
@@ -33,6 +44,7 @@ public class Usuario {
     @OneToMany(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Categoria> categorias = new HashSet<>();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuarios-roles")
     @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "usuarios_roles", joinColumns = @JoinColumn(name = "usuario_id"), inverseJoinColumns = @JoinColumn(name = "rol_id"))
     private Set<Rol> roles = new HashSet<>();
@@ -0,0 +1,27 @@
+package com.example.finanzaspersonales.modelo;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entidad con la versión de los datos de un usuario: un contador que crece con cada escritura
+ * de sus transacciones o categorías, en la misma transacción de base de datos que la escritura.
+ * Es la base de los ETags de los listados y reportes del usuario.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode(of = "usuarioId")
+@ToString
+@NoArgsConstructor // Genera un constructor sin argumentos
+@AllArgsConstructor // Genera un constructor con todos los argumentos
+@Entity
+@Table(name = "versiones_datos")
+public class VersionDatos {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId; // Una fila por usuario; el ID no se genera
+
+    @Column(nullable = false)
+    private Long version;
+}
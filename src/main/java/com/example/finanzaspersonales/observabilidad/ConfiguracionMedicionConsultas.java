@@ -0,0 +1,29 @@
+package com.example.finanzaspersonales.observabilidad;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Envuelve el DataSource de la aplicación en un {@link DataSourceMedido} para que las
+ * {@link MedicionConsultas} vean todas las sentencias SQL.
+ */
+@Configuration
+public class ConfiguracionMedicionConsultas {
+
+    // static: los BeanPostProcessor deben crearse antes que el resto de beans de la configuración
+    @Bean
+    public static BeanPostProcessor medidorDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceMedido)) {
+                    return new DataSourceMedido(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
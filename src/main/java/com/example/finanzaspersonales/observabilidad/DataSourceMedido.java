@@ -0,0 +1,111 @@
+package com.example.finanzaspersonales.observabilidad;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource que envuelve las conexiones del pool para contar, en las {@link MedicionConsultas} abiertas,
+ * cada sentencia ejecutada, su tiempo en JDBC y las filas leídas de sus ResultSet.
+ * Mide en el nivel JDBC, por lo que cubre igual las consultas de Hibernate, las nativas y las proyecciones.
+ */
+class DataSourceMedido extends DelegatingDataSource {
+
+    DataSourceMedido(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envolver(Connection.class, super.getConnection(), new ConexionMedida());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return envolver(Connection.class, super.getConnection(username, password), new ConexionMedida());
+    }
+
+    private static <T> T envolver(Class<T> tipo, T objetivo, Interceptor interceptor) {
+        interceptor.objetivo = objetivo;
+        return tipo.cast(Proxy.newProxyInstance(DataSourceMedido.class.getClassLoader(), new Class<?>[]{tipo}, interceptor));
+    }
+
+    private abstract static class Interceptor implements InvocationHandler {
+
+        Object objetivo;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return interceptar(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        abstract Object interceptar(Method method, Object[] args) throws Throwable;
+    }
+
+    private static final class ConexionMedida extends Interceptor {
+
+        @Override
+        Object interceptar(Method method, Object[] args) throws Throwable {
+            Object resultado = method.invoke(objetivo, args);
+            if (resultado instanceof CallableStatement sentencia) {
+                return envolver(CallableStatement.class, sentencia, new SentenciaMedida());
+            }
+            if (resultado instanceof PreparedStatement sentencia) {
+                return envolver(PreparedStatement.class, sentencia, new SentenciaMedida());
+            }
+            if (resultado instanceof Statement sentencia) {
+                return envolver(Statement.class, sentencia, new SentenciaMedida());
+            }
+            return resultado;
+        }
+    }
+
+    private static final class SentenciaMedida extends Interceptor {
+
+        @Override
+        Object interceptar(Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return envolverResultSet(method.invoke(objetivo, args));
+            }
+            long inicio = System.nanoTime();
+            try {
+                return envolverResultSet(method.invoke(objetivo, args));
+            } finally {
+                MedicionConsultas.registrarSentencia(System.nanoTime() - inicio);
+            }
+        }
+
+        private static Object envolverResultSet(Object resultado) {
+            if (resultado instanceof ResultSet resultSet) {
+                return envolver(ResultSet.class, resultSet, new ResultSetMedido());
+            }
+            return resultado;
+        }
+    }
+
+    private static final class ResultSetMedido extends Interceptor {
+
+        @Override
+        Object interceptar(Method method, Object[] args) throws Throwable {
+            Object resultado = method.invoke(objetivo, args);
+            if (Boolean.TRUE.equals(resultado) && method.getName().equals("next")) {
+                MedicionConsultas.registrarFila();
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.finanzaspersonales.observabilidad;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Medición de las consultas SQL ejecutadas por el hilo actual mientras la medición está abierta:
+ * número de sentencias, filas leídas y tiempo pasado en JDBC.
+ * Las mediciones se pueden anidar (p. ej. la de una prueba alrededor de la de la petición): cada sentencia
+ * cuenta en todas las abiertas. Uso típico en pruebas de integración:
+ * <pre>
+ * try (MedicionConsultas medicion = MedicionConsultas.iniciar()) {
+ *     mockMvc.perform(get("/api/categorias"));
+ *     medicion.verificarMaximoSentencias(3);
+ * }
+ * </pre>
+ */
+public final class MedicionConsultas implements AutoCloseable {
+
+    // Sin valor inicial: los hilos que nunca abren una medición (pool de importaciones, etc.) no guardan nada
+    private static final ThreadLocal<Deque<MedicionConsultas>> ACTIVAS = new ThreadLocal<>();
+
+    private long sentencias;
+    private long filas;
+    private long nanosJdbc;
+
+    private MedicionConsultas() {
+    }
+
+    /**
+     * Abre una medición en el hilo actual. Debe cerrarse en el mismo hilo.
+     * @return La medición abierta.
+     */
+    public static MedicionConsultas iniciar() {
+        Deque<MedicionConsultas> activas = ACTIVAS.get();
+        if (activas == null) {
+            activas = new ArrayDeque<>();
+            ACTIVAS.set(activas);
+        }
+        MedicionConsultas medicion = new MedicionConsultas();
+        activas.push(medicion);
+        return medicion;
+    }
+
+    static void registrarSentencia(long nanos) {
+        Deque<MedicionConsultas> activas = ACTIVAS.get();
+        if (activas != null) {
+            for (MedicionConsultas medicion : activas) {
+                medicion.sentencias++;
+                medicion.nanosJdbc += nanos;
+            }
+        }
+    }
+
+    static void registrarFila() {
+        Deque<MedicionConsultas> activas = ACTIVAS.get();
+        if (activas != null) {
+            for (MedicionConsultas medicion : activas) {
+                medicion.filas++;
+            }
+        }
+    }
+
+    public long getSentencias() {
+        return sentencias;
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    public Duration getTiempoJdbc() {
+        return Duration.ofNanos(nanosJdbc);
+    }
+
+    /**
+     * Comprueba que no se ha superado el presupuesto de sentencias.
+     * @param maximo Número máximo de sentencias SQL permitidas.
+     * @throws AssertionError si se ejecutaron más sentencias (p. ej. por un N+1).
+     */
+    public void verificarMaximoSentencias(long maximo) {
+        if (sentencias > maximo) {
+            throw new AssertionError("Se ejecutaron " + sentencias + " sentencias SQL; el presupuesto es " + maximo + ".");
+        }
+    }
+
+    @Override
+    public void close() {
+        Deque<MedicionConsultas> activas = ACTIVAS.get();
+        if (activas != null) {
+            activas.remove(this);
+            if (activas.isEmpty()) {
+                ACTIVAS.remove();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sentencias + " sentencias, " + filas + " filas, " + getTiempoJdbc().toMillis() + " ms en JDBC";
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.finanzaspersonales.observabilidad;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Filtro que mide las consultas SQL de cada petición HTTP (incluida la carga del usuario en el filtro JWT).
+ * Publica las métricas finanzas.consultas.sentencias, finanzas.consultas.filas y finanzas.consultas.tiempo
+ * por método y patrón de URI, lo registra en el log en DEBUG y avisa en WARN cuando una petición supera
+ * el presupuesto de sentencias, el síntoma habitual de un N+1.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class MedicionConsultasFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final long presupuestoSentencias;
+
+    public MedicionConsultasFilter(MeterRegistry meterRegistry,
+                                   @Value("${finanzas.consultas.presupuesto:20}") long presupuestoSentencias) {
+        this.meterRegistry = meterRegistry;
+        this.presupuestoSentencias = presupuestoSentencias;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        MedicionConsultas medicion = MedicionConsultas.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            medicion.close();
+            registrar(request, medicion);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, MedicionConsultas medicion) {
+        // El patrón (/api/transacciones/{id}) y no la URI real, para no crear una serie por cada ID
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron != null ? patron.toString() : "DESCONOCIDA";
+        Tags tags = Tags.of("metodo", request.getMethod(), "uri", uri);
+
+        DistributionSummary.builder("finanzas.consultas.sentencias").tags(tags).register(meterRegistry)
+                .record(medicion.getSentencias());
+        DistributionSummary.builder("finanzas.consultas.filas").tags(tags).register(meterRegistry)
+                .record(medicion.getFilas());
+        Timer.builder("finanzas.consultas.tiempo").tags(tags).register(meterRegistry)
+                .record(medicion.getTiempoJdbc());
+
+        if (medicion.getSentencias() > presupuestoSentencias) {
+            log.warn("{} {}: {} (presupuesto {} sentencias, posible N+1)",
+                    request.getMethod(), request.getRequestURI(), medicion, presupuestoSentencias);
+        } else {
+            log.debug("{} {}: {}", request.getMethod(), request.getRequestURI(), medicion);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fragmento de ResumenMensualRepository para aplicar deltas a los acumulados mensuales sin leerlos antes.
+ * Las operaciones suman en la propia sentencia SQL, sin leer antes la fila, y dos transacciones que crean a la vez
+ * el acumulado de un mismo mes no fallan por la restricción única: la segunda suma su delta a la fila de la primera.
+ */
+public interface ActualizacionResumenMensual {
+
+    /**
+     * Suma un delta al acumulado de un mes, creándolo si no existe.
+     * @param usuarioId El ID del usuario.
+     * @param categoriaId El ID de la categoría.
+     * @param tipo El tipo de transacción.
+     * @param periodo El primer día del mes.
+     * @param total El importe a sumar (negativo para restar).
+     * @param cantidad El número de transacciones a sumar (negativo para restar).
+     */
+    void sumarAlResumen(Long usuarioId, Long categoriaId, TipoTransaccion tipo, LocalDate periodo,
+                        BigDecimal total, long cantidad);
+
+    /**
+     * Elimina el acumulado de un mes si ya no tiene transacciones, para no bloquear el borrado de la categoría.
+     * @param usuarioId El ID del usuario.
+     * @param categoriaId El ID de la categoría.
+     * @param tipo El tipo de transacción.
+     * @param periodo El primer día del mes.
+     */
+    void eliminarSiVacio(Long usuarioId, Long categoriaId, TipoTransaccion tipo, LocalDate periodo);
+}
@@ -0,0 +1,69 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Implementación del fragmento ActualizacionResumenMensual con SQL sobre la conexión de la transacción en curso.
+ * Primero se intenta un UPDATE, que es el caso habitual y no consume IDs de la secuencia. Si el acumulado no existe
+ * se inserta: en PostgreSQL con INSERT ... ON CONFLICT DO UPDATE, que suma el delta a la fila que otra transacción
+ * haya insertado entretanto; en el resto (H2) la inserción duplicada falla sin abortar la transacción y se repite
+ * el UPDATE. Se usa JdbcTemplate y no el EntityManager porque este marcaría la transacción para rollback al fallar.
+ */
+class ActualizacionResumenMensualImpl implements ActualizacionResumenMensual {
+
+    private static final String CLAVE = "usuario_id = ? AND categoria_id = ? AND tipo = ? AND periodo = ?";
+
+    private static final String ACTUALIZAR =
+            "UPDATE resumenes_mensuales SET total = total + ?, cantidad = cantidad + ? WHERE " + CLAVE;
+
+    private static final String ELIMINAR_SI_VACIO =
+            "DELETE FROM resumenes_mensuales WHERE " + CLAVE + " AND cantidad <= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertar;
+
+    ActualizacionResumenMensualImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        // Con el optimizador pooled cada valor v de la secuencia reserva el bloque (v - 50, v]; usar v como ID
+        // no choca con los que asigne Hibernate
+        String siguienteId = dialect.getSequenceSupport().getSelectSequenceNextValString("resumenes_mensuales_seq");
+        String insercion = "INSERT INTO resumenes_mensuales (id, total, cantidad, usuario_id, categoria_id, tipo, periodo) " +
+                "VALUES (" + siguienteId + ", ?, ?, ?, ?, ?, ?)";
+        this.insertar = dialect instanceof PostgreSQLDialect
+                ? insercion + " ON CONFLICT (usuario_id, categoria_id, tipo, periodo) " +
+                  "DO UPDATE SET total = resumenes_mensuales.total + EXCLUDED.total, " +
+                  "cantidad = resumenes_mensuales.cantidad + EXCLUDED.cantidad"
+                : insercion;
+    }
+
+    @Override
+    public void sumarAlResumen(Long usuarioId, Long categoriaId, TipoTransaccion tipo, LocalDate periodo,
+                               BigDecimal total, long cantidad) {
+        Object[] parametros = {total, cantidad, usuarioId, categoriaId, tipo.name(), Date.valueOf(periodo)};
+        if (jdbcTemplate.update(ACTUALIZAR, parametros) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(insertar, parametros);
+        } catch (DuplicateKeyException e) {
+            // Otra transacción creó el acumulado después del UPDATE (solo sin ON CONFLICT)
+            jdbcTemplate.update(ACTUALIZAR, parametros);
+        }
+    }
+
+    @Override
+    public void eliminarSiVacio(Long usuarioId, Long categoriaId, TipoTransaccion tipo, LocalDate periodo) {
+        jdbcTemplate.update(ELIMINAR_SI_VACIO, usuarioId, categoriaId, tipo.name(), Date.valueOf(periodo));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.Usuario;
+
+import java.util.Optional;
+
+/**
+ * Fragmento de UsuarioRepository para buscar usuarios por su identificador natural, el nombre de usuario.
+ */
+public interface BusquedaUsuarioPorNombre {
+
+    /**
+     * Busca un usuario por su nombre de usuario. La correspondencia nombre-ID se resuelve en la caché de
+     * identificadores naturales y el usuario, con sus roles, en la caché de segundo nivel: solo se consulta
+     * la base de datos la primera vez o tras un desalojo.
+     * @param nombreUsuario El nombre de usuario.
+     * @return Un Optional que contiene el usuario si se encuentra, o vacío si no.
+     */
+    Optional<Usuario> buscarPorNombreUsuario(String nombreUsuario);
+}
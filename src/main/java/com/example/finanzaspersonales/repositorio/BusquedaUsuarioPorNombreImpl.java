@@ -0,0 +1,30 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.Usuario;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Implementación del fragmento BusquedaUsuarioPorNombre con la carga por identificador natural de Hibernate,
+ * que a diferencia de una consulta derivada pasa por la caché de segundo nivel.
+ */
+class BusquedaUsuarioPorNombreImpl implements BusquedaUsuarioPorNombre {
+
+    private final EntityManager entityManager;
+
+    BusquedaUsuarioPorNombreImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Transaccional porque se llama también fuera de los servicios (filtro JWT), donde no hay una sesión abierta
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Usuario> buscarPorNombreUsuario(String nombreUsuario) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Usuario.class)
+                .loadOptional(nombreUsuario);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad ClaveIdempotencia.
+ * Permite buscar la clave de un usuario y purgar las claves caducadas.
+ */
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, Long> {
+
+    /**
+     * Busca una clave de idempotencia de un usuario (esté o no caducada).
+     * @param usuarioId El ID del usuario.
+     * @param clave La clave enviada en la cabecera Idempotency-Key.
+     * @return Un Optional con la clave registrada, o vacío si no existe.
+     */
+    Optional<ClaveIdempotencia> findByUsuarioIdAndClave(Long usuarioId, String clave);
+
+    /**
+     * Elimina las claves caducadas de un usuario con una única sentencia DELETE, que recorre solo
+     * las claves del usuario gracias al índice único (usuario_id, clave).
+     * @param usuarioId El ID del usuario.
+     * @param ahora El instante actual.
+     * @return El número de claves eliminadas.
+     */
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.usuarioId = :usuarioId AND c.caducaEn <= :ahora")
+    int eliminarCaducadas(@Param("usuarioId") Long usuarioId, @Param("ahora") Instant ahora);
+}
@@ -0,0 +1,14 @@
+package com.example.finanzaspersonales.repositorio;
+
+/**
+ * Fragmento de VersionDatosRepository para crear la versión de un usuario que aún no la tiene.
+ * Dos transacciones que la crean a la vez no fallan por la clave primaria: la segunda usa la fila de la primera.
+ */
+public interface CreacionVersionDatos {
+
+    /**
+     * Crea la versión 0 de los datos de un usuario si todavía no existe.
+     * @param usuarioId El ID del usuario.
+     */
+    void crearSiNoExiste(Long usuarioId);
+}
@@ -0,0 +1,37 @@
+package com.example.finanzaspersonales.repositorio;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Implementación del fragmento CreacionVersionDatos con SQL sobre la conexión de la transacción en curso.
+ * En PostgreSQL se usa INSERT ... ON CONFLICT DO NOTHING; en el resto (H2) la inserción duplicada falla sin abortar
+ * la transacción y se ignora. Se usa JdbcTemplate y no el EntityManager porque este marcaría la transacción
+ * para rollback al fallar.
+ */
+class CreacionVersionDatosImpl implements CreacionVersionDatos {
+
+    private static final String INSERTAR = "INSERT INTO versiones_datos (usuario_id, version) VALUES (?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertar;
+
+    CreacionVersionDatosImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.insertar = dialect instanceof PostgreSQLDialect ? INSERTAR + " ON CONFLICT (usuario_id) DO NOTHING" : INSERTAR;
+    }
+
+    @Override
+    public void crearSiNoExiste(Long usuarioId) {
+        try {
+            jdbcTemplate.update(insertar, usuarioId);
+        } catch (DuplicateKeyException e) {
+            // Otra transacción creó la versión entretanto (solo sin ON CONFLICT)
+        }
+    }
+}
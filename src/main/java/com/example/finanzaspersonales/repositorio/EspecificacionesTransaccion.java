@@ -0,0 +1,79 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Criterios reutilizables para las búsquedas dinámicas de transacciones (JpaSpecificationExecutor).
+ * Cada criterio es un predicado independiente que se combina con AND; el del usuario debe estar siempre
+ * presente, porque es el que hace que las consultas recorran los índices que empiezan por usuario_id.
+ */
+public final class EspecificacionesTransaccion {
+
+    private EspecificacionesTransaccion() {
+    }
+
+    public static Specification<Transaccion> delUsuario(Usuario usuario) {
+        return (raiz, consulta, cb) -> cb.equal(raiz.get("usuario"), usuario);
+    }
+
+    public static Specification<Transaccion> fechaDesde(LocalDate fecha) {
+        return (raiz, consulta, cb) -> cb.greaterThanOrEqualTo(raiz.get("fecha"), fecha);
+    }
+
+    public static Specification<Transaccion> fechaHasta(LocalDate fecha) {
+        return (raiz, consulta, cb) -> cb.lessThanOrEqualTo(raiz.get("fecha"), fecha);
+    }
+
+    public static Specification<Transaccion> deTipo(TipoTransaccion tipo) {
+        return (raiz, consulta, cb) -> cb.equal(raiz.get("tipo"), tipo);
+    }
+
+    public static Specification<Transaccion> montoMinimo(BigDecimal monto) {
+        return (raiz, consulta, cb) -> cb.greaterThanOrEqualTo(raiz.get("monto"), monto);
+    }
+
+    public static Specification<Transaccion> montoMaximo(BigDecimal monto) {
+        return (raiz, consulta, cb) -> cb.lessThanOrEqualTo(raiz.get("monto"), monto);
+    }
+
+    public static Specification<Transaccion> enCategorias(Collection<Long> categoriaIds) {
+        // Sobre la columna categoria_id de la propia tabla, sin unir con categorias
+        return (raiz, consulta, cb) -> raiz.get("categoria").get("id").in(categoriaIds);
+    }
+
+    /**
+     * Subcadena de la descripción sin distinguir mayúsculas. Los comodines de LIKE del texto se escapan.
+     */
+    public static Specification<Transaccion> descripcionContiene(String texto) {
+        String patron = "%" + texto.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (raiz, consulta, cb) -> cb.like(cb.lower(raiz.get("descripcion")), patron, '\\');
+    }
+
+    /**
+     * Filas posteriores a la clave (valor, id) en el orden dado: la condición de la paginación por clave.
+     * @param campo El atributo de ordenación.
+     * @param valor El valor del atributo en la última fila de la página anterior.
+     * @param id El ID de la última fila de la página anterior.
+     * @param descendente Si el orden es descendente.
+     */
+    public static <C extends Comparable<? super C>> Specification<Transaccion> despuesDe(
+            String campo, C valor, Long id, boolean descendente) {
+        return (raiz, consulta, cb) -> {
+            Path<C> ruta = raiz.get(campo);
+            Path<Long> rutaId = raiz.get("id");
+            return descendente
+                    ? cb.or(cb.lessThan(ruta, valor), cb.and(cb.equal(ruta, valor), cb.lessThan(rutaId, id)))
+                    : cb.or(cb.greaterThan(ruta, valor), cb.and(cb.equal(ruta, valor), cb.greaterThan(rutaId, id)));
+        };
+    }
+}
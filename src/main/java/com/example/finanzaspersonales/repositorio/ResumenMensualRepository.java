@@ -0,0 +1,37 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.modelo.ResumenMensual;
+import com.example.finanzaspersonales.modelo.Usuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad ResumenMensual.
+ * Permite mantener los acumulados mensuales (fragmento ActualizacionResumenMensual) y consultarlos para los reportes.
+ */
+@Repository
+public interface ResumenMensualRepository extends JpaRepository<ResumenMensual, Long>, ActualizacionResumenMensual {
+
+    /**
+     * Suma los acumulados mensuales de un usuario entre dos meses (inclusive), agrupando por tipo y categoría.
+     * @param usuario El usuario propietario de los acumulados.
+     * @param periodoInicio Primer día del primer mes.
+     * @param periodoFin Primer día del último mes.
+     * @return Una lista de totales agrupados por tipo y nombre de categoría.
+     */
+    @Query("SELECT new com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO(r.tipo, c.nombre, SUM(r.total)) " +
+            "FROM ResumenMensual r JOIN r.categoria c " +
+            "WHERE r.usuario = :usuario AND r.periodo BETWEEN :periodoInicio AND :periodoFin " +
+            "GROUP BY r.tipo, c.nombre")
+    List<TotalPorCategoriaDTO> sumarPorTipoYCategoria(
+            @Param("usuario") Usuario usuario,
+            @Param("periodoInicio") LocalDate periodoInicio,
+            @Param("periodoFin") LocalDate periodoFin
+    );
+}
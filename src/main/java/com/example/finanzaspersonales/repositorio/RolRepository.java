@@ -1,7 +1,10 @@
 package com.example.finanzaspersonales.repositorio;
 
 import com.example.finanzaspersonales.modelo.Rol;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -15,9 +18,14 @@ public interface RolRepository extends JpaRepository<Rol, Long> { // 2. Extiende
 
     /**
      * Encuentra un rol por su nombre.
-     * Este método es crucial para el servicio de registro de usuarios.
+     * Este método es crucial para el servicio de registro de usuarios. El resultado se guarda en la caché
+     * de consultas (región consultas-roles), así que cada registro no vuelve a consultar la tabla de roles.
      * @param nombre El nombre del rol (ej. "ROLE_USER").
      * @return Un Optional que contiene el rol si se encuentra, o vacío si no.
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "consultas-roles")
+    })
     Optional<Rol> findByNombre(String nombre); // 3. Método derivado que Spring implementará automáticamente.
 }
\ No newline at end of file
@@ -1,42 +1,168 @@
 package com.example.finanzaspersonales.repositorio;
 
 
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorFechaDTO;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
 import com.example.finanzaspersonales.modelo.Transaccion;
 import com.example.finanzaspersonales.modelo.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 // ... (resto de la clase)
 @Repository
-public interface TransaccionRepository extends JpaRepository<Transaccion, Long> {
+// Las búsquedas con filtros dinámicos usan JpaSpecificationExecutor con los criterios de EspecificacionesTransaccion
+public interface TransaccionRepository extends JpaRepository<Transaccion, Long>, JpaSpecificationExecutor<Transaccion> {
 
-    @Query("SELECT t FROM Transaccion t WHERE t.categoria.usuario = :usuario")
+    @Query("SELECT t FROM Transaccion t WHERE t.usuario = :usuario")
     List<Transaccion> findAllByUsuario(@Param("usuario") Usuario usuario);
 
-    @Query("SELECT t FROM Transaccion t WHERE t.id = :id AND t.categoria.usuario = :usuario")
+    @Query("SELECT t FROM Transaccion t WHERE t.id = :id AND t.usuario = :usuario")
     Optional<Transaccion> findByIdAndUsuario(@Param("id") Long id, @Param("usuario") Usuario usuario);
 
-    @Query("SELECT t FROM Transaccion t WHERE t.categoria.usuario = :usuario AND t.fecha BETWEEN :fechaInicio AND :fechaFin")
+    @Query("SELECT t FROM Transaccion t WHERE t.usuario = :usuario AND t.fecha BETWEEN :fechaInicio AND :fechaFin")
     List<Transaccion> findAllByUsuarioAndFechaBetween(
             @Param("usuario") Usuario usuario,
             @Param("fechaInicio") LocalDate fechaInicio,
             @Param("fechaFin") LocalDate fechaFin
     );
 
-    @Query("SELECT t FROM  Transaccion t WHERE t.categoria.usuario = :usuario")
+    /**
+     * Suma los montos de las transacciones de un usuario en un rango de fechas, agrupando por tipo y categoría.
+     * La agregación se resuelve en la base de datos en una sola consulta, por lo que solo viaja
+     * una fila por cada combinación (tipo, categoría) en lugar de cada transacción.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @return Una lista de totales agrupados por tipo y nombre de categoría.
+     */
+    @Query("SELECT new com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO(t.tipo, c.nombre, SUM(t.monto)) " +
+            "FROM Transaccion t JOIN t.categoria c " +
+            "WHERE t.usuario = :usuario AND t.fecha BETWEEN :fechaInicio AND :fechaFin " +
+            "GROUP BY t.tipo, c.nombre")
+    List<TotalPorCategoriaDTO> sumarPorTipoYCategoria(
+            @Param("usuario") Usuario usuario,
+            @Param("fechaInicio") LocalDate fechaInicio,
+            @Param("fechaFin") LocalDate fechaFin
+    );
+
+    /**
+     * Suma los montos de las transacciones de un usuario en un rango de fechas, agrupando por día y tipo.
+     * Con el mismo filtro que findAllByUsuarioAndFechaBetween, pero devuelve como mucho dos filas por día
+     * (ingresos y egresos), ordenadas por fecha.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @return Una lista de totales diarios por tipo, en orden cronológico.
+     */
+    @Query("SELECT new com.example.finanzaspersonales.dto.agregacion.TotalPorFechaDTO(t.fecha, t.tipo, SUM(t.monto)) " +
+            "FROM Transaccion t " +
+            "WHERE t.usuario = :usuario AND t.fecha BETWEEN :fechaInicio AND :fechaFin " +
+            "GROUP BY t.fecha, t.tipo " +
+            "ORDER BY t.fecha")
+    List<TotalPorFechaDTO> sumarPorFechaYTipo(
+            @Param("usuario") Usuario usuario,
+            @Param("fechaInicio") LocalDate fechaInicio,
+            @Param("fechaFin") LocalDate fechaFin
+    );
+
+    /**
+     * Devuelve la primera página de transacciones de un usuario, de la más reciente a la más antigua.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param limite Número máximo de filas a devolver.
+     * @return Las transacciones ordenadas por fecha e ID descendentes.
+     */
+    @Query("SELECT t FROM Transaccion t WHERE t.usuario = :usuario ORDER BY t.fecha DESC, t.id DESC")
+    List<Transaccion> buscarPrimeraPagina(@Param("usuario") Usuario usuario, Limit limite);
+
+    /**
+     * Devuelve la página de transacciones que sigue a la clave (fecha, id) indicada.
+     * Usa un predicado sobre la clave de ordenación en lugar de OFFSET, por lo que el coste
+     * no depende de la posición de la página.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param fecha Fecha de la última transacción de la página anterior.
+     * @param id ID de la última transacción de la página anterior.
+     * @param limite Número máximo de filas a devolver.
+     * @return Las transacciones ordenadas por fecha e ID descendentes.
+     */
+    @Query("SELECT t FROM Transaccion t WHERE t.usuario = :usuario " +
+            "AND (t.fecha < :fecha OR (t.fecha = :fecha AND t.id < :id)) " +
+            "ORDER BY t.fecha DESC, t.id DESC")
+    List<Transaccion> buscarPaginaDespuesDe(
+            @Param("usuario") Usuario usuario,
+            @Param("fecha") LocalDate fecha,
+            @Param("id") Long id,
+            Limit limite
+    );
+
+    /**
+     * Recorre todas las transacciones de un usuario en orden cronológico como un flujo de solo avance.
+     * Las filas se leen del cursor JDBC por bloques (fetch size) y se cargan en modo solo lectura,
+     * de modo que el consumidor puede procesar historiales de cualquier tamaño con memoria constante.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * @param usuario El usuario propietario de las transacciones.
+     * @return Un Stream de transacciones ordenadas por fecha e ID.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM Transaccion t WHERE t.usuario = :usuario ORDER BY t.fecha, t.id")
+    Stream<Transaccion> recorrerPorUsuario(@Param("usuario") Usuario usuario);
+
+    /**
+     * Recorre los campos que intervienen en los reportes (ID, categoría, tipo, fecha y monto) de todas las
+     * transacciones de un usuario, en orden cronológico, sin hidratar entidades ni sus categorías.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * @param usuario El usuario propietario de las transacciones.
+     * @return Un Stream de DatosTransaccion ordenados por fecha e ID.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.finanzaspersonales.evento.DatosTransaccion(t.id, t.categoria.id, t.tipo, t.fecha, t.monto) " +
+            "FROM Transaccion t WHERE t.usuario = :usuario ORDER BY t.fecha, t.id")
+    Stream<DatosTransaccion> recorrerDatosPorUsuario(@Param("usuario") Usuario usuario);
+
+    /**
+     * Recorre las transacciones de un usuario con su descripción, sin hidratar entidades,
+     * para construir el índice de texto en memoria. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * @param usuario El usuario propietario de las transacciones.
+     * @return Un Stream de DatosTransaccion con la descripción.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.example.finanzaspersonales.evento.DatosTransaccion(t.id, t.categoria.id, t.tipo, t.fecha, t.monto, t.descripcion) " +
+            "FROM Transaccion t WHERE t.usuario = :usuario")
+    Stream<DatosTransaccion> recorrerDescripcionesPorUsuario(@Param("usuario") Usuario usuario);
+
+    /**
+     * Encuentra las transacciones de un usuario con los IDs dados, en cualquier orden.
+     * @param ids Los IDs de las transacciones.
+     * @param usuario El usuario propietario de las transacciones.
+     * @return Las transacciones encontradas que pertenecen al usuario.
+     */
+    List<Transaccion> findByIdInAndUsuario(Collection<Long> ids, Usuario usuario);
+
+    @Query("SELECT t FROM  Transaccion t WHERE t.usuario = :usuario")
     List<Transaccion> findAByUsuario(@Param("usuario") Usuario usuario);
 
     /**
-     * Encuentra todas las transacciones de un usuario navegando a través de la entidad Categoria.
-     * Spring Data JPA entiende que debe buscar transacciones donde transaccion.categoria.usuario coincida.
+     * Encuentra todas las transacciones de un usuario por la columna usuario_id de la propia transacción,
+     * sin necesidad de unir con la tabla de categorías.
      * @param usuario El usuario propietario de las transacciones.
      * @return Una lista de transacciones.
      */
-    List<Transaccion> findByCategoriaUsuario(Usuario usuario);
+    List<Transaccion> findByUsuario(Usuario usuario);
 }
\ No newline at end of file
@@ -4,21 +4,13 @@ import com.example.finanzaspersonales.modelo.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 /**
  * Repositorio para la entidad Usuario.
  * Permite realizar operaciones CRUD básicas y búsquedas personalizadas.
+ * La búsqueda por nombre de usuario la aporta el fragmento BusquedaUsuarioPorNombre.
  */
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-
-    /**
-     * Busca un usuario por su nombre de usuario.
-     * @param nombreUsuario El nombre de usuario.
-     * @return Un Optional que contiene el usuario si se encuentra, o vacío si no.
-     */
-    Optional<Usuario> findByNombreUsuario(String nombreUsuario);
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, BusquedaUsuarioPorNombre {
 
     /**
      * Verifica si existe un usuario con un nombre de usuario dado.
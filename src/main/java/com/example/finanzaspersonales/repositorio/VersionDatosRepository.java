@@ -0,0 +1,39 @@
+package com.example.finanzaspersonales.repositorio;
+
+import com.example.finanzaspersonales.modelo.VersionDatos;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad VersionDatos.
+ * Permite incrementar y leer la versión de los datos de un usuario, y crearla (fragmento CreacionVersionDatos).
+ */
+@Repository
+public interface VersionDatosRepository extends JpaRepository<VersionDatos, Long>, CreacionVersionDatos {
+
+    /**
+     * Incrementa la versión de los datos de un usuario con una única sentencia UPDATE.
+     * El bloqueo de la fila hasta el fin de la transacción serializa las escrituras concurrentes
+     * del mismo usuario, de modo que la versión nunca retrocede ni se repite.
+     * @param usuarioId El ID del usuario.
+     * @return El número de filas actualizadas (0 si el usuario aún no tiene versión).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE VersionDatos v SET v.version = v.version + 1 WHERE v.usuarioId = :usuarioId")
+    int incrementar(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Obtiene la versión actual de los datos de un usuario.
+     * @param usuarioId El ID del usuario.
+     * @return Un Optional con la versión, o vacío si el usuario nunca ha escrito datos.
+     */
+    @Query("SELECT v.version FROM VersionDatos v WHERE v.usuarioId = :usuarioId")
+    Optional<Long> buscarVersion(@Param("usuarioId") Long usuarioId);
+}
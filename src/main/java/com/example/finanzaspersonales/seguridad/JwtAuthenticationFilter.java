@@ -6,7 +6,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -44,23 +43,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // Extrae el token JWT del encabezado
         jwt = authHeader.substring(7);
-        // Extrae el nombre de usuario del token
-        nombreUsuario = jwtService.extraerNombreUsuario(jwt);
+        // Valida el token (firma y expiración) y extrae el nombre de usuario en un único análisis;
+        // un token inválido o expirado deja la petición sin autenticar
+        nombreUsuario = jwtService.validarToken(jwt);
 
-        // Si el nombre de usuario no es nulo y no hay una autenticación ya establecida en el contexto de seguridad
+        // Si el token es válido y no hay una autenticación ya establecida en el contexto de seguridad
         if (nombreUsuario != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(nombreUsuario);
+            // Única carga del usuario en toda la petición (desde la caché de segundo nivel salvo la primera vez):
+            // el principal lleva su ID y sus roles
+            UsuarioAutenticado userDetails = this.userDetailsService.loadUserByUsername(nombreUsuario);
 
-            // Valida el token JWT
-            if (jwtService.esTokenValido(jwt, userDetails.getUsername())) {
-                // Crea un objeto de autenticación
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                // Establece los detalles de la solicitud
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                // Establece el objeto de autenticación en el contexto de seguridad
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+            // Crea un objeto de autenticación
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+            // Establece los detalles de la solicitud
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            // Establece el objeto de autenticación en el contexto de seguridad
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         filterChain.doFilter(request, response);
     }
@@ -1,33 +1,67 @@
 package com.example.finanzaspersonales.seguridad;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * Servicio para la generación y validación de JSON Web Tokens (JWT).
- * Utiliza la librería JJWT.
+ * Utiliza la librería JJWT. La clave de firma y el parser se construyen una sola vez, y los tokens
+ * ya verificados se recuerdan (por su resumen SHA-256) hasta su expiración, de modo que las peticiones
+ * repetidas de un mismo cliente no vuelven a calcular el HMAC.
  */
 @Service
 public class JwtService {
 
-    // Se carga la clave secreta desde application.properties
-    @Value("${jwt.secret}")
-    private String CLAVE_SECRETA;
+    private final SecretKey claveFirma;
+    private final JwtParser parser;
+    private final long tiempoExpiracion;
+    private final Clock reloj;
+    private final Cache<String, TokenVerificado> tokensVerificados;
 
-    // Se carga el tiempo de expiración desde application.properties
-    @Value("${jwt.expiration}")
-    private long TIEMPO_EXPIRACION;
+    @Autowired
+    public JwtService(@Value("${jwt.secret}") String claveSecreta,
+                      @Value("${jwt.expiration}") long tiempoExpiracion,
+                      @Value("${jwt.cache.tamano-maximo:10000}") long tamanoCache) {
+        this(claveSecreta, tiempoExpiracion, tamanoCache, Clock.systemUTC());
+    }
+
+    /**
+     * @param reloj Reloj con el que se emiten y caducan los tokens, también en la caché (las pruebas lo adelantan).
+     */
+    JwtService(String claveSecreta, long tiempoExpiracion, long tamanoCache, Clock reloj) {
+        this.claveFirma = Keys.hmacShaKeyFor(Decoders.BASE64.decode(claveSecreta));
+        this.parser = Jwts.parser().verifyWith(claveFirma).clock(() -> Date.from(reloj.instant())).build();
+        this.tiempoExpiracion = tiempoExpiracion;
+        this.reloj = reloj;
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanoCache)
+                .expireAfter(new ExpiracionDelToken(reloj))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(reloj.millis()))
+                .build();
+    }
 
     /**
      * Genera un token JWT para un nombre de usuario dado.
@@ -46,22 +80,40 @@ public class JwtService {
      * @return El token JWT.
      */
     private String crearToken(Map<String, Object> claims, String subject) {
+        long ahora = reloj.millis();
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + TIEMPO_EXPIRACION)) // Token expira después de TIEMPO_EXPIRACION ms
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Firma el token con la clave secreta
+                .claims(claims)
+                .subject(subject)
+                .issuedAt(new Date(ahora))
+                .expiration(new Date(ahora + tiempoExpiracion)) // Token expira después de tiempoExpiracion ms
+                .signWith(claveFirma, Jwts.SIG.HS256) // Firma el token con la clave secreta
                 .compact();
     }
 
     /**
-     * Obtiene la clave de firma decodificada.
-     * @return La clave de firma.
+     * Valida un token JWT (firma y expiración) y devuelve su sujeto.
+     * El token se analiza una sola vez; si ya se verificó antes y no ha expirado, no se analiza.
+     * @param token El token JWT.
+     * @return El nombre de usuario del token, o null si el token no es válido o ha expirado.
      */
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(CLAVE_SECRETA);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public String validarToken(String token) {
+        String resumen = resumir(token);
+        TokenVerificado verificado = tokensVerificados.getIfPresent(resumen);
+        if (verificado != null && verificado.expiracion().isAfter(reloj.instant())) {
+            return verificado.nombreUsuario();
+        }
+
+        Claims claims;
+        try {
+            claims = extraerTodosLosClaims(token); // Verifica la firma y la expiración
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            return null;
+        }
+        tokensVerificados.put(resumen, new TokenVerificado(claims.getSubject(), claims.getExpiration().toInstant()));
+        return claims.getSubject();
     }
 
     /**
@@ -87,15 +139,12 @@ public class JwtService {
 
     /**
      * Extrae todos los claims del token JWT.
+     * Visible en el paquete para que las pruebas cuenten los análisis que evita la caché.
      * @param token El token JWT.
      * @return Los claims del token.
      */
-    private Claims extraerTodosLosClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    Claims extraerTodosLosClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
@@ -105,26 +154,46 @@ public class JwtService {
      * @return true si el token es válido, false en caso contrario.
      */
     public boolean esTokenValido(String token, String nombreUsuario) {
-        final String usernameExtraido = extraerNombreUsuario(token);
-        return (usernameExtraido.equals(nombreUsuario) && !esTokenExpirado(token));
+        return nombreUsuario != null && nombreUsuario.equals(validarToken(token));
     }
 
-    /**
-     * Verifica si el token JWT ha expirado.
-     * @param token El token JWT.
-     * @return true si el token ha expirado, false en caso contrario.
-     */
-    private boolean esTokenExpirado(String token) {
-        return extraerFechaExpiracion(token).before(new Date());
+    private static String resumir(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e); // Obligatorio en toda JVM
+        }
+    }
+
+    private record TokenVerificado(String nombreUsuario, Instant expiracion) {
     }
 
     /**
-     * Extrae la fecha de expiración del token JWT.
-     * @param token El token JWT.
-     * @return La fecha de expiración.
+     * Cada token verificado vive en la caché exactamente hasta su claim exp.
      */
-    private Date extraerFechaExpiracion(String token) {
-        return extraerClaim(token, Claims::getExpiration);
+    private static final class ExpiracionDelToken implements Expiry<String, TokenVerificado> {
+
+        private final Clock reloj;
+
+        ExpiracionDelToken(Clock reloj) {
+            this.reloj = reloj;
+        }
+
+        @Override
+        public long expireAfterCreate(String resumen, TokenVerificado token, long tiempoActual) {
+            long restanteMs = token.expiracion().toEpochMilli() - reloj.millis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String resumen, TokenVerificado token, long tiempoActual, long duracionActual) {
+            return expireAfterCreate(resumen, token, tiempoActual);
+        }
+
+        @Override
+        public long expireAfterRead(String resumen, TokenVerificado token, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
     }
 }
-
@@ -52,6 +52,9 @@ public class SecurityConfig {
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll()
                         // Consola H2 (solo para desarrollo, ¡no usar en producción!)
                         .requestMatchers("/h2-console/**").permitAll()
+                        // Actuator: el estado es público, las métricas solo para administradores
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // Todos los demás endpoints requieren autenticación
                         .anyRequest().authenticated()
                 )
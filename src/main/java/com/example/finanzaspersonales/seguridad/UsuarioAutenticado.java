@@ -0,0 +1,50 @@
+package com.example.finanzaspersonales.seguridad;
+
+import com.example.finanzaspersonales.modelo.Usuario;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Principal de Spring Security para los usuarios de la aplicación.
+ * Además del nombre y los roles conserva el ID del usuario, de modo que los servicios
+ * no necesitan volver a consultar la base de datos para saber quién hace la petición.
+ */
+@Getter
+public class UsuarioAutenticado implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String username;
+    private String password;
+    private final List<GrantedAuthority> authorities;
+
+    public UsuarioAutenticado(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    /**
+     * Construye el principal a partir de la entidad Usuario, con sus roles como autoridades.
+     * @param usuario El usuario cargado de la base de datos.
+     * @return El principal equivalente.
+     */
+    public static UsuarioAutenticado de(Usuario usuario) {
+        List<GrantedAuthority> authorities = usuario.getRoles().stream()
+                .map(rol -> new SimpleGrantedAuthority(rol.getNombre()))
+                .collect(Collectors.toList());
+        return new UsuarioAutenticado(usuario.getId(), usuario.getNombreUsuario(), usuario.getContrasena(), authorities);
+    }
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null; // La contraseña solo se necesita durante el login
+    }
+}
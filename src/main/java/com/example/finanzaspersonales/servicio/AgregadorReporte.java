@@ -0,0 +1,42 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Combina filas agregadas (tipo, categoría, total) en un ReporteFinancieroDTO.
+ * Las filas pueden venir de distintas fuentes y repetir la misma categoría;
+ * en ese caso los totales se suman. Las sumas se acumulan en céntimos (SumaCentimos).
+ */
+final class AgregadorReporte {
+
+    private AgregadorReporte() {
+    }
+
+    static ReporteFinancieroDTO construirReporte(Iterable<TotalPorCategoriaDTO> filas) {
+        SumaCentimos totalIngresos = new SumaCentimos();
+        SumaCentimos totalEgresos = new SumaCentimos();
+        Map<String, SumaCentimos> gastosPorCategoria = new HashMap<>();
+
+        for (TotalPorCategoriaDTO fila : filas) {
+            if (fila.getTipo() == TipoTransaccion.INGRESO) {
+                totalIngresos.sumar(fila.getTotal());
+            } else {
+                totalEgresos.sumar(fila.getTotal());
+                gastosPorCategoria.computeIfAbsent(fila.getCategoria(), c -> new SumaCentimos()).sumar(fila.getTotal());
+            }
+        }
+
+        // Los BigDecimal se crean solo aquí, al construir el DTO
+        BigDecimal ingresos = totalIngresos.aBigDecimal();
+        BigDecimal egresos = totalEgresos.aBigDecimal();
+        Map<String, BigDecimal> gastos = new HashMap<>(gastosPorCategoria.size() * 2);
+        gastosPorCategoria.forEach((categoria, suma) -> gastos.put(categoria, suma.aBigDecimal()));
+        return new ReporteFinancieroDTO(ingresos, egresos, ingresos.subtract(egresos), gastos);
+    }
+}
\ No newline at end of file
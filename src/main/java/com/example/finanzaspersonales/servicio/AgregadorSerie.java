@@ -0,0 +1,90 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.Granularidad;
+import com.example.finanzaspersonales.dto.agregacion.PuntoSerieDTO;
+import com.example.finanzaspersonales.dto.agregacion.SerieTemporalDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorFechaDTO;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reparte filas diarias (fecha, tipo, total), ordenadas por fecha, en los intervalos de una serie temporal.
+ * Recorre las filas y los intervalos a la vez en una sola pasada, sin mapas intermedios, y acumula
+ * los totales de cada intervalo en céntimos.
+ */
+final class AgregadorSerie {
+
+    private AgregadorSerie() {
+    }
+
+    /**
+     * Número de intervalos que tendrá la serie, sin construirla.
+     */
+    static long contarIntervalos(LocalDate fechaInicio, LocalDate fechaFin, Granularidad granularidad) {
+        LocalDate primero = inicioIntervalo(fechaInicio, granularidad);
+        LocalDate ultimo = inicioIntervalo(fechaFin, granularidad);
+        return switch (granularidad) {
+            case DIARIA -> ChronoUnit.DAYS.between(primero, ultimo) + 1;
+            case SEMANAL -> ChronoUnit.WEEKS.between(primero, ultimo) + 1;
+            case MENSUAL -> ChronoUnit.MONTHS.between(primero, ultimo) + 1;
+        };
+    }
+
+    static SerieTemporalDTO construirSerie(List<TotalPorFechaDTO> filas, LocalDate fechaInicio, LocalDate fechaFin,
+                                           Granularidad granularidad) {
+        List<PuntoSerieDTO> puntos = new ArrayList<>((int) contarIntervalos(fechaInicio, fechaFin, granularidad));
+        Iterator<TotalPorFechaDTO> iterador = filas.iterator();
+        TotalPorFechaDTO fila = iterador.hasNext() ? iterador.next() : null;
+        BigDecimal saldo = BigDecimal.ZERO;
+
+        LocalDate inicio = fechaInicio;
+        while (!inicio.isAfter(fechaFin)) {
+            LocalDate siguiente = siguienteIntervalo(inicio, granularidad);
+            LocalDate fin = siguiente.minusDays(1).isAfter(fechaFin) ? fechaFin : siguiente.minusDays(1);
+
+            SumaCentimos sumaIngresos = new SumaCentimos();
+            SumaCentimos sumaEgresos = new SumaCentimos();
+            while (fila != null && !fila.getFecha().isAfter(fin)) {
+                if (!fila.getFecha().isBefore(inicio)) {
+                    (fila.getTipo() == TipoTransaccion.INGRESO ? sumaIngresos : sumaEgresos).sumar(fila.getTotal());
+                }
+                fila = iterador.hasNext() ? iterador.next() : null;
+            }
+
+            BigDecimal ingresos = sumaIngresos.aBigDecimal();
+            BigDecimal egresos = sumaEgresos.aBigDecimal();
+            BigDecimal neto = ingresos.subtract(egresos);
+            saldo = saldo.add(neto);
+            puntos.add(new PuntoSerieDTO(inicio, fin, ingresos, egresos, neto, saldo));
+            inicio = siguiente;
+        }
+        return new SerieTemporalDTO(fechaInicio, fechaFin, granularidad, puntos);
+    }
+
+    /**
+     * Primer día del intervalo que sigue al que contiene la fecha dada.
+     */
+    private static LocalDate siguienteIntervalo(LocalDate fecha, Granularidad granularidad) {
+        return switch (granularidad) {
+            case DIARIA -> fecha.plusDays(1);
+            case SEMANAL -> fecha.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+            case MENSUAL -> fecha.withDayOfMonth(1).plusMonths(1);
+        };
+    }
+
+    private static LocalDate inicioIntervalo(LocalDate fecha, Granularidad granularidad) {
+        return switch (granularidad) {
+            case DIARIA -> fecha;
+            case SEMANAL -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MENSUAL -> fecha.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.dto.paginacion.PaginaDTO;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.mapper.TransaccionMapper;
+import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.TransaccionRepository;
+import com.example.finanzaspersonales.servicio.texto.CoincidenciaTexto;
+import com.example.finanzaspersonales.servicio.texto.IndiceTextoTransacciones;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de búsqueda de transacciones por el texto de su descripción (p. ej. el nombre de un comercio).
+ * Las coincidencias se obtienen del índice invertido del perfil activo (PostgreSQL o en memoria), ordenadas
+ * por relevancia, y solo se cargan las transacciones de la página pedida.
+ */
+@Service
+public class BusquedaTextoService {
+
+    static final int TAMANO_PAGINA_MAXIMO = 100;
+    static final int LONGITUD_MAXIMA_CONSULTA = 200;
+
+    private final IndiceTextoTransacciones indiceTexto;
+    private final TransaccionRepository transaccionRepository;
+    private final TransaccionMapper transaccionMapper;
+    private final ServicioSeguridad servicioSeguridad;
+
+    public BusquedaTextoService(IndiceTextoTransacciones indiceTexto,
+                                TransaccionRepository transaccionRepository,
+                                TransaccionMapper transaccionMapper,
+                                ServicioSeguridad servicioSeguridad) {
+        this.indiceTexto = indiceTexto;
+        this.transaccionRepository = transaccionRepository;
+        this.transaccionMapper = transaccionMapper;
+        this.servicioSeguridad = servicioSeguridad;
+    }
+
+    /**
+     * Busca las transacciones del usuario autenticado cuya descripción contiene todos los términos del texto
+     * (cada término puede ser el comienzo de una palabra), de la más relevante a la menos relevante.
+     * @param texto El texto a buscar.
+     * @param cursor Cursor devuelto por la página anterior de la misma búsqueda, o null para la primera página.
+     * @param tamano Número de transacciones por página (entre 1 y TAMANO_PAGINA_MAXIMO).
+     * @return La página de TransaccionDTOs y el cursor de la siguiente, si existe.
+     * @throws SolicitudInvalidaException si el texto está vacío o es demasiado largo, el tamaño está fuera de rango o el cursor no es válido.
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<TransaccionDTO> buscarPorDescripcion(String texto, String cursor, int tamano) {
+        if (texto == null || texto.isBlank() || texto.length() > LONGITUD_MAXIMA_CONSULTA) {
+            throw new SolicitudInvalidaException("El texto a buscar debe tener entre 1 y " + LONGITUD_MAXIMA_CONSULTA + " caracteres.");
+        }
+        if (tamano < 1 || tamano > TAMANO_PAGINA_MAXIMO) {
+            throw new SolicitudInvalidaException("El tamaño de página debe estar entre 1 y " + TAMANO_PAGINA_MAXIMO + ".");
+        }
+        CoincidenciaTexto despuesDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] clave = CodificadorCursor.decodificar(cursor, 2);
+            despuesDe = new CoincidenciaTexto(CodificadorCursor.leerLong(clave[1]), CodificadorCursor.leerDouble(clave[0]));
+        }
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+
+        // Se pide una coincidencia extra para saber si existe una página siguiente
+        List<CoincidenciaTexto> coincidencias = indiceTexto.buscar(usuario, texto, despuesDe, tamano + 1);
+        boolean hayMas = coincidencias.size() > tamano;
+        List<CoincidenciaTexto> pagina = hayMas ? coincidencias.subList(0, tamano) : coincidencias;
+
+        Map<Long, Transaccion> transacciones = transaccionRepository
+                .findByIdInAndUsuario(pagina.stream().map(CoincidenciaTexto::id).collect(Collectors.toList()), usuario).stream()
+                .collect(Collectors.toMap(Transaccion::getId, Function.identity()));
+        List<TransaccionDTO> elementos = new ArrayList<>(pagina.size());
+        for (CoincidenciaTexto coincidencia : pagina) {
+            Transaccion transaccion = transacciones.get(coincidencia.id());
+            if (transaccion != null) { // Borrada entre la búsqueda en el índice y la carga
+                elementos.add(transaccionMapper.aTransaccionDTO(transaccion));
+            }
+        }
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            CoincidenciaTexto ultima = pagina.get(pagina.size() - 1);
+            siguienteCursor = CodificadorCursor.codificar(Double.toString(ultima.rango()), ultima.id().toString());
+        }
+        return new PaginaDTO<>(elementos, siguienteCursor);
+    }
+}
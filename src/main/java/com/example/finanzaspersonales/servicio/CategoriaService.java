@@ -1,88 +1,87 @@
 package com.example.finanzaspersonales.servicio;
 
 import com.example.finanzaspersonales.dto.operaciones.CategoriaDTO;
+import com.example.finanzaspersonales.evento.CategoriasModificadasEvent;
 import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
 import com.example.finanzaspersonales.mapper.CategoriaMapper;
 import com.example.finanzaspersonales.modelo.Categoria;
 import com.example.finanzaspersonales.modelo.Usuario;
 import com.example.finanzaspersonales.repositorio.CategoriaRepository;
-import com.example.finanzaspersonales.repositorio.UsuarioRepository;
 // import com.example.finanzaspersonales.servicio.ServicioSeguridad; // Ya está importado
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CategoriaService {
 
     private final CategoriaRepository categoriaRepository;
-    private final UsuarioRepository usuarioRepository;
     private final CategoriaMapper categoriaMapper;
+    private final CategoriasUsuarioCache categoriasUsuarioCache;
     private final ServicioSeguridad servicioSeguridad; // 1. Inyectar el servicio
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoriaService(CategoriaRepository categoriaRepository, UsuarioRepository usuarioRepository,
-                            CategoriaMapper categoriaMapper, ServicioSeguridad servicioSeguridad) { // 2. Añadir al constructor
+    public CategoriaService(CategoriaRepository categoriaRepository, CategoriaMapper categoriaMapper,
+                            CategoriasUsuarioCache categoriasUsuarioCache,
+                            ServicioSeguridad servicioSeguridad, ApplicationEventPublisher eventPublisher) { // 2. Añadir al constructor
         this.categoriaRepository = categoriaRepository;
-        this.usuarioRepository = usuarioRepository;
         this.categoriaMapper = categoriaMapper;
+        this.categoriasUsuarioCache = categoriasUsuarioCache;
         this.servicioSeguridad = servicioSeguridad;
-    }
-
-    // Método privado para centralizar la obtención del usuario
-    private Usuario obtenerUsuarioAutenticado() {
-        String nombreUsuario = servicioSeguridad.obtenerNombreUsuarioAutenticado();
-        return usuarioRepository.findByNombreUsuario(nombreUsuario)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado con nombre: " + nombreUsuario));
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public CategoriaDTO crearCategoria(CategoriaDTO categoriaDTO) {
-        Usuario usuario = obtenerUsuarioAutenticado(); // 3. Usar el método centralizado
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado(); // 3. Usar el método centralizado
 
         if (categoriaRepository.existsByNombreAndTipoAndUsuario(categoriaDTO.getNombre(), categoriaDTO.getTipo(), usuario)) {
-            throw new IllegalArgumentException("Ya existe una categoría con ese nombre y tipo para este usuario.");
+            throw new SolicitudInvalidaException("Ya existe una categoría con ese nombre y tipo para este usuario.");
         }
 
         Categoria categoria = categoriaMapper.aCategoria(categoriaDTO);
         categoria.setUsuario(usuario);
         categoria = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CategoriasModificadasEvent(usuario.getId()));
         return categoriaMapper.aCategoriaDTO(categoria);
     }
 
     @Transactional(readOnly = true)
     public CategoriaDTO obtenerCategoriaPorId(Long id) {
-        Usuario usuario = obtenerUsuarioAutenticado();
-        Categoria categoria = categoriaRepository.findByIdAndUsuario(id, usuario)
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        return categoriasUsuarioCache.buscar(usuario, id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada o no pertenece a este usuario."));
-        return categoriaMapper.aCategoriaDTO(categoria);
     }
 
     // ... (Aplicar el mismo cambio a los demás métodos: obtenerCategoriasDelUsuario, actualizarCategoria, eliminarCategoria)
     // ...
 
+    /**
+     * Devuelve las categorías del usuario autenticado desde la caché de categorías,
+     * que se invalida tras cada alta, modificación o baja confirmada.
+     */
     @Transactional(readOnly = true)
     public List<CategoriaDTO> obtenerCategoriasDelUsuario() {
-        Usuario usuario = obtenerUsuarioAutenticado();
-        List<Categoria> categorias = categoriaRepository.findByUsuario(usuario);
-        return categorias.stream()
-                .map(categoriaMapper::aCategoriaDTO)
-                .collect(Collectors.toList());
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        return categoriasUsuarioCache.listar(usuario);
     }
 
     @Transactional
     public void eliminarCategoria(Long id) {
-        Usuario usuario = obtenerUsuarioAutenticado();
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
         Categoria categoria = categoriaRepository.findByIdAndUsuario(id, usuario)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada o no pertenece a este usuario."));
         categoriaRepository.delete(categoria);
+        eventPublisher.publishEvent(new CategoriasModificadasEvent(usuario.getId()));
     }
 
     // El método actualizarCategoria también debe ser refactorizado de la misma manera
     @Transactional
     public CategoriaDTO actualizarCategoria(Long id, CategoriaDTO categoriaDTO) {
-        Usuario usuario = obtenerUsuarioAutenticado();
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
         Categoria categoriaExistente = categoriaRepository.findByIdAndUsuario(id, usuario)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada o no pertenece a este usuario."));
 
@@ -90,11 +89,12 @@ public class CategoriaService {
         if (categoriaRepository.existsByNombreAndTipoAndUsuario(categoriaDTO.getNombre(), categoriaDTO.getTipo(), usuario) &&
                 (!categoriaExistente.getNombre().equals(categoriaDTO.getNombre()) ||
                         !categoriaExistente.getTipo().equals(categoriaDTO.getTipo()))) {
-            throw new IllegalArgumentException("Ya existe otra categoría con el mismo nombre y tipo para este usuario.");
+            throw new SolicitudInvalidaException("Ya existe otra categoría con el mismo nombre y tipo para este usuario.");
         }
 
         categoriaMapper.actualizarCategoriaDesdeDTO(categoriaDTO, categoriaExistente);
         categoriaExistente = categoriaRepository.save(categoriaExistente);
+        eventPublisher.publishEvent(new CategoriasModificadasEvent(usuario.getId()));
         return categoriaMapper.aCategoriaDTO(categoriaExistente);
     }
 }
\ No newline at end of file
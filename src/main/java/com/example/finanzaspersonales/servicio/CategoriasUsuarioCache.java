@@ -0,0 +1,172 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.operaciones.CategoriaDTO;
+import com.example.finanzaspersonales.evento.CategoriasModificadasEvent;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Caché acotada (por tamaño y por tiempo sin uso) de las categorías de cada usuario: ID, nombre y tipo.
+ * Permite comprobar que una categoría pertenece al usuario en las escrituras de transacciones y listar
+ * sus categorías sin consultar la base de datos.
+ * <p>
+ * Se invalida tras cada escritura confirmada de CategoriaService con SellosInvalidacion, como ReporteCache:
+ * un conjunto leído antes de un cambio no se guarda aunque su carga terminara después. Una categoría nunca
+ * cambia de propietario, así que una comprobación de propiedad no puede dar un falso positivo sobre categorías
+ * ajenas; si se apoya en una categoría borrada por una escritura concurrente, la clave foránea de
+ * transacciones rechaza la inserción.
+ */
+@Component
+public class CategoriasUsuarioCache {
+
+    private final CategoriaRepository categoriaRepository;
+    // Por usuario, sus categorías por ID en el orden en que las devuelve la base de datos
+    private final Cache<Long, Map<Long, CategoriaEnCache>> categorias;
+    private final SellosInvalidacion sellos;
+
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter desalojos;
+
+    public CategoriasUsuarioCache(CategoriaRepository categoriaRepository,
+                                  @Value("${finanzas.cache.categorias.tamano-maximo:10000}") long tamanoMaximo,
+                                  @Value("${finanzas.cache.categorias.inactividad:30m}") Duration inactividad,
+                                  MeterRegistry meterRegistry) {
+        this.categoriaRepository = categoriaRepository;
+        this.aciertos = Counter.builder("finanzas.cache.categorias.aciertos").register(meterRegistry);
+        this.fallos = Counter.builder("finanzas.cache.categorias.fallos").register(meterRegistry);
+        this.desalojos = Counter.builder("finanzas.cache.categorias.desalojos").register(meterRegistry);
+        this.categorias = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterAccess(inactividad)
+                .removalListener((Long usuarioId, Map<Long, CategoriaEnCache> entrada, RemovalCause causa) -> {
+                    if (causa.wasEvicted()) {
+                        desalojos.increment();
+                    }
+                })
+                .build();
+        this.sellos = new SellosInvalidacion(tamanoMaximo);
+        Gauge.builder("finanzas.cache.categorias.tamano", categorias, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Devuelve las categorías del usuario.
+     * @param usuario El usuario propietario de las categorías.
+     * @return Una copia de las categorías, que el llamante puede modificar.
+     */
+    public List<CategoriaDTO> listar(Usuario usuario) {
+        return obtener(usuario).values().stream()
+                .map(CategoriaEnCache::aCategoriaDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Busca una categoría del usuario por su ID.
+     * @param usuario El usuario propietario de la categoría.
+     * @param categoriaId El ID de la categoría.
+     * @return Una copia de la categoría, o vacío si no existe o pertenece a otro usuario.
+     */
+    public Optional<CategoriaDTO> buscar(Usuario usuario, Long categoriaId) {
+        return Optional.ofNullable(obtener(usuario).get(categoriaId)).map(CategoriaEnCache::aCategoriaDTO);
+    }
+
+    /**
+     * Indica si una categoría pertenece al usuario.
+     * @param usuario El usuario.
+     * @param categoriaId El ID de la categoría.
+     * @return true si la categoría existe y es del usuario.
+     */
+    public boolean pertenece(Usuario usuario, Long categoriaId) {
+        return obtener(usuario).containsKey(categoriaId);
+    }
+
+    /**
+     * Devuelve, de los IDs dados, los que no corresponden a categorías del usuario.
+     * @param usuario El usuario.
+     * @param categoriaIds Los IDs de las categorías.
+     * @return Los IDs que no existen o pertenecen a otro usuario, ordenados; vacío si todos son del usuario.
+     */
+    public Set<Long> ajenas(Usuario usuario, Collection<Long> categoriaIds) {
+        Map<Long, CategoriaEnCache> delUsuario = obtener(usuario);
+        return categoriaIds.stream()
+                .filter(id -> !delUsuario.containsKey(id))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Invalida las categorías cacheadas de un usuario.
+     * @param usuarioId El ID del usuario cuyas categorías cambiaron.
+     */
+    public void invalidarUsuario(Long usuarioId) {
+        sellos.invalidar(usuarioId);
+        categorias.invalidate(usuarioId);
+    }
+
+    /**
+     * Invalida las categorías del usuario una vez confirmada la transacción que las modificó.
+     * @param evento El evento de modificación de categorías.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCategorias(CategoriasModificadasEvent evento) {
+        invalidarUsuario(evento.getUsuarioId());
+    }
+
+    private Map<Long, CategoriaEnCache> obtener(Usuario usuario) {
+        Long usuarioId = usuario.getId();
+        Map<Long, CategoriaEnCache> entrada = categorias.getIfPresent(usuarioId);
+        if (entrada != null) {
+            aciertos.increment();
+            return entrada;
+        }
+
+        fallos.increment();
+        long sello = sellos.sellar(); // Se toma antes de leer los datos
+        Map<Long, CategoriaEnCache> cargadas = new LinkedHashMap<>();
+        for (Categoria categoria : categoriaRepository.findByUsuario(usuario)) {
+            cargadas.put(categoria.getId(), new CategoriaEnCache(categoria.getId(), categoria.getNombre(), categoria.getTipo()));
+        }
+        cargadas = Collections.unmodifiableMap(cargadas);
+        if (sellos.esVigente(usuarioId, sello)) {
+            categorias.put(usuarioId, cargadas);
+            // Una invalidación entre la comprobación y el put puede no haber visto la entrada
+            if (!sellos.esVigente(usuarioId, sello)) {
+                categorias.asMap().remove(usuarioId, cargadas);
+            }
+        }
+        return cargadas;
+    }
+
+    private record CategoriaEnCache(Long id, String nombre, TipoTransaccion tipo) {
+
+        CategoriaDTO aCategoriaDTO() {
+            CategoriaDTO categoriaDTO = new CategoriaDTO();
+            categoriaDTO.setId(id);
+            categoriaDTO.setNombre(nombre);
+            categoriaDTO.setTipo(tipo);
+            return categoriaDTO;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Codifica y decodifica los cursores opacos usados en la paginación keyset.
+ * Un cursor contiene los valores de la clave de ordenación de la última fila devuelta.
+ */
+final class CodificadorCursor {
+
+    private static final String SEPARADOR = "|";
+
+    private CodificadorCursor() {
+    }
+
+    static String codificar(String... partes) {
+        String contenido = String.join(SEPARADOR, partes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws SolicitudInvalidaException si el cursor no es válido o no tiene el número de partes esperado.
+     */
+    static String[] decodificar(String cursor, int partesEsperadas) {
+        String contenido;
+        try {
+            contenido = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new SolicitudInvalidaException("El cursor de paginación no es válido.", e);
+        }
+        String[] partes = contenido.split("\\|", -1);
+        if (partes.length != partesEsperadas) {
+            throw new SolicitudInvalidaException("El cursor de paginación no es válido.");
+        }
+        return partes;
+    }
+
+    static LocalDate leerFecha(String valor) {
+        try {
+            return LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new SolicitudInvalidaException("El cursor de paginación no es válido.", e);
+        }
+    }
+
+    static Long leerLong(String valor) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new SolicitudInvalidaException("El cursor de paginación no es válido.", e);
+        }
+    }
+
+    static BigDecimal leerDecimal(String valor) {
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException e) {
+            throw new SolicitudInvalidaException("El cursor de paginación no es válido.", e);
+        }
+    }
+
+    static double leerDouble(String valor) {
+        try {
+            return Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            throw new SolicitudInvalidaException("El cursor de paginación no es válido.", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.ComparacionReporteDTO;
+import com.example.finanzaspersonales.dto.agregacion.PeriodoDTO;
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.ReportePeriodoDTO;
+import com.example.finanzaspersonales.dto.agregacion.VariacionReporteDTO;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.modelo.Usuario;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de comparación de reportes financieros entre varios períodos.
+ * Los reportes de los períodos se calculan a la vez en un pool acotado, cada uno con
+ * {@link ReporteService} en su propia transacción de solo lectura, de modo que se aprovechan
+ * los acumulados mensuales y la caché de reportes igual que en una petición individual.
+ */
+@Service
+public class ComparacionReporteService {
+
+    static final int MESES_MAXIMOS = 36;
+
+    private final ReporteService reporteService;
+    private final ServicioSeguridad servicioSeguridad;
+
+    // Si el pool y su cola están llenos, el hilo de la petición calcula el período él mismo en lugar de fallar
+    private final ThreadPoolExecutor ejecutor;
+
+    public ComparacionReporteService(ReporteService reporteService,
+                                     ServicioSeguridad servicioSeguridad,
+                                     @Value("${finanzas.reportes.comparacion.hilos:4}") int hilos,
+                                     @Value("${finanzas.reportes.comparacion.cola:64}") int cola) {
+        this.reporteService = reporteService;
+        this.servicioSeguridad = servicioSeguridad;
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Compara los reportes financieros del usuario autenticado en varios períodos.
+     * @param periodos Los períodos, en el orden en que se devuelven; cada uno se compara con el anterior.
+     * @return Un reporte por período con su variación respecto al anterior.
+     * @throws SolicitudInvalidaException si algún período tiene la fecha de inicio posterior a la de fin.
+     */
+    public ComparacionReporteDTO compararPeriodos(List<PeriodoDTO> periodos) {
+        for (PeriodoDTO periodo : periodos) {
+            if (periodo.getFechaInicio().isAfter(periodo.getFechaFin())) {
+                throw new SolicitudInvalidaException("Período inválido: " + periodo.getFechaInicio() + " es posterior a " + periodo.getFechaFin());
+            }
+        }
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+
+        List<CompletableFuture<ReporteFinancieroDTO>> calculos = new ArrayList<>(periodos.size());
+        for (PeriodoDTO periodo : periodos) {
+            calculos.add(CompletableFuture.supplyAsync(() -> reporteService.generarReporteFinancieroDeUsuario(
+                    usuario, periodo.getFechaInicio(), periodo.getFechaFin()), ejecutor));
+        }
+
+        List<ReportePeriodoDTO> resultado = new ArrayList<>(periodos.size());
+        ReporteFinancieroDTO anterior = null;
+        for (int i = 0; i < periodos.size(); i++) {
+            ReporteFinancieroDTO reporte = esperar(calculos.get(i));
+            resultado.add(new ReportePeriodoDTO(periodos.get(i).getFechaInicio(), periodos.get(i).getFechaFin(),
+                    reporte, anterior == null ? null : calcularVariacion(anterior, reporte)));
+            anterior = reporte;
+        }
+        return new ComparacionReporteDTO(resultado);
+    }
+
+    /**
+     * Compara los últimos meses naturales del usuario autenticado, del más antiguo al más reciente.
+     * @param meses Número de meses a comparar.
+     * @param hasta Una fecha del último mes a incluir.
+     * @return Un reporte por mes con su variación respecto al mes anterior.
+     * @throws SolicitudInvalidaException si el número de meses no está entre 1 y el máximo.
+     */
+    public ComparacionReporteDTO compararMeses(int meses, LocalDate hasta) {
+        if (meses < 1 || meses > MESES_MAXIMOS) {
+            throw new SolicitudInvalidaException("El número de meses debe estar entre 1 y " + MESES_MAXIMOS);
+        }
+        LocalDate ultimoMes = hasta.withDayOfMonth(1);
+        List<PeriodoDTO> periodos = new ArrayList<>(meses);
+        for (int i = meses - 1; i >= 0; i--) {
+            LocalDate inicio = ultimoMes.minusMonths(i);
+            periodos.add(new PeriodoDTO(inicio, inicio.withDayOfMonth(inicio.lengthOfMonth())));
+        }
+        return compararPeriodos(periodos);
+    }
+
+    private static ReporteFinancieroDTO esperar(CompletableFuture<ReporteFinancieroDTO> calculo) {
+        try {
+            return calculo.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa; // Se propaga la excepción original para que la maneje GlobalExceptionHandler
+            }
+            throw e;
+        }
+    }
+
+    static VariacionReporteDTO calcularVariacion(ReporteFinancieroDTO anterior, ReporteFinancieroDTO actual) {
+        Map<String, BigDecimal> gastos = new HashMap<>();
+        actual.getGastosPorCategoria().forEach(gastos::put);
+        anterior.getGastosPorCategoria().forEach((categoria, total) ->
+                gastos.merge(categoria, total.negate(), BigDecimal::add));
+
+        return new VariacionReporteDTO(
+                actual.getTotalIngresos().subtract(anterior.getTotalIngresos()),
+                actual.getTotalEgresos().subtract(anterior.getTotalEgresos()),
+                actual.getBalanceNeto().subtract(anterior.getBalanceNeto()),
+                porcentaje(anterior.getTotalIngresos(), actual.getTotalIngresos()),
+                porcentaje(anterior.getTotalEgresos(), actual.getTotalEgresos()),
+                gastos);
+    }
+
+    private static BigDecimal porcentaje(BigDecimal anterior, BigDecimal actual) {
+        if (anterior.signum() == 0) {
+            return null;
+        }
+        return actual.subtract(anterior).multiply(BigDecimal.valueOf(100))
+                .divide(anterior.abs(), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.exportacion.FormatoExportacion;
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.mapper.TransaccionMapper;
+import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.TransaccionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Servicio para exportar el libro completo de transacciones del usuario autenticado.
+ * Las transacciones se leen de la base de datos como un flujo y se escriben de una en una
+ * en la salida, desvinculando cada entidad del contexto de persistencia tras escribirla,
+ * por lo que la memoria utilizada no depende del número de transacciones.
+ */
+@Service
+public class ExportacionService {
+
+    private final TransaccionRepository transaccionRepository;
+    private final TransaccionMapper transaccionMapper;
+    private final ServicioSeguridad servicioSeguridad;
+    private final EntityManager entityManager;
+    private final ObjectWriter escritorJson;
+    private final int filasPorVolcado;
+
+    public ExportacionService(TransaccionRepository transaccionRepository,
+                              TransaccionMapper transaccionMapper,
+                              ServicioSeguridad servicioSeguridad,
+                              EntityManager entityManager,
+                              ObjectMapper objectMapper,
+                              @Value("${finanzas.exportacion.filas-por-volcado:500}") int filasPorVolcado) {
+        this.transaccionRepository = transaccionRepository;
+        this.transaccionMapper = transaccionMapper;
+        this.servicioSeguridad = servicioSeguridad;
+        this.entityManager = entityManager;
+        // No cerrar la salida tras cada objeto: se escribe un objeto por línea sobre el mismo Writer
+        this.escritorJson = objectMapper.writerFor(TransaccionDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.filasPorVolcado = filasPorVolcado;
+    }
+
+    /**
+     * Escribe todas las transacciones del usuario autenticado en la salida, en orden cronológico.
+     * @param formato El formato de exportación (NDJSON o CSV).
+     * @param salida El flujo de salida de la respuesta HTTP.
+     * @throws IOException si falla la escritura en la salida.
+     */
+    @Transactional(readOnly = true)
+    public void exportarTransacciones(FormatoExportacion formato, OutputStream salida) throws IOException {
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+
+        if (formato == FormatoExportacion.CSV) {
+            escritor.write("id,fecha,tipo,monto,descripcion,categoriaId\n");
+        }
+
+        try (Stream<Transaccion> transacciones = transaccionRepository.recorrerPorUsuario(usuario)) {
+            Iterator<Transaccion> iterador = transacciones.iterator();
+            int filas = 0;
+            while (iterador.hasNext()) {
+                Transaccion transaccion = iterador.next();
+                TransaccionDTO dto = transaccionMapper.aTransaccionDTO(transaccion);
+                entityManager.detach(transaccion); // Libera la entidad: la memoria no crece con el historial
+
+                if (formato == FormatoExportacion.CSV) {
+                    escribirCsv(escritor, dto);
+                } else {
+                    escritorJson.writeValue(escritor, dto);
+                    escritor.write('\n');
+                }
+
+                if (++filas % filasPorVolcado == 0) {
+                    escritor.flush(); // Envía al cliente lo escrito hasta ahora
+                }
+            }
+        }
+        escritor.flush();
+    }
+
+    private void escribirCsv(Writer escritor, TransaccionDTO dto) throws IOException {
+        escritor.write(String.valueOf(dto.getId()));
+        escritor.write(',');
+        escritor.write(dto.getFecha().toString());
+        escritor.write(',');
+        escritor.write(dto.getTipo().name());
+        escritor.write(',');
+        escritor.write(dto.getMonto().toPlainString());
+        escritor.write(',');
+        escritor.write(escaparCsv(dto.getDescripcion()));
+        escritor.write(',');
+        escritor.write(String.valueOf(dto.getCategoriaId()));
+        escritor.write('\n');
+    }
+
+    private static String escaparCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
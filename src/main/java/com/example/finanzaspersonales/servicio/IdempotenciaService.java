@@ -0,0 +1,157 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.modelo.ClaveIdempotencia;
+import com.example.finanzaspersonales.repositorio.ClaveIdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servicio que hace idempotente la creación de transacciones con la cabecera Idempotency-Key:
+ * el reintento de una petición ya atendida devuelve la transacción creada la primera vez, sin crear otra.
+ * <p>
+ * Las peticiones simultáneas con la misma clave se serializan en dos niveles. Dentro de la instancia, un
+ * candado por franja (la clave se reparte por hash entre FRANJAS candados) hace esperar al duplicado hasta
+ * que el primero termina, y entonces encuentra su respuesta. Entre instancias, la fila de la clave se inserta
+ * antes de crear la transacción y en la misma transacción de base de datos: el duplicado queda bloqueado
+ * en el índice único hasta que el primero confirma, y su inserción falla sin haber creado nada.
+ */
+@Service
+public class IdempotenciaService {
+
+    static final int LONGITUD_MAXIMA_CLAVE = 255;
+    private static final int FRANJAS = 256;
+
+    private final ClaveIdempotenciaRepository claveIdempotenciaRepository;
+    private final TransaccionService transaccionService;
+    private final ServicioSeguridad servicioSeguridad;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retencion;
+    private final Lock[] franjas = new Lock[FRANJAS];
+
+    public IdempotenciaService(ClaveIdempotenciaRepository claveIdempotenciaRepository,
+                               TransaccionService transaccionService,
+                               ServicioSeguridad servicioSeguridad,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${finanzas.idempotencia.retencion:24h}") Duration retencion) {
+        this.claveIdempotenciaRepository = claveIdempotenciaRepository;
+        this.transaccionService = transaccionService;
+        this.servicioSeguridad = servicioSeguridad;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retencion = retencion;
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Crea una transacción para el usuario autenticado, o devuelve la creada antes con la misma clave.
+     * @param clave La clave de idempotencia enviada por el cliente.
+     * @param transaccionDTO El DTO de la transacción a crear.
+     * @return La transacción creada (ahora o en la petición original) e indicación de si es una repetición.
+     * @throws SolicitudInvalidaException si la clave está vacía o es demasiado larga, o si ya se usó con otra petición.
+     * @throws com.example.finanzaspersonales.exception.RecursoNoEncontradoException si la categoría no existe o no
+     *         pertenece al usuario (la clave no se registra y el cliente puede reintentar con ella).
+     */
+    public TransaccionIdempotente crearTransaccion(String clave, TransaccionDTO transaccionDTO) {
+        if (clave == null || clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new SolicitudInvalidaException("La cabecera Idempotency-Key debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres.");
+        }
+        Long usuarioId = servicioSeguridad.obtenerUsuarioAutenticado().getId();
+        String huella = huella(transaccionDTO);
+
+        Lock franja = franjas[Math.floorMod(Objects.hash(usuarioId, clave), FRANJAS)];
+        franja.lock();
+        try {
+            Optional<TransaccionDTO> original = buscarRespuesta(usuarioId, clave, huella);
+            if (original.isPresent()) {
+                return new TransaccionIdempotente(original.get(), true);
+            }
+            try {
+                TransaccionDTO creada = transactionTemplate.execute(estado -> crearYRegistrar(usuarioId, clave, huella, transaccionDTO));
+                return new TransaccionIdempotente(creada, false);
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia registró la misma clave a la vez y ya ha confirmado su transacción
+                return buscarRespuesta(usuarioId, clave, huella)
+                        .map(respuesta -> new TransaccionIdempotente(respuesta, true))
+                        .orElseThrow(() -> e);
+            }
+        } finally {
+            franja.unlock();
+        }
+    }
+
+    private TransaccionDTO crearYRegistrar(Long usuarioId, String clave, String huella, TransaccionDTO transaccionDTO) {
+        Instant ahora = Instant.now();
+        // Purga las claves caducadas del usuario, incluida la misma clave si se reutiliza tras caducar
+        claveIdempotenciaRepository.eliminarCaducadas(usuarioId, ahora);
+        ClaveIdempotencia registro = claveIdempotenciaRepository.saveAndFlush(
+                new ClaveIdempotencia(null, usuarioId, clave, huella, null, ahora.plus(retencion)));
+
+        TransaccionDTO creada = transaccionService.crearTransaccion(transaccionDTO);
+        registro.setRespuesta(serializar(creada)); // Se escribe al confirmar, junto con la transacción
+        return creada;
+    }
+
+    private Optional<TransaccionDTO> buscarRespuesta(Long usuarioId, String clave, String huella) {
+        Optional<ClaveIdempotencia> registro = claveIdempotenciaRepository.findByUsuarioIdAndClave(usuarioId, clave)
+                .filter(c -> c.getCaducaEn().isAfter(Instant.now()) && c.getRespuesta() != null);
+        if (registro.isPresent() && !registro.get().getHuella().equals(huella)) {
+            throw new SolicitudInvalidaException("La clave de idempotencia ya se usó con una petición distinta.");
+        }
+        return registro.map(c -> deserializar(c.getRespuesta()));
+    }
+
+    private String huella(TransaccionDTO transaccionDTO) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(serializar(transaccionDTO).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e); // Obligatorio en toda JVM
+        }
+    }
+
+    private String serializar(TransaccionDTO transaccionDTO) {
+        try {
+            return objectMapper.writeValueAsString(transaccionDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la transacción", e);
+        }
+    }
+
+    private TransaccionDTO deserializar(String respuesta) {
+        try {
+            return objectMapper.readValue(respuesta, TransaccionDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta de idempotencia ilegible", e);
+        }
+    }
+
+    /**
+     * Resultado de una creación idempotente.
+     * @param transaccion La transacción creada.
+     * @param repetida true si la petición repite una ya atendida y no se ha creado nada.
+     */
+    public record TransaccionIdempotente(TransaccionDTO transaccion, boolean repetida) {
+    }
+}
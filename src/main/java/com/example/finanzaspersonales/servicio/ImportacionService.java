@@ -0,0 +1,401 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.importacion.EstadoImportacion;
+import com.example.finanzaspersonales.dto.importacion.FormatoExtracto;
+import com.example.finanzaspersonales.dto.importacion.ImportacionDTO;
+import com.example.finanzaspersonales.dto.importacion.SeparadorDecimal;
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.exception.LimiteExcedidoException;
+import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import com.example.finanzaspersonales.servicio.importacion.LectorExtracto;
+import com.example.finanzaspersonales.servicio.importacion.RegistroExtracto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de importación de extractos bancarios (CSV u OFX).
+ * El archivo subido se guarda en un temporal y se procesa en segundo plano por bloques:
+ * las líneas de cada bloque se interpretan y validan en paralelo y las válidas se confirman
+ * en una transacción propia mediante {@link TransaccionService}, de modo que una línea o un bloque
+ * erróneo no deshace lo ya importado. Nunca hay más de un bloque en memoria.
+ * El estado de una importación se conserva durante un tiempo desde que termina: una pendiente o en curso no caduca.
+ */
+@Slf4j
+@Service
+public class ImportacionService {
+
+    static final int TAMANO_BLOQUE = 500;
+    static final int ERRORES_MAXIMOS = 100;
+
+    private static final Duration SIN_CADUCIDAD = Duration.ofNanos(Long.MAX_VALUE);
+
+    private static final DateTimeFormatter FECHA_DIA_MES_ANIO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Importes con signo opcional y, si los hay, separadores de miles cada tres cifras
+    private static final Pattern MONTO_PUNTO_DECIMAL = Pattern.compile("[+-]?(\\d+|\\d{1,3}(,\\d{3})+)(\\.\\d+)?");
+    private static final Pattern MONTO_COMA_DECIMAL = Pattern.compile("[+-]?(\\d+|\\d{1,3}(\\.\\d{3})+)(,\\d+)?");
+
+    private final CategoriaRepository categoriaRepository;
+    private final TransaccionService transaccionService;
+    private final ServicioSeguridad servicioSeguridad;
+    private final Validator validator;
+
+    // Importaciones simultáneas acotadas: si la cola se llena se rechaza la petición en lugar de encolarla sin límite
+    private final ThreadPoolExecutor ejecutor;
+    private final ForkJoinPool poolInterpretacion;
+    private final Cache<String, Importacion> importaciones;
+
+    public ImportacionService(CategoriaRepository categoriaRepository,
+                              TransaccionService transaccionService,
+                              ServicioSeguridad servicioSeguridad,
+                              Validator validator,
+                              @Value("${finanzas.importacion.hilos:2}") int hilos,
+                              @Value("${finanzas.importacion.cola:8}") int cola,
+                              @Value("${finanzas.importacion.retencion:1h}") Duration retencion) {
+        this.categoriaRepository = categoriaRepository;
+        this.transaccionService = transaccionService;
+        this.servicioSeguridad = servicioSeguridad;
+        this.validator = validator;
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), new ThreadPoolExecutor.AbortPolicy());
+        this.poolInterpretacion = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        // La caducidad se recalcula en cada escritura; procesar() vuelve a escribir la importación al terminarla
+        this.importaciones = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((String id, Importacion importacion) -> importacion.haTerminado() ? retencion : SIN_CADUCIDAD))
+                .build();
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+        poolInterpretacion.shutdownNow();
+    }
+
+    /**
+     * Inicia la importación de un extracto bancario para el usuario autenticado.
+     * Las líneas sin categoría, o cuya categoría no existe, se asignan a la categoría por defecto de su tipo.
+     * Sin separador decimal, un importe CSV que admite dos lecturas (1,234 o 1.234) es un error de la línea.
+     * @param archivo El archivo del extracto.
+     * @param formato El formato del extracto (CSV u OFX).
+     * @param separadorDecimal El separador decimal de los importes CSV (opcional; en OFX no se usa).
+     * @param categoriaIngresoId Categoría por defecto para los ingresos (opcional).
+     * @param categoriaEgresoId Categoría por defecto para los egresos (opcional).
+     * @return El estado inicial de la importación, con el ID para consultar su progreso.
+     * @throws RecursoNoEncontradoException si una categoría por defecto no existe, no pertenece al usuario o no es del tipo adecuado.
+     * @throws LimiteExcedidoException si ya hay demasiadas importaciones en curso.
+     */
+    public ImportacionDTO iniciarImportacion(MultipartFile archivo, FormatoExtracto formato, SeparadorDecimal separadorDecimal,
+                                             Long categoriaIngresoId, Long categoriaEgresoId) {
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        ResolutorCategorias categorias = new ResolutorCategorias(categoriaRepository.findByUsuario(usuario),
+                categoriaIngresoId, categoriaEgresoId);
+
+        Path temporal;
+        try {
+            temporal = Files.createTempFile("importacion-", "." + formato.name().toLowerCase(Locale.ROOT));
+            archivo.transferTo(temporal);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo guardar el archivo subido.", e);
+        }
+
+        Importacion importacion = new Importacion(UUID.randomUUID().toString(), usuario.getId());
+        importaciones.put(importacion.id, importacion);
+        try {
+            // OFX no usa separador de miles y su lector deja los importes con punto decimal
+            SeparadorDecimal separador = formato == FormatoExtracto.OFX ? SeparadorDecimal.PUNTO : separadorDecimal;
+            ejecutor.execute(() -> procesar(importacion, usuario, temporal, formato, separador, categorias));
+        } catch (RejectedExecutionException e) {
+            importaciones.invalidate(importacion.id);
+            borrar(temporal);
+            throw new LimiteExcedidoException("Hay demasiadas importaciones en curso. Inténtelo de nuevo más tarde.");
+        }
+        return importacion.aDTO();
+    }
+
+    /**
+     * Obtiene el progreso de una importación del usuario autenticado.
+     * @param id El ID de la importación.
+     * @return El estado y los contadores de la importación.
+     * @throws RecursoNoEncontradoException si la importación no existe, ha caducado o pertenece a otro usuario.
+     */
+    public ImportacionDTO obtenerImportacion(String id) {
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        Importacion importacion = importaciones.getIfPresent(id);
+        if (importacion == null || !importacion.usuarioId.equals(usuario.getId())) {
+            throw new RecursoNoEncontradoException("Importación no encontrada o no pertenece a este usuario.");
+        }
+        return importacion.aDTO();
+    }
+
+    private void procesar(Importacion importacion, Usuario usuario, Path temporal, FormatoExtracto formato,
+                          SeparadorDecimal separador, ResolutorCategorias categorias) {
+        importacion.estado.set(EstadoImportacion.EN_CURSO);
+        try (Reader reader = Files.newBufferedReader(temporal, StandardCharsets.UTF_8);
+             LectorExtracto lector = LectorExtracto.para(formato, reader)) {
+            List<RegistroExtracto> bloque = new ArrayList<>(TAMANO_BLOQUE);
+            RegistroExtracto registro;
+            while ((registro = lector.leerSiguiente()) != null) {
+                bloque.add(registro);
+                if (bloque.size() == TAMANO_BLOQUE) {
+                    procesarBloque(importacion, usuario, bloque, separador, categorias);
+                    bloque.clear();
+                }
+            }
+            if (!bloque.isEmpty()) {
+                procesarBloque(importacion, usuario, bloque, separador, categorias);
+            }
+            importacion.estado.set(EstadoImportacion.COMPLETADA);
+        } catch (Exception e) {
+            log.warn("Importación {} interrumpida", importacion.id, e);
+            importacion.registrarError("Importación interrumpida: " + e.getMessage(), 0);
+            importacion.estado.set(EstadoImportacion.FALLIDA);
+        } finally {
+            borrar(temporal);
+        }
+        // Se vuelve a escribir para que la retención empiece a contar ahora que la importación ha terminado
+        importaciones.put(importacion.id, importacion);
+    }
+
+    private void procesarBloque(Importacion importacion, Usuario usuario, List<RegistroExtracto> bloque,
+                                SeparadorDecimal separador, ResolutorCategorias categorias) {
+        importacion.lineasLeidas.addAndGet(bloque.size());
+
+        List<LineaInterpretada> lineas = poolInterpretacion.submit(() -> bloque.parallelStream()
+                .map(r -> interpretar(r, separador, categorias))
+                .collect(Collectors.toList())).join();
+
+        List<TransaccionDTO> validas = new ArrayList<>(lineas.size());
+        for (LineaInterpretada linea : lineas) {
+            if (linea.error() != null) {
+                importacion.registrarError("Línea " + linea.numeroLinea() + ": " + linea.error(), 1);
+            } else {
+                validas.add(linea.transaccion());
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transaccionService.crearTransaccionesDeUsuario(usuario, validas);
+            importacion.lineasImportadas.addAndGet(validas.size());
+        } catch (RuntimeException e) {
+            // El bloque se deshace completo, pero los anteriores y los siguientes siguen su curso
+            long primera = bloque.get(0).getNumeroLinea();
+            long ultima = bloque.get(bloque.size() - 1).getNumeroLinea();
+            importacion.registrarError("Líneas " + primera + "-" + ultima + ": no se pudieron guardar (" + e.getMessage() + ")", validas.size());
+        }
+    }
+
+    private LineaInterpretada interpretar(RegistroExtracto registro, SeparadorDecimal separador,
+                                          ResolutorCategorias categorias) {
+        long numeroLinea = registro.getNumeroLinea();
+        try {
+            BigDecimal monto = leerMonto(registro.campo("monto"), separador);
+            TipoTransaccion tipo = leerTipo(registro.campo("tipo"), monto);
+
+            TransaccionDTO dto = new TransaccionDTO();
+            dto.setFecha(leerFecha(registro.campo("fecha")));
+            dto.setDescripcion(registro.campo("descripcion"));
+            dto.setMonto(monto == null ? null : monto.abs());
+            dto.setTipo(tipo);
+            dto.setCategoriaId(tipo == null ? null : categorias.resolver(registro.campo("categoria"), tipo));
+
+            String errores = validator.validate(dto).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return errores.isEmpty() ? new LineaInterpretada(numeroLinea, dto, null) : new LineaInterpretada(numeroLinea, null, errores);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return new LineaInterpretada(numeroLinea, null, e.getMessage());
+        }
+    }
+
+    private static LocalDate leerFecha(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (valor.length() >= 8 && valor.substring(0, 8).chars().allMatch(Character::isDigit)) {
+            // Formato OFX: AAAAMMDD seguido opcionalmente de hora y zona horaria
+            return LocalDate.parse(valor.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE);
+        }
+        if (valor.indexOf('/') >= 0) {
+            return LocalDate.parse(valor, FECHA_DIA_MES_ANIO);
+        }
+        return LocalDate.parse(valor);
+    }
+
+    /**
+     * Lee un importe con el separador decimal dado o, si es null, con el único que admite el valor.
+     * @throws IllegalArgumentException si el importe no es válido o, sin separador, admite dos lecturas distintas.
+     */
+    static BigDecimal leerMonto(String valor, SeparadorDecimal separador) {
+        if (valor == null) {
+            return null;
+        }
+        String limpio = valor.replace(" ", "");
+        BigDecimal conPunto = MONTO_PUNTO_DECIMAL.matcher(limpio).matches() ? new BigDecimal(limpio.replace(",", "")) : null;
+        BigDecimal conComa = MONTO_COMA_DECIMAL.matcher(limpio).matches()
+                ? new BigDecimal(limpio.replace(".", "").replace(',', '.')) : null;
+
+        BigDecimal monto;
+        if (separador == SeparadorDecimal.PUNTO) {
+            monto = conPunto;
+        } else if (separador == SeparadorDecimal.COMA) {
+            monto = conComa;
+        } else if (conPunto != null && conComa != null && conPunto.compareTo(conComa) != 0) {
+            throw new IllegalArgumentException("Monto ambiguo: " + valor + " (indique el separador decimal)");
+        } else {
+            monto = conPunto != null ? conPunto : conComa;
+        }
+        if (monto == null) {
+            throw new IllegalArgumentException("Monto no válido: " + valor);
+        }
+        return monto;
+    }
+
+    private static TipoTransaccion leerTipo(String valor, BigDecimal monto) {
+        if (valor != null) {
+            try {
+                return TipoTransaccion.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Tipo de transacción no válido: " + valor);
+            }
+        }
+        if (monto == null) {
+            return null;
+        }
+        return monto.signum() < 0 ? TipoTransaccion.EGRESO : TipoTransaccion.INGRESO;
+    }
+
+    private static void borrar(Path temporal) {
+        try {
+            Files.deleteIfExists(temporal);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar el archivo temporal {}", temporal, e);
+        }
+    }
+
+    private record LineaInterpretada(long numeroLinea, TransaccionDTO transaccion, String error) {
+    }
+
+    /**
+     * Categorías del usuario indexadas por tipo y nombre, cargadas una sola vez por importación.
+     * La propiedad de cada categoría se vuelve a comprobar al confirmar cada bloque.
+     */
+    private static final class ResolutorCategorias {
+
+        private final Map<String, Long> porTipoYNombre = new HashMap<>();
+        private final Long categoriaIngresoId;
+        private final Long categoriaEgresoId;
+
+        ResolutorCategorias(List<Categoria> categorias, Long categoriaIngresoId, Long categoriaEgresoId) {
+            Map<Long, Categoria> porId = new HashMap<>();
+            for (Categoria categoria : categorias) {
+                porId.put(categoria.getId(), categoria);
+                porTipoYNombre.put(clave(categoria.getTipo(), categoria.getNombre()), categoria.getId());
+            }
+            this.categoriaIngresoId = validarPorDefecto(porId, categoriaIngresoId, TipoTransaccion.INGRESO);
+            this.categoriaEgresoId = validarPorDefecto(porId, categoriaEgresoId, TipoTransaccion.EGRESO);
+        }
+
+        Long resolver(String nombre, TipoTransaccion tipo) {
+            Long id = nombre == null ? null : porTipoYNombre.get(clave(tipo, nombre));
+            if (id != null) {
+                return id;
+            }
+            return tipo == TipoTransaccion.INGRESO ? categoriaIngresoId : categoriaEgresoId;
+        }
+
+        private static Long validarPorDefecto(Map<Long, Categoria> porId, Long id, TipoTransaccion tipo) {
+            if (id != null && (!porId.containsKey(id) || porId.get(id).getTipo() != tipo)) {
+                throw new RecursoNoEncontradoException("Categoría de " + tipo + " por defecto no encontrada o no pertenece a este usuario.");
+            }
+            return id;
+        }
+
+        private static String clave(TipoTransaccion tipo, String nombre) {
+            return tipo + ":" + nombre.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Estado mutable de una importación, compartido entre el hilo que la procesa y las consultas de progreso.
+     */
+    private static final class Importacion {
+
+        private final String id;
+        private final Long usuarioId;
+        private final AtomicReference<EstadoImportacion> estado = new AtomicReference<>(EstadoImportacion.PENDIENTE);
+        private final AtomicLong lineasLeidas = new AtomicLong();
+        private final AtomicLong lineasImportadas = new AtomicLong();
+        private final AtomicLong lineasConError = new AtomicLong();
+        private final List<String> errores = Collections.synchronizedList(new ArrayList<>());
+
+        Importacion(String id, Long usuarioId) {
+            this.id = id;
+            this.usuarioId = usuarioId;
+        }
+
+        void registrarError(String error, long lineasAfectadas) {
+            lineasConError.addAndGet(lineasAfectadas);
+            synchronized (errores) {
+                if (errores.size() < ERRORES_MAXIMOS) {
+                    errores.add(error);
+                }
+            }
+        }
+
+        boolean haTerminado() {
+            EstadoImportacion actual = estado.get();
+            return actual == EstadoImportacion.COMPLETADA || actual == EstadoImportacion.FALLIDA;
+        }
+
+        ImportacionDTO aDTO() {
+            List<String> copiaErrores;
+            synchronized (errores) {
+                copiaErrores = List.copyOf(errores);
+            }
+            return new ImportacionDTO(id, estado.get(), lineasLeidas.get(), lineasImportadas.get(),
+                    lineasConError.get(), copiaErrores);
+        }
+    }
+}
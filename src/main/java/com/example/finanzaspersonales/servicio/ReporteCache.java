@@ -0,0 +1,105 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.evento.EventoDatosUsuario;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada (por tamaño y por tiempo de vida) de reportes financieros por usuario y rango de fechas.
+ * Cuando los datos de un usuario cambian se descartan sus reportes y se registra una invalidación en
+ * SellosInvalidacion, de modo que un reporte cuyo cálculo estuviera en curso durante la escritura no se guarda.
+ */
+@Component
+public class ReporteCache {
+
+    private final Cache<ClaveReporte, ReporteFinancieroDTO> reportes;
+    private final SellosInvalidacion sellos;
+
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter desalojos;
+
+    public ReporteCache(@Value("${finanzas.cache.reportes.tamano-maximo:10000}") long tamanoMaximo,
+                        @Value("${finanzas.cache.reportes.ttl:10m}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.aciertos = Counter.builder("finanzas.cache.reportes.aciertos").register(meterRegistry);
+        this.fallos = Counter.builder("finanzas.cache.reportes.fallos").register(meterRegistry);
+        this.desalojos = Counter.builder("finanzas.cache.reportes.desalojos").register(meterRegistry);
+        this.reportes = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .removalListener((ClaveReporte clave, ReporteFinancieroDTO reporte, RemovalCause causa) -> {
+                    if (causa.wasEvicted()) {
+                        desalojos.increment();
+                    }
+                })
+                .build();
+        this.sellos = new SellosInvalidacion(tamanoMaximo);
+        Gauge.builder("finanzas.cache.reportes.tamano", reportes, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el reporte cacheado para el usuario y el rango, o lo calcula con el proveedor dado.
+     * @param usuarioId El ID del usuario propietario del reporte.
+     * @param fechaInicio Fecha de inicio del período.
+     * @param fechaFin Fecha de fin del período.
+     * @param calculo Función que calcula el reporte si no está en caché.
+     * @return El reporte financiero.
+     */
+    public ReporteFinancieroDTO obtener(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin,
+                                        Supplier<ReporteFinancieroDTO> calculo) {
+        ClaveReporte clave = new ClaveReporte(usuarioId, fechaInicio, fechaFin);
+        ReporteFinancieroDTO cacheado = reportes.getIfPresent(clave);
+        if (cacheado != null) {
+            aciertos.increment();
+            return cacheado;
+        }
+
+        fallos.increment();
+        long sello = sellos.sellar(); // Se toma antes de leer los datos
+        ReporteFinancieroDTO reporte = calculo.get();
+        if (sellos.esVigente(usuarioId, sello)) {
+            reportes.put(clave, reporte);
+            // Una invalidación entre la comprobación y el put puede no haber visto la entrada
+            if (!sellos.esVigente(usuarioId, sello)) {
+                reportes.asMap().remove(clave, reporte);
+            }
+        }
+        return reporte;
+    }
+
+    /**
+     * Invalida todos los reportes cacheados de un usuario.
+     * @param usuarioId El ID del usuario cuyos datos cambiaron.
+     */
+    public void invalidarUsuario(Long usuarioId) {
+        sellos.invalidar(usuarioId);
+        reportes.asMap().keySet().removeIf(clave -> clave.usuarioId().equals(usuarioId));
+    }
+
+    /**
+     * Invalida los reportes del usuario una vez confirmada la transacción que modificó sus datos.
+     * Si la escritura se hizo fuera de una transacción, se invalida inmediatamente.
+     * @param evento El evento de modificación de datos.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarDatos(EventoDatosUsuario evento) {
+        invalidarUsuario(evento.getUsuarioId());
+    }
+
+    private record ClaveReporte(Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+    }
+}
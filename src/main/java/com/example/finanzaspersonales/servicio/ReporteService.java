@@ -1,66 +1,129 @@
 package com.example.finanzaspersonales.servicio;
 
+import com.example.finanzaspersonales.dto.agregacion.Granularidad;
 import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
-import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
-import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.dto.agregacion.SerieTemporalDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
 import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.ResumenMensualRepository;
 import com.example.finanzaspersonales.repositorio.TransaccionRepository;
-import com.example.finanzaspersonales.repositorio.UsuarioRepository;
-import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.servicio.columnar.MotorLibrosColumnares;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class ReporteService {
 
+    // Unos diez años de puntos diarios
+    static final long MAXIMO_PUNTOS_SERIE = 3700;
+
     private final TransaccionRepository transaccionRepository;
-    private final UsuarioRepository usuarioRepository;
+    private final ResumenMensualRepository resumenMensualRepository;
     private final ServicioSeguridad servicioSeguridad; // 1. Inyectar
+    private final ReporteCache reporteCache;
+    private final MotorLibrosColumnares motorLibrosColumnares;
 
-    public ReporteService(TransaccionRepository transaccionRepository, UsuarioRepository usuarioRepository, ServicioSeguridad servicioSeguridad) { // 2. Añadir al constructor
+    public ReporteService(TransaccionRepository transaccionRepository, ResumenMensualRepository resumenMensualRepository,
+                          ServicioSeguridad servicioSeguridad, ReporteCache reporteCache, // 2. Añadir al constructor
+                          MotorLibrosColumnares motorLibrosColumnares) {
         this.transaccionRepository = transaccionRepository;
-        this.usuarioRepository = usuarioRepository;
+        this.resumenMensualRepository = resumenMensualRepository;
         this.servicioSeguridad = servicioSeguridad;
+        this.reporteCache = reporteCache;
+        this.motorLibrosColumnares = motorLibrosColumnares;
     }
 
-    private Usuario obtenerUsuarioAutenticado() {
-        String nombreUsuario = servicioSeguridad.obtenerNombreUsuarioAutenticado();
-        return usuarioRepository.findByNombreUsuario(nombreUsuario)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado con nombre: " + nombreUsuario));
-    }
-
+    /**
+     * Genera el reporte financiero del usuario autenticado para un período.
+     * Los totales por tipo y categoría se calculan en la base de datos (SUM ... GROUP BY),
+     * de modo que no se cargan entidades Transaccion ni sus categorías en memoria.
+     * Los meses completos del rango se leen de los acumulados mensuales y solo los meses
+     * parciales de los extremos consultan la tabla de transacciones.
+     * Si el motor columnar está habilitado, los totales se obtienen del libro en memoria del usuario.
+     * El resultado se guarda en ReporteCache hasta que el usuario modifique sus datos.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @return El ReporteFinancieroDTO con los totales y el desglose de gastos por categoría.
+     */
     @Transactional(readOnly = true)
     public ReporteFinancieroDTO generarReporteFinanciero(LocalDate fechaInicio, LocalDate fechaFin) {
-        Usuario usuario = obtenerUsuarioAutenticado(); // 3. Usar el método centralizado
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado(); // 3. Usar el método centralizado
+        return generarReporteFinancieroDeUsuario(usuario, fechaInicio, fechaFin);
+    }
 
-        List<Transaccion> transacciones = transaccionRepository.findAllByUsuarioAndFechaBetween(usuario, fechaInicio, fechaFin);
+    /**
+     * Genera el reporte financiero de un usuario ya resuelto, sin depender del contexto de seguridad.
+     * Lo usan los trabajos de reporte en segundo plano, que resuelven el usuario al encolarse.
+     * @param usuario El usuario propietario de los datos.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @return El ReporteFinancieroDTO con los totales y el desglose de gastos por categoría.
+     */
+    @Transactional(readOnly = true)
+    public ReporteFinancieroDTO generarReporteFinancieroDeUsuario(Usuario usuario, LocalDate fechaInicio, LocalDate fechaFin) {
+        return reporteCache.obtener(usuario.getId(), fechaInicio, fechaFin,
+                () -> AgregadorReporte.construirReporte(motorLibrosColumnares.sumarPorTipoYCategoria(usuario, fechaInicio, fechaFin)
+                        .orElseGet(() -> sumarPorTipoYCategoria(usuario, fechaInicio, fechaFin))));
+    }
 
-        // ... resto de la lógica sin cambios ...
-        BigDecimal totalIngresos = transacciones.stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.INGRESO)
-                .map(Transaccion::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Genera la serie temporal de ingresos, egresos, neto y saldo acumulado del usuario autenticado.
+     * Una única consulta devuelve los totales diarios por tipo en orden cronológico, y el reparto en
+     * intervalos se hace en una sola pasada sobre ellos, sea cual sea la granularidad.
+     * El saldo acumulado parte de cero en fechaInicio.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @param granularidad Tamaño de cada intervalo.
+     * @return La SerieTemporalDTO con un punto por intervalo, incluidos los intervalos vacíos.
+     * @throws SolicitudInvalidaException si el rango está invertido o produce demasiados puntos.
+     */
+    @Transactional(readOnly = true)
+    public SerieTemporalDTO generarSerieTemporal(LocalDate fechaInicio, LocalDate fechaFin, Granularidad granularidad) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new SolicitudInvalidaException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        long puntos = AgregadorSerie.contarIntervalos(fechaInicio, fechaFin, granularidad);
+        if (puntos > MAXIMO_PUNTOS_SERIE) {
+            throw new SolicitudInvalidaException("La serie tendría " + puntos + " puntos; el máximo es " + MAXIMO_PUNTOS_SERIE
+                    + ". Reduzca el rango o use una granularidad mayor");
+        }
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
 
-        BigDecimal totalEgresos = transacciones.stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.EGRESO)
-                .map(Transaccion::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return AgregadorSerie.construirSerie(transaccionRepository.sumarPorFechaYTipo(usuario, fechaInicio, fechaFin),
+                fechaInicio, fechaFin, granularidad);
+    }
 
-        BigDecimal balanceNeto = totalIngresos.subtract(totalEgresos);
+    /**
+     * Divide el rango en un tramo de meses completos (resuelto con ResumenMensual)
+     * y, si existen, los días sueltos del principio y del final (resueltos con Transaccion).
+     */
+    private List<TotalPorCategoriaDTO> sumarPorTipoYCategoria(Usuario usuario, LocalDate fechaInicio, LocalDate fechaFin) {
+        LocalDate primerMesCompleto = fechaInicio.getDayOfMonth() == 1
+                ? fechaInicio
+                : fechaInicio.withDayOfMonth(1).plusMonths(1);
+        LocalDate ultimoMesCompleto = fechaFin.getDayOfMonth() == fechaFin.lengthOfMonth()
+                ? fechaFin.withDayOfMonth(1)
+                : fechaFin.withDayOfMonth(1).minusMonths(1);
 
-        Map<String, BigDecimal> gastosPorCategoria = transacciones.stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.EGRESO)
-                .collect(Collectors.groupingBy(
-                        t -> t.getCategoria().getNombre(),
-                        Collectors.mapping(Transaccion::getMonto, Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))
-                ));
+        if (primerMesCompleto.isAfter(ultimoMesCompleto)) {
+            // El rango no contiene ningún mes completo
+            return transaccionRepository.sumarPorTipoYCategoria(usuario, fechaInicio, fechaFin);
+        }
 
-        return new ReporteFinancieroDTO(totalIngresos, totalEgresos, balanceNeto, gastosPorCategoria);
+        List<TotalPorCategoriaDTO> totales = new ArrayList<>(
+                resumenMensualRepository.sumarPorTipoYCategoria(usuario, primerMesCompleto, ultimoMesCompleto));
+        if (fechaInicio.isBefore(primerMesCompleto)) {
+            totales.addAll(transaccionRepository.sumarPorTipoYCategoria(usuario, fechaInicio, primerMesCompleto.minusDays(1)));
+        }
+        LocalDate inicioTramoFinal = ultimoMesCompleto.plusMonths(1);
+        if (!fechaFin.isBefore(inicioTramoFinal)) {
+            totales.addAll(transaccionRepository.sumarPorTipoYCategoria(usuario, inicioTramoFinal, fechaFin));
+        }
+        return totales;
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.evento.CambioTransaccion;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.evento.TransaccionesModificadasEvent;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.ResumenMensualRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Servicio que mantiene la tabla de acumulados mensuales (ResumenMensual).
+ * Escucha los cambios de transacciones y aplica los valores anteriores y nuevos como deltas,
+ * dentro de la misma transacción de base de datos que la escritura original. Cada delta se suma en la base de
+ * datos con una sentencia atómica, sin leer antes la fila, así que las escrituras concurrentes no se pisan.
+ */
+@Service
+public class ResumenMensualService {
+
+    private final ResumenMensualRepository resumenMensualRepository;
+
+    public ResumenMensualService(ResumenMensualRepository resumenMensualRepository) {
+        this.resumenMensualRepository = resumenMensualRepository;
+    }
+
+    /**
+     * Aplica los cambios de transacciones a los acumulados mensuales.
+     * Los deltas se agrupan primero por clave para tocar cada fila una sola vez,
+     * lo que también cubre las altas masivas.
+     * @param evento El evento con los cambios del usuario.
+     */
+    @EventListener
+    public void alModificarTransacciones(TransaccionesModificadasEvent evento) {
+        Map<ClaveResumen, Delta> deltas = new HashMap<>();
+        for (CambioTransaccion cambio : evento.getCambios()) {
+            if (cambio.getAnterior() != null) {
+                acumular(deltas, cambio.getAnterior(), -1);
+            }
+            if (cambio.getNueva() != null) {
+                acumular(deltas, cambio.getNueva(), 1);
+            }
+        }
+        deltas.forEach((clave, delta) -> aplicar(evento.getUsuarioId(), clave, delta));
+    }
+
+    private void acumular(Map<ClaveResumen, Delta> deltas, DatosTransaccion datos, int signo) {
+        ClaveResumen clave = new ClaveResumen(datos.getCategoriaId(), datos.getTipo(), datos.getFecha().withDayOfMonth(1));
+        Delta delta = deltas.computeIfAbsent(clave, k -> new Delta());
+        delta.total = signo > 0 ? delta.total.add(datos.getMonto()) : delta.total.subtract(datos.getMonto());
+        delta.cantidad += signo;
+    }
+
+    private void aplicar(Long usuarioId, ClaveResumen clave, Delta delta) {
+        if (delta.cantidad == 0 && delta.total.signum() == 0) {
+            return; // Una modificación que no cambia ni mes, ni categoría, ni tipo, ni monto
+        }
+
+        resumenMensualRepository.sumarAlResumen(usuarioId, clave.categoriaId(), clave.tipo(), clave.periodo(),
+                delta.total, delta.cantidad);
+        if (delta.cantidad < 0) {
+            // Sin transacciones en el mes: se elimina la fila para no bloquear el borrado de la categoría
+            resumenMensualRepository.eliminarSiVacio(usuarioId, clave.categoriaId(), clave.tipo(), clave.periodo());
+        }
+    }
+
+    private record ClaveResumen(Long categoriaId, TipoTransaccion tipo, LocalDate periodo) {
+    }
+
+    private static final class Delta {
+        private BigDecimal total = BigDecimal.ZERO;
+        private long cantidad;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sellos de invalidación por usuario para las cachés que guardan cálculos que pueden solaparse con una escritura.
+ * Un cálculo toma un sello antes de leer los datos y su resultado solo se guarda si después no ha habido
+ * ninguna invalidación del usuario, por mucho que haya durado el cálculo.
+ * <p>
+ * Se conserva el sello de un número acotado de usuarios. Al olvidar uno se eleva un mínimo común: un cálculo
+ * que empezó antes de una invalidación olvidada ya no se guarda, sea del usuario que sea. Los sellos no caducan
+ * por tiempo, porque un cálculo lento podría empezar antes de una invalidación y terminar cuando esta ya
+ * se hubiera olvidado.
+ */
+public final class SellosInvalidacion {
+
+    private final Cache<Long, Long> invalidaciones;
+    private final AtomicLong secuencia = new AtomicLong();
+    // Sello más alto de las invalidaciones olvidadas
+    private final AtomicLong olvidadasHasta = new AtomicLong();
+
+    /**
+     * @param maximoUsuarios Número de usuarios cuya última invalidación se recuerda.
+     */
+    public SellosInvalidacion(long maximoUsuarios) {
+        // El listener de desalojo se ejecuta dentro de la eliminación: el mínimo se eleva antes de que el sello deje de verse
+        this.invalidaciones = Caffeine.newBuilder()
+                .maximumSize(maximoUsuarios)
+                .evictionListener((Long usuarioId, Long sello, RemovalCause causa) -> olvidadasHasta.accumulateAndGet(sello, Math::max))
+                .build();
+    }
+
+    /**
+     * Toma el sello de un cálculo. Debe llamarse antes de leer los datos.
+     * @return El sello del cálculo.
+     */
+    public long sellar() {
+        return secuencia.incrementAndGet();
+    }
+
+    /**
+     * Registra una invalidación de los datos del usuario. Debe llamarse antes de descartar sus entradas cacheadas.
+     * @param usuarioId El ID del usuario cuyos datos cambiaron.
+     */
+    public void invalidar(Long usuarioId) {
+        invalidaciones.put(usuarioId, secuencia.incrementAndGet());
+    }
+
+    /**
+     * Indica si el resultado de un cálculo se puede guardar: no ha habido invalidaciones del usuario desde su sello.
+     * Para que una invalidación concurrente no se pierda, el llamante debe volver a comprobarlo después de
+     * guardar el resultado y retirarlo si ha dejado de ser vigente.
+     * @param usuarioId El ID del usuario.
+     * @param sello El sello tomado antes del cálculo.
+     * @return true si el resultado sigue siendo vigente.
+     */
+    public boolean esVigente(Long usuarioId, long sello) {
+        Long invalidadoEn = invalidaciones.getIfPresent(usuarioId);
+        // El mínimo se lee después del sello del usuario, por si este se olvida entre las dos lecturas
+        return (invalidadoEn == null || sello > invalidadoEn) && sello > olvidadasHasta.get();
+    }
+}
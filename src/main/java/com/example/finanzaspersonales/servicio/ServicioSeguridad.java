@@ -1,6 +1,10 @@
 package com.example.finanzaspersonales.servicio;
 
 import com.example.finanzaspersonales.exception.AccesoDenegadoException;
+import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.UsuarioRepository;
+import com.example.finanzaspersonales.seguridad.UsuarioAutenticado;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,20 +18,48 @@ import org.springframework.stereotype.Service;
 @Service
 public class ServicioSeguridad {
 
+    private final UsuarioRepository usuarioRepository;
+
+    public ServicioSeguridad(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    /**
+     * Obtiene el usuario actualmente autenticado.
+     * Si el principal es un UsuarioAutenticado (el caso normal, cargado por el filtro JWT) se devuelve
+     * una referencia por su ID sin consultar la base de datos; en otro caso se busca por nombre.
+     * @return El usuario autenticado (puede ser un proxy sin inicializar).
+     * @throws AccesoDenegadoException Si no hay un usuario autenticado en el contexto.
+     * @throws RecursoNoEncontradoException Si el usuario autenticado no existe.
+     */
+    public Usuario obtenerUsuarioAutenticado() {
+        Object principal = obtenerAutenticacion().getPrincipal();
+        if (principal instanceof UsuarioAutenticado usuarioAutenticado) {
+            return usuarioRepository.getReferenceById(usuarioAutenticado.getId());
+        }
+        String nombreUsuario = obtenerNombreUsuarioAutenticado();
+        return usuarioRepository.buscarPorNombreUsuario(nombreUsuario)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado con nombre: " + nombreUsuario));
+    }
+
     /**
      * Obtiene el nombre de usuario del usuario actualmente autenticado.
      * @return El nombre de usuario autenticado.
      * @throws AccesoDenegadoException Si no hay un usuario autenticado en el contexto.
      */
     public String obtenerNombreUsuarioAutenticado() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
-            throw new AccesoDenegadoException("No hay un usuario autenticado o la sesión ha expirado.");
-        }
-        Object principal = authentication.getPrincipal();
+        Object principal = obtenerAutenticacion().getPrincipal();
         if (principal instanceof UserDetails) {
             return ((UserDetails) principal).getUsername();
         }
         return principal.toString();
     }
+
+    private Authentication obtenerAutenticacion() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
+            throw new AccesoDenegadoException("No hay un usuario autenticado o la sesión ha expirado.");
+        }
+        return authentication;
+    }
 }
\ No newline at end of file
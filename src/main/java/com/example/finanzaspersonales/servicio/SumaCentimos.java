@@ -0,0 +1,81 @@
+package com.example.finanzaspersonales.servicio;
+
+import java.math.BigDecimal;
+
+/**
+ * Acumulador de importes en céntimos sobre un long, para sumar muchas filas sin crear un BigDecimal por fila.
+ * Lleva la escala máxima de los sumandos para que el resultado sea idéntico, valor y escala incluidos,
+ * al de encadenar BigDecimal.ZERO.add(...). Si un sumando tiene más de dos decimales (o escala negativa)
+ * o la suma desborda un long, continúa en BigDecimal desde ese punto sin perder precisión.
+ */
+public final class SumaCentimos {
+
+    private static final int ESCALA_CENTIMOS = 2;
+    // Factor que lleva a céntimos un valor sin escalar según su escala (0 o 1)
+    private static final long[] FACTORES = {100, 10};
+
+    private long centimos;
+    private int escala; // Escala máxima de los sumandos; 0 como la de BigDecimal.ZERO
+    private BigDecimal desbordada; // No nulo cuando la suma ya no se lleva en céntimos
+
+    /**
+     * Suma un importe.
+     * @param valor El importe a sumar.
+     * @return Este acumulador, para encadenar llamadas.
+     */
+    public SumaCentimos sumar(BigDecimal valor) {
+        if (desbordada != null) {
+            desbordada = desbordada.add(valor);
+            return this;
+        }
+        int escalaValor = valor.scale();
+        if (escalaValor >= 0 && escalaValor <= ESCALA_CENTIMOS) {
+            try {
+                // El BigInteger intermedio no escapa del método, por lo que el JIT puede evitar crearlo
+                long sinEscala = valor.unscaledValue().longValueExact();
+                long enCentimos = escalaValor == ESCALA_CENTIMOS ? sinEscala : Math.multiplyExact(sinEscala, FACTORES[escalaValor]);
+                centimos = Math.addExact(centimos, enCentimos);
+                escala = Math.max(escala, escalaValor);
+                return this;
+            } catch (ArithmeticException e) {
+                // No cabe en un long: sigue en BigDecimal
+            }
+        }
+        desbordada = aBigDecimal().add(valor);
+        return this;
+    }
+
+    /**
+     * Suma el contenido de otro acumulador.
+     * @param otra El acumulador a sumar.
+     * @return Este acumulador, para encadenar llamadas.
+     */
+    public SumaCentimos sumar(SumaCentimos otra) {
+        if (desbordada == null && otra.desbordada == null) {
+            try {
+                centimos = Math.addExact(centimos, otra.centimos);
+                escala = Math.max(escala, otra.escala);
+                return this;
+            } catch (ArithmeticException e) {
+                // Sigue en BigDecimal
+            }
+        }
+        desbordada = aBigDecimal().add(otra.aBigDecimal());
+        return this;
+    }
+
+    /**
+     * Convierte la suma en BigDecimal. Solo crea objetos en esta llamada.
+     * @return La suma con la misma escala que tendría sumando con BigDecimal, o BigDecimal.ZERO si está vacía.
+     */
+    public BigDecimal aBigDecimal() {
+        if (desbordada != null) {
+            return desbordada;
+        }
+        if (centimos == 0 && escala == 0) {
+            return BigDecimal.ZERO;
+        }
+        // Exacta: todos los sumandos tienen como mucho "escala" decimales
+        return BigDecimal.valueOf(centimos, ESCALA_CENTIMOS).setScale(escala);
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.EstadoTrabajoReporte;
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.TrabajoReporteDTO;
+import com.example.finanzaspersonales.exception.LimiteExcedidoException;
+import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.exception.TrabajoNoTerminadoException;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de reportes financieros asíncronos para rangos muy grandes.
+ * Cada trabajo se ejecuta en un pool acotado, separado de los hilos de Tomcat, con el cálculo de
+ * {@link ReporteService}. El usuario se resuelve al encolar el trabajo, por lo que el hilo de fondo
+ * no necesita el contexto de seguridad. Cada usuario puede tener un número limitado de trabajos
+ * pendientes o en curso, y los trabajos terminados se conservan durante un tiempo para recoger el resultado.
+ * Ese tiempo cuenta desde que el trabajo termina: uno pendiente o en curso no caduca, por mucho que espere en la cola.
+ */
+@Slf4j
+@Service
+public class TrabajoReporteService {
+
+    private static final Duration SIN_CADUCIDAD = Duration.ofNanos(Long.MAX_VALUE);
+
+    private final ReporteService reporteService;
+    private final ServicioSeguridad servicioSeguridad;
+    private final int maximoPorUsuario;
+
+    // Trabajos simultáneos acotados: si la cola se llena se rechaza la petición en lugar de encolarla sin límite
+    private final ThreadPoolExecutor ejecutor;
+    private final Cache<String, Trabajo> trabajos;
+    // Trabajos pendientes o en curso por usuario
+    private final ConcurrentHashMap<Long, Integer> activosPorUsuario = new ConcurrentHashMap<>();
+
+    public TrabajoReporteService(ReporteService reporteService,
+                                 ServicioSeguridad servicioSeguridad,
+                                 @Value("${finanzas.reportes.trabajos.hilos:2}") int hilos,
+                                 @Value("${finanzas.reportes.trabajos.cola:32}") int cola,
+                                 @Value("${finanzas.reportes.trabajos.maximo-por-usuario:2}") int maximoPorUsuario,
+                                 @Value("${finanzas.reportes.trabajos.retencion:1h}") Duration retencion) {
+        this.reporteService = reporteService;
+        this.servicioSeguridad = servicioSeguridad;
+        this.maximoPorUsuario = maximoPorUsuario;
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), new ThreadPoolExecutor.AbortPolicy());
+        // La caducidad se recalcula en cada escritura; ejecutar() vuelve a escribir el trabajo al terminarlo
+        this.trabajos = Caffeine.newBuilder()
+                .expireAfter(Expiry.writing((String id, Trabajo trabajo) -> trabajo.haTerminado() ? retencion : SIN_CADUCIDAD))
+                .build();
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Encola un reporte financiero del usuario autenticado.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @return El estado inicial del trabajo, con el ID para consultar su estado y su resultado.
+     * @throws SolicitudInvalidaException si la fecha de inicio es posterior a la de fin.
+     * @throws LimiteExcedidoException si el usuario ya tiene demasiados trabajos activos o el servidor no admite más.
+     */
+    public TrabajoReporteDTO encolarReporteFinanciero(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio.isAfter(fechaFin)) {
+            throw new SolicitudInvalidaException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        if (!reservarPlaza(usuario.getId())) {
+            throw new LimiteExcedidoException("Ya tiene " + maximoPorUsuario + " reportes en curso. Espere a que terminen.");
+        }
+
+        Trabajo trabajo = new Trabajo(UUID.randomUUID().toString(), usuario.getId(), fechaInicio, fechaFin);
+        trabajos.put(trabajo.id, trabajo);
+        try {
+            ejecutor.execute(() -> ejecutar(trabajo, usuario));
+        } catch (RejectedExecutionException e) {
+            trabajos.invalidate(trabajo.id);
+            liberarPlaza(usuario.getId());
+            throw new LimiteExcedidoException("Hay demasiados reportes en curso. Inténtelo de nuevo más tarde.");
+        }
+        return trabajo.aDTO();
+    }
+
+    /**
+     * Obtiene el estado de un trabajo del usuario autenticado.
+     * @param id El ID del trabajo.
+     * @return El estado del trabajo.
+     * @throws RecursoNoEncontradoException si el trabajo no existe, ha caducado o pertenece a otro usuario.
+     */
+    public TrabajoReporteDTO obtenerTrabajo(String id) {
+        return buscar(id).aDTO();
+    }
+
+    /**
+     * Obtiene el resultado de un trabajo terminado del usuario autenticado.
+     * @param id El ID del trabajo.
+     * @return El reporte financiero calculado.
+     * @throws RecursoNoEncontradoException si el trabajo no existe, ha caducado o pertenece a otro usuario.
+     * @throws TrabajoNoTerminadoException si el trabajo todavía no ha terminado o ha fallado.
+     */
+    public ReporteFinancieroDTO obtenerResultado(String id) {
+        Trabajo trabajo = buscar(id);
+        synchronized (trabajo) {
+            if (trabajo.estado != EstadoTrabajoReporte.COMPLETADO) {
+                throw new TrabajoNoTerminadoException("El reporte no está disponible: estado " + trabajo.estado + ".");
+            }
+            return trabajo.resultado;
+        }
+    }
+
+    private Trabajo buscar(String id) {
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+        Trabajo trabajo = trabajos.getIfPresent(id);
+        if (trabajo == null || !trabajo.usuarioId.equals(usuario.getId())) {
+            throw new RecursoNoEncontradoException("Trabajo de reporte no encontrado o no pertenece a este usuario.");
+        }
+        return trabajo;
+    }
+
+    private void ejecutar(Trabajo trabajo, Usuario usuario) {
+        ReporteFinancieroDTO reporte = null;
+        RuntimeException fallo = null;
+        try {
+            trabajo.iniciar();
+            reporte = reporteService.generarReporteFinancieroDeUsuario(usuario, trabajo.fechaInicio, trabajo.fechaFin);
+        } catch (RuntimeException e) {
+            log.warn("Trabajo de reporte {} fallido", trabajo.id, e);
+            fallo = e;
+        } finally {
+            // La plaza se libera antes de publicar el estado final: quien vea el trabajo terminado ya puede encolar otro
+            liberarPlaza(usuario.getId());
+        }
+        if (fallo == null) {
+            trabajo.completar(reporte);
+        } else {
+            trabajo.fallar(fallo.getMessage());
+        }
+        // Se vuelve a escribir para que la retención empiece a contar ahora que el trabajo ha terminado
+        trabajos.put(trabajo.id, trabajo);
+    }
+
+    private boolean reservarPlaza(Long usuarioId) {
+        if (activosPorUsuario.merge(usuarioId, 1, Integer::sum) > maximoPorUsuario) {
+            liberarPlaza(usuarioId);
+            return false;
+        }
+        return true;
+    }
+
+    private void liberarPlaza(Long usuarioId) {
+        // Se elimina la entrada al llegar a cero para no acumular un contador por cada usuario que ha pedido un reporte
+        activosPorUsuario.computeIfPresent(usuarioId, (id, activos) -> activos <= 1 ? null : activos - 1);
+    }
+
+    /**
+     * Estado mutable de un trabajo, compartido entre el hilo que lo ejecuta y las consultas de estado.
+     */
+    private static final class Trabajo {
+
+        private final String id;
+        private final Long usuarioId;
+        private final LocalDate fechaInicio;
+        private final LocalDate fechaFin;
+        private final Instant creado = Instant.now();
+        private EstadoTrabajoReporte estado = EstadoTrabajoReporte.PENDIENTE;
+        private Instant terminado;
+        private String error;
+        private ReporteFinancieroDTO resultado;
+
+        Trabajo(String id, Long usuarioId, LocalDate fechaInicio, LocalDate fechaFin) {
+            this.id = id;
+            this.usuarioId = usuarioId;
+            this.fechaInicio = fechaInicio;
+            this.fechaFin = fechaFin;
+        }
+
+        synchronized void iniciar() {
+            estado = EstadoTrabajoReporte.EN_CURSO;
+        }
+
+        synchronized void completar(ReporteFinancieroDTO reporte) {
+            resultado = reporte;
+            estado = EstadoTrabajoReporte.COMPLETADO;
+            terminado = Instant.now();
+        }
+
+        synchronized void fallar(String mensaje) {
+            error = mensaje;
+            estado = EstadoTrabajoReporte.FALLIDO;
+            terminado = Instant.now();
+        }
+
+        synchronized boolean haTerminado() {
+            return terminado != null;
+        }
+
+        synchronized TrabajoReporteDTO aDTO() {
+            return new TrabajoReporteDTO(id, estado, fechaInicio, fechaFin, creado, terminado, error);
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.example.finanzaspersonales.servicio;
 
+import com.example.finanzaspersonales.dto.operaciones.FiltroTransaccionesDTO;
+import com.example.finanzaspersonales.dto.operaciones.OrdenTransacciones;
 import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.dto.paginacion.PaginaDTO;
+import com.example.finanzaspersonales.evento.CambioTransaccion;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.evento.TransaccionesModificadasEvent;
 import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
 import com.example.finanzaspersonales.mapper.TransaccionMapper;
 import com.example.finanzaspersonales.modelo.Categoria;
 import com.example.finanzaspersonales.modelo.Transaccion;
 import com.example.finanzaspersonales.modelo.Usuario;
 import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import com.example.finanzaspersonales.repositorio.EspecificacionesTransaccion;
 import com.example.finanzaspersonales.repositorio.TransaccionRepository;
-import com.example.finanzaspersonales.repositorio.UsuarioRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -22,29 +39,27 @@ import java.util.stream.Collectors;
 @Service
 public class TransaccionService {
 
+    static final int TAMANO_PAGINA_MAXIMO = 500;
+
     private final TransaccionRepository transaccionRepository;
-    private final UsuarioRepository usuarioRepository;
     private final CategoriaRepository categoriaRepository;
+    private final CategoriasUsuarioCache categoriasUsuarioCache;
     private final TransaccionMapper transaccionMapper;
     private final ServicioSeguridad servicioSeguridad; // 1. Inyectar el servicio de seguridad
+    private final ApplicationEventPublisher eventPublisher;
 
     public TransaccionService(TransaccionRepository transaccionRepository,
-                              UsuarioRepository usuarioRepository,
                               CategoriaRepository categoriaRepository,
+                              CategoriasUsuarioCache categoriasUsuarioCache,
                               TransaccionMapper transaccionMapper,
-                              ServicioSeguridad servicioSeguridad) { // 2. Añadir al constructor
+                              ServicioSeguridad servicioSeguridad,
+                              ApplicationEventPublisher eventPublisher) { // 2. Añadir al constructor
         this.transaccionRepository = transaccionRepository;
-        this.usuarioRepository = usuarioRepository;
         this.categoriaRepository = categoriaRepository;
+        this.categoriasUsuarioCache = categoriasUsuarioCache;
         this.transaccionMapper = transaccionMapper;
         this.servicioSeguridad = servicioSeguridad;
-    }
-
-    // 3. Centralizar la obtención del usuario en un método privado
-    private Usuario obtenerUsuarioAutenticado() {
-        String nombreUsuario = servicioSeguridad.obtenerNombreUsuarioAutenticado();
-        return usuarioRepository.findByNombreUsuario(nombreUsuario)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Usuario no encontrado con nombre: " + nombreUsuario));
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -55,20 +70,72 @@ public class TransaccionService {
      */
     @Transactional
     public TransaccionDTO crearTransaccion(TransaccionDTO transaccionDTO) {
-        Usuario usuario = obtenerUsuarioAutenticado(); // 4. Usar el método centralizado
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado(); // 4. Usar el método centralizado
 
-        Categoria categoria = categoriaRepository.findByIdAndUsuario(transaccionDTO.getCategoriaId(), usuario)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada o no pertenece a este usuario."));
+        Categoria categoria = obtenerCategoriaDelUsuario(usuario, transaccionDTO.getCategoriaId());
 
         Transaccion transaccion = transaccionMapper.aTransaccion(transaccionDTO);
-        // La entidad Transaccion no tiene una relación directa con Usuario, se infiere a través de Categoria.
-        // Si se quisiera una relación directa, se debería añadir a la entidad Transaccion.
-        // Por ahora, la seguridad se garantiza porque la categoría pertenece al usuario.
+        // La categoría ya se ha comprobado que pertenece al usuario; el propietario se copia en la transacción
+        // para que las consultas filtren por usuario_id sin unir con categorias.
         transaccion.setCategoria(categoria);
+        transaccion.setUsuario(usuario);
         transaccion = transaccionRepository.save(transaccion);
+        publicarCambio(usuario, CambioTransaccion.alta(DatosTransaccion.de(transaccion)));
         return transaccionMapper.aTransaccionDTO(transaccion);
     }
 
+    /**
+     * Crea un lote de transacciones para el usuario autenticado.
+     * @param transaccionesDTO Los DTOs de las transacciones a crear.
+     * @return Los TransaccionDTO de las transacciones creadas, en el mismo orden.
+     * @throws RecursoNoEncontradoException si alguna categoría no existe o no pertenece al usuario.
+     */
+    @Transactional
+    public List<TransaccionDTO> crearTransacciones(List<TransaccionDTO> transaccionesDTO) {
+        return crearTransaccionesDeUsuario(servicioSeguridad.obtenerUsuarioAutenticado(), transaccionesDTO);
+    }
+
+    /**
+     * Crea un lote de transacciones para un usuario dado.
+     * La propiedad de todas las categorías se valida contra la caché de categorías del usuario y las inserciones
+     * se envían a la base de datos en lotes JDBC (hibernate.jdbc.batch_size).
+     * Si alguna categoría no pertenece al usuario no se crea ninguna transacción del lote.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param transaccionesDTO Los DTOs de las transacciones a crear.
+     * @return Los TransaccionDTO de las transacciones creadas, en el mismo orden.
+     * @throws RecursoNoEncontradoException si alguna categoría no existe o no pertenece al usuario.
+     */
+    @Transactional
+    public List<TransaccionDTO> crearTransaccionesDeUsuario(Usuario usuario, List<TransaccionDTO> transaccionesDTO) {
+        Set<Long> categoriaIds = transaccionesDTO.stream()
+                .map(TransaccionDTO::getCategoriaId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<Long> ajenas = categoriasUsuarioCache.ajenas(usuario, categoriaIds);
+        if (!ajenas.isEmpty()) {
+            throw new RecursoNoEncontradoException("Categorías no encontradas o no pertenecen a este usuario: " + ajenas);
+        }
+        Map<Long, Categoria> categorias = categoriaIds.stream()
+                .collect(Collectors.toMap(Function.identity(), categoriaRepository::getReferenceById));
+
+        List<Transaccion> transacciones = new ArrayList<>(transaccionesDTO.size());
+        for (TransaccionDTO transaccionDTO : transaccionesDTO) {
+            Transaccion transaccion = transaccionMapper.aTransaccion(transaccionDTO);
+            transaccion.setCategoria(categorias.get(transaccionDTO.getCategoriaId()));
+            transaccion.setUsuario(usuario);
+            transacciones.add(transaccion);
+        }
+        transacciones = transaccionRepository.saveAll(transacciones);
+
+        List<CambioTransaccion> cambios = transacciones.stream()
+                .map(t -> CambioTransaccion.alta(DatosTransaccion.de(t)))
+                .collect(Collectors.toList());
+        eventPublisher.publishEvent(new TransaccionesModificadasEvent(usuario.getId(), cambios));
+
+        return transacciones.stream()
+                .map(transaccionMapper::aTransaccionDTO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Obtiene una transacción por su ID, asegurando que pertenezca al usuario autenticado.
      * @param id El ID de la transacción.
@@ -77,7 +144,7 @@ public class TransaccionService {
      */
     @Transactional(readOnly = true)
     public TransaccionDTO obtenerTransaccionPorId(Long id) {
-        Usuario usuario = obtenerUsuarioAutenticado();
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
 
         Transaccion transaccion = transaccionRepository.findByIdAndUsuario(id, usuario)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Transacción no encontrada o no pertenece a este usuario."));
@@ -90,14 +157,134 @@ public class TransaccionService {
      */
     @Transactional(readOnly = true)
     public List<TransaccionDTO> obtenerTransaccionesDelUsuario() {
-        Usuario usuario = obtenerUsuarioAutenticado();
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
 
-        List<Transaccion> transacciones = transaccionRepository.findByCategoriaUsuario(usuario);
+        List<Transaccion> transacciones = transaccionRepository.findByUsuario(usuario);
         return transacciones.stream()
                 .map(transaccionMapper::aTransaccionDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Obtiene una página de transacciones del usuario autenticado, de la más reciente a la más antigua.
+     * La paginación es por conjunto de claves (fecha, id): el cursor codifica la última fila devuelta.
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página.
+     * @param tamano Número de transacciones por página (entre 1 y TAMANO_PAGINA_MAXIMO).
+     * @return La página de TransaccionDTOs y el cursor de la siguiente, si existe.
+     * @throws SolicitudInvalidaException si el tamaño está fuera de rango o el cursor no es válido.
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<TransaccionDTO> obtenerPaginaDeTransacciones(String cursor, int tamano) {
+        if (tamano < 1 || tamano > TAMANO_PAGINA_MAXIMO) {
+            throw new SolicitudInvalidaException("El tamaño de página debe estar entre 1 y " + TAMANO_PAGINA_MAXIMO + ".");
+        }
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+
+        // Se pide una fila extra para saber si existe una página siguiente
+        Limit limite = Limit.of(tamano + 1);
+        List<Transaccion> transacciones;
+        if (cursor == null || cursor.isBlank()) {
+            transacciones = transaccionRepository.buscarPrimeraPagina(usuario, limite);
+        } else {
+            String[] clave = CodificadorCursor.decodificar(cursor, 2);
+            transacciones = transaccionRepository.buscarPaginaDespuesDe(usuario, CodificadorCursor.leerFecha(clave[0]), CodificadorCursor.leerLong(clave[1]), limite);
+        }
+
+        return construirPagina(transacciones, tamano,
+                ultima -> CodificadorCursor.codificar(ultima.getFecha().toString(), ultima.getId().toString()));
+    }
+
+    /**
+     * Busca transacciones del usuario autenticado con filtros opcionales, ordenadas y paginadas por clave.
+     * La consulta incluye solo los criterios presentes en el filtro, de modo que la base de datos filtra y
+     * ordena sobre los índices de transacciones en lugar de devolver el historial completo al cliente.
+     * @param filtro Los criterios de búsqueda y el orden.
+     * @param cursor Cursor devuelto por la página anterior de la misma búsqueda, o null para la primera página.
+     * @param tamano Número de transacciones por página (entre 1 y TAMANO_PAGINA_MAXIMO).
+     * @return La página de TransaccionDTOs y el cursor de la siguiente, si existe.
+     * @throws SolicitudInvalidaException si un rango está invertido, el tamaño está fuera de rango o el cursor no es válido.
+     */
+    @Transactional(readOnly = true)
+    public PaginaDTO<TransaccionDTO> buscarTransacciones(FiltroTransaccionesDTO filtro, String cursor, int tamano) {
+        if (tamano < 1 || tamano > TAMANO_PAGINA_MAXIMO) {
+            throw new SolicitudInvalidaException("El tamaño de página debe estar entre 1 y " + TAMANO_PAGINA_MAXIMO + ".");
+        }
+        if (filtro.getFechaDesde() != null && filtro.getFechaHasta() != null && filtro.getFechaDesde().isAfter(filtro.getFechaHasta())) {
+            throw new SolicitudInvalidaException("La fecha inicial no puede ser posterior a la fecha final.");
+        }
+        if (filtro.getMontoMinimo() != null && filtro.getMontoMaximo() != null && filtro.getMontoMinimo().compareTo(filtro.getMontoMaximo()) > 0) {
+            throw new SolicitudInvalidaException("El monto mínimo no puede ser mayor que el monto máximo.");
+        }
+        OrdenTransacciones orden = filtro.getOrden() != null ? filtro.getOrden() : OrdenTransacciones.FECHA_DESC;
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
+
+        Specification<Transaccion> criterios = construirCriterios(usuario, filtro);
+        if (cursor != null && !cursor.isBlank()) {
+            // El cursor lleva el orden con el que se generó: la clave (valor, id) solo tiene sentido en ese orden
+            String[] clave = CodificadorCursor.decodificar(cursor, 3);
+            if (!orden.name().equals(clave[0])) {
+                throw new SolicitudInvalidaException("El cursor de paginación no corresponde al orden solicitado.");
+            }
+            Long id = CodificadorCursor.leerLong(clave[2]);
+            criterios = criterios.and(switch (orden) {
+                case FECHA_DESC, FECHA_ASC -> EspecificacionesTransaccion.despuesDe(
+                        orden.getCampo(), CodificadorCursor.leerFecha(clave[1]), id, orden.isDescendente());
+                case MONTO_DESC, MONTO_ASC -> EspecificacionesTransaccion.despuesDe(
+                        orden.getCampo(), CodificadorCursor.leerDecimal(clave[1]), id, orden.isDescendente());
+            });
+        }
+
+        Sort.Direction direccion = orden.isDescendente() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort ordenacion = Sort.by(direccion, orden.getCampo(), "id");
+        // Se pide una fila extra para saber si existe una página siguiente; sin consulta COUNT
+        List<Transaccion> transacciones = transaccionRepository.findBy(criterios,
+                (FluentQuery.FetchableFluentQuery<Transaccion> consulta) -> consulta.sortBy(ordenacion).limit(tamano + 1).all());
+
+        return construirPagina(transacciones, tamano, ultima -> CodificadorCursor.codificar(orden.name(),
+                switch (orden) {
+                    case FECHA_DESC, FECHA_ASC -> ultima.getFecha().toString();
+                    case MONTO_DESC, MONTO_ASC -> ultima.getMonto().toPlainString();
+                },
+                ultima.getId().toString()));
+    }
+
+    private static Specification<Transaccion> construirCriterios(Usuario usuario, FiltroTransaccionesDTO filtro) {
+        Specification<Transaccion> criterios = EspecificacionesTransaccion.delUsuario(usuario);
+        if (filtro.getFechaDesde() != null) {
+            criterios = criterios.and(EspecificacionesTransaccion.fechaDesde(filtro.getFechaDesde()));
+        }
+        if (filtro.getFechaHasta() != null) {
+            criterios = criterios.and(EspecificacionesTransaccion.fechaHasta(filtro.getFechaHasta()));
+        }
+        if (filtro.getTipo() != null) {
+            criterios = criterios.and(EspecificacionesTransaccion.deTipo(filtro.getTipo()));
+        }
+        if (filtro.getMontoMinimo() != null) {
+            criterios = criterios.and(EspecificacionesTransaccion.montoMinimo(filtro.getMontoMinimo()));
+        }
+        if (filtro.getMontoMaximo() != null) {
+            criterios = criterios.and(EspecificacionesTransaccion.montoMaximo(filtro.getMontoMaximo()));
+        }
+        if (filtro.getCategoriaIds() != null && !filtro.getCategoriaIds().isEmpty()) {
+            criterios = criterios.and(EspecificacionesTransaccion.enCategorias(filtro.getCategoriaIds()));
+        }
+        if (filtro.getDescripcion() != null && !filtro.getDescripcion().isBlank()) {
+            criterios = criterios.and(EspecificacionesTransaccion.descripcionContiene(filtro.getDescripcion().strip()));
+        }
+        return criterios;
+    }
+
+    /**
+     * Recorta la fila extra pedida a la base de datos y, si existía, genera el cursor a partir de la última fila de la página.
+     */
+    private PaginaDTO<TransaccionDTO> construirPagina(List<Transaccion> transacciones, int tamano,
+                                                      Function<Transaccion, String> cursorDe) {
+        boolean hayMas = transacciones.size() > tamano;
+        List<Transaccion> pagina = hayMas ? transacciones.subList(0, tamano) : transacciones;
+        String siguienteCursor = hayMas ? cursorDe.apply(pagina.get(pagina.size() - 1)) : null;
+        return new PaginaDTO<>(pagina.stream().map(transaccionMapper::aTransaccionDTO).collect(Collectors.toList()), siguienteCursor);
+    }
+
     /**
      * Actualiza una transacción existente, asegurando que pertenezca al usuario autenticado.
      * @param id El ID de la transacción a actualizar.
@@ -107,17 +294,18 @@ public class TransaccionService {
      */
     @Transactional
     public TransaccionDTO actualizarTransaccion(Long id, TransaccionDTO transaccionDTO) {
-        Usuario usuario = obtenerUsuarioAutenticado();
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
 
         Transaccion transaccionExistente = transaccionRepository.findByIdAndUsuario(id, usuario)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Transacción no encontrada o no pertenece a este usuario."));
 
-        Categoria nuevaCategoria = categoriaRepository.findByIdAndUsuario(transaccionDTO.getCategoriaId(), usuario)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Categoría no encontrada o no pertenece a este usuario."));
+        Categoria nuevaCategoria = obtenerCategoriaDelUsuario(usuario, transaccionDTO.getCategoriaId());
 
+        DatosTransaccion anterior = DatosTransaccion.de(transaccionExistente);
         transaccionMapper.actualizarTransaccionDesdeDTO(transaccionDTO, transaccionExistente);
         transaccionExistente.setCategoria(nuevaCategoria); // Actualiza la categoría
         transaccionExistente = transaccionRepository.save(transaccionExistente);
+        publicarCambio(usuario, CambioTransaccion.modificacion(anterior, DatosTransaccion.de(transaccionExistente)));
         return transaccionMapper.aTransaccionDTO(transaccionExistente);
     }
 
@@ -128,11 +316,33 @@ public class TransaccionService {
      */
     @Transactional
     public void eliminarTransaccion(Long id) {
-        Usuario usuario = obtenerUsuarioAutenticado();
+        Usuario usuario = servicioSeguridad.obtenerUsuarioAutenticado();
 
         Transaccion transaccion = transaccionRepository.findByIdAndUsuario(id, usuario)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Transacción no encontrada o no pertenece a este usuario."));
 
         transaccionRepository.delete(transaccion);
+        publicarCambio(usuario, CambioTransaccion.baja(DatosTransaccion.de(transaccion)));
+    }
+
+    /**
+     * Comprueba en la caché que la categoría pertenece al usuario y devuelve una referencia a ella sin consultarla:
+     * de la categoría la transacción solo necesita el ID. Si se borrara entre la comprobación y la inserción,
+     * la clave foránea rechazaría la escritura.
+     * @throws RecursoNoEncontradoException si la categoría no existe o no pertenece al usuario.
+     */
+    private Categoria obtenerCategoriaDelUsuario(Usuario usuario, Long categoriaId) {
+        if (categoriaId == null || !categoriasUsuarioCache.pertenece(usuario, categoriaId)) {
+            throw new RecursoNoEncontradoException("Categoría no encontrada o no pertenece a este usuario.");
+        }
+        return categoriaRepository.getReferenceById(categoriaId);
+    }
+
+    /**
+     * Publica los cambios para que los oyentes (p. ej. los acumulados mensuales) se actualicen
+     * dentro de la misma transacción.
+     */
+    private void publicarCambio(Usuario usuario, CambioTransaccion cambio) {
+        eventPublisher.publishEvent(new TransaccionesModificadasEvent(usuario.getId(), List.of(cambio)));
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.example.finanzaspersonales.dto.autenticacion.TokenDTO;
 import com.example.finanzaspersonales.dto.autenticacion.UsuarioLoginDTO;
 import com.example.finanzaspersonales.dto.autenticacion.UsuarioRegistroDTO;
 import com.example.finanzaspersonales.exception.RecursoNoEncontradoException; // Importar excepción
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
 import com.example.finanzaspersonales.mapper.UsuarioMapper;
 import com.example.finanzaspersonales.modelo.Rol; // Importar Rol
 import com.example.finanzaspersonales.modelo.Usuario;
@@ -31,16 +32,19 @@ public class UsuarioService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final UsuarioMapper usuarioMapper;
+    private final VersionDatosService versionDatosService;
 
     public UsuarioService(UsuarioRepository usuarioRepository, RolRepository rolRepository, // 2. Añadir al constructor
                           PasswordEncoder passwordEncoder, JwtService jwtService,
-                          AuthenticationManager authenticationManager, UsuarioMapper usuarioMapper) {
+                          AuthenticationManager authenticationManager, UsuarioMapper usuarioMapper,
+                          VersionDatosService versionDatosService) {
         this.usuarioRepository = usuarioRepository;
         this.rolRepository = rolRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
         this.usuarioMapper = usuarioMapper;
+        this.versionDatosService = versionDatosService;
     }
 
     /**
@@ -48,13 +52,13 @@ public class UsuarioService {
      * Codifica la contraseña y asigna el rol de usuario por defecto.
      * @param usuarioRegistroDTO DTO con la información del nuevo usuario.
      * @return El usuario registrado (sin la contraseña en texto plano).
-     * @throws IllegalArgumentException si el nombre de usuario ya existe.
+     * @throws SolicitudInvalidaException si el nombre de usuario ya existe.
      * @throws RecursoNoEncontradoException si el rol por defecto 'ROLE_USER' no se encuentra en la base de datos.
      */
     @Transactional
     public UsuarioRegistroDTO registrarUsuario(UsuarioRegistroDTO usuarioRegistroDTO) {
         if (usuarioRepository.existsByNombreUsuario(usuarioRegistroDTO.getNombreUsuario())) {
-            throw new IllegalArgumentException("El nombre de usuario ya existe.");
+            throw new SolicitudInvalidaException("El nombre de usuario ya existe.");
         }
 
         // 3. Buscar la entidad Rol en la base de datos
@@ -67,7 +71,8 @@ public class UsuarioService {
         // 4. Asignar el Set que contiene la entidad Rol
         nuevoUsuario.setRoles(Set.of(rolUsuario));
 
-        usuarioRepository.save(nuevoUsuario);
+        nuevoUsuario = usuarioRepository.save(nuevoUsuario);
+        versionDatosService.inicializar(nuevoUsuario.getId());
         return usuarioRegistroDTO;
     }
 
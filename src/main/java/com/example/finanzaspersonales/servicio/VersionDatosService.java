@@ -0,0 +1,109 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.evento.EventoDatosUsuario;
+import com.example.finanzaspersonales.modelo.VersionDatos;
+import com.example.finanzaspersonales.repositorio.VersionDatosRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Servicio que mantiene la versión de los datos de cada usuario y calcula con ella los ETags
+ * de sus listados y reportes. La versión se incrementa dentro de la transacción de cada escritura
+ * de TransaccionService y CategoriaService, así que un ETag cambia exactamente cuando cambian los datos.
+ *
+ * Las cachés en memoria (reportes, motor columnar) se invalidan después del commit. Mientras una escritura
+ * del usuario no ha terminado de invalidarlas no se ofrece ETag: de lo contrario un reporte antiguo
+ * podría quedar asociado a la versión nueva y el cliente recibiría 304 hasta la siguiente escritura.
+ */
+@Service
+public class VersionDatosService {
+
+    private final VersionDatosRepository versionDatosRepository;
+    private final ServicioSeguridad servicioSeguridad;
+    // Escrituras por usuario cuya transacción aún no ha terminado (incluidas las invalidaciones tras el commit)
+    private final ConcurrentMap<Long, Integer> escriturasEnCurso = new ConcurrentHashMap<>();
+
+    public VersionDatosService(VersionDatosRepository versionDatosRepository, ServicioSeguridad servicioSeguridad) {
+        this.versionDatosRepository = versionDatosRepository;
+        this.servicioSeguridad = servicioSeguridad;
+    }
+
+    /**
+     * Crea la versión inicial de los datos de un usuario recién registrado.
+     * @param usuarioId El ID del usuario.
+     */
+    public void inicializar(Long usuarioId) {
+        versionDatosRepository.save(new VersionDatos(usuarioId, 1L));
+    }
+
+    /**
+     * Incrementa la versión de los datos del usuario dentro de la transacción de la escritura.
+     * Los usuarios sin fila (anteriores a las versiones, o creados por data.sql) la obtienen en su primera escritura;
+     * si dos escrituras la crean a la vez, ambas incrementan la misma fila.
+     * @param evento El evento de modificación de datos.
+     */
+    @EventListener
+    public void alModificarDatos(EventoDatosUsuario evento) {
+        if (versionDatosRepository.incrementar(evento.getUsuarioId()) == 0) {
+            versionDatosRepository.crearSiNoExiste(evento.getUsuarioId());
+            versionDatosRepository.incrementar(evento.getUsuarioId());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            escriturasEnCurso.merge(evento.getUsuarioId(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Da por terminada la escritura una vez ejecutados los listeners AFTER_COMMIT (o tras un rollback).
+     * @param evento El evento de modificación de datos.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void alTerminarEscritura(EventoDatosUsuario evento) {
+        escriturasEnCurso.computeIfPresent(evento.getUsuarioId(), (id, escrituras) -> escrituras > 1 ? escrituras - 1 : null);
+    }
+
+    /**
+     * Calcula el ETag débil de los datos de un usuario. Debe obtenerse antes de leer los datos:
+     * si una escritura se confirma entre ambas lecturas, la respuesta lleva datos nuevos con el ETag
+     * anterior y el cliente simplemente los vuelve a pedir en la siguiente consulta.
+     * @param usuarioId El ID del usuario.
+     * @return El ETag, o null si hay una escritura del usuario en curso.
+     */
+    public String obtenerEtag(Long usuarioId) {
+        return obtenerEtag(usuarioId, null);
+    }
+
+    private String obtenerEtag(Long usuarioId, String variante) {
+        long version = versionDatosRepository.buscarVersion(usuarioId).orElse(0L);
+        // Se comprueba después de leer la versión: la escritura que la confirmó se registró antes de su commit
+        if (escriturasEnCurso.containsKey(usuarioId)) {
+            return null;
+        }
+        return "W/\"" + usuarioId + "-" + version + (variante != null ? "-" + variante : "") + "\"";
+    }
+
+    /**
+     * Calcula el ETag de los datos del usuario autenticado.
+     * @return El ETag, o null si hay una escritura del usuario en curso.
+     * @see #obtenerEtag(Long)
+     */
+    public String obtenerEtagDelUsuarioAutenticado() {
+        return obtenerEtag(servicioSeguridad.obtenerUsuarioAutenticado().getId(), null);
+    }
+
+    /**
+     * Calcula el ETag de los datos del usuario autenticado para una respuesta que depende además
+     * de algo distinto de sus datos y de la URL (p. ej. la fecha actual).
+     * @param variante El valor adicional del que depende la respuesta.
+     * @return El ETag, o null si hay una escritura del usuario en curso.
+     */
+    public String obtenerEtagDelUsuarioAutenticado(String variante) {
+        return obtenerEtag(servicioSeguridad.obtenerUsuarioAutenticado().getId(), variante);
+    }
+}
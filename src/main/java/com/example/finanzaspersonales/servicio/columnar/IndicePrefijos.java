@@ -0,0 +1,158 @@
+package com.example.finanzaspersonales.servicio.columnar;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de sumas prefijas (árboles de Fenwick) por celda (categoría * número de tipos + tipo)
+ * sobre los días epoch de un intervalo fijo. La suma y el número de transacciones de una celda entre dos fechas cualesquiera
+ * se obtienen en O(log d), siendo d el número de días del intervalo, y cada alta, baja o modificación
+ * se aplica como una actualización puntual, también en O(log d).
+ * <p>
+ * Es mutable y seguro para uso concurrente: las consultas toman el bloqueo de lectura y cada lote de
+ * actualizaciones el de escritura, de modo que una consulta nunca ve un lote aplicado a medias.
+ */
+final class IndicePrefijos {
+
+    private final int diaBase;
+    private final int dias;
+    // Por celda: árbol de sumas en céntimos y árbol de número de transacciones (null si la celda no tiene filas)
+    private final long[][] sumas;
+    private final int[][] cantidades;
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    private IndicePrefijos(int diaBase, int dias, int celdas) {
+        this.diaBase = diaBase;
+        this.dias = dias;
+        this.sumas = new long[celdas][];
+        this.cantidades = new int[celdas][];
+    }
+
+    /**
+     * Construye el índice en O(celdas x días + filas) a partir de las columnas de un libro ordenado por día.
+     * El intervalo cubre desde el primer día del libro hasta un margen posterior al último,
+     * para que las altas de los días siguientes no obliguen a reconstruirlo.
+     * @throws ArithmeticException si la suma de una celda desborda un long.
+     */
+    static IndicePrefijos construir(int[] diasFila, long[] centimos, int[] categorias, byte[] tipos, int filas,
+                                    int numeroCategorias, int numeroTipos, int margenDias) {
+        int diaBase = filas == 0 ? 0 : diasFila[0];
+        int dias = (filas == 0 ? 0 : diasFila[filas - 1] - diaBase + 1) + margenDias;
+        int numeroCeldas = numeroCategorias * numeroTipos;
+        IndicePrefijos indice = new IndicePrefijos(diaBase, dias, numeroCeldas);
+
+        // Primero los valores de cada día en la posición i (base 1) y después la propagación a los padres
+        for (int i = 0; i < filas; i++) {
+            int celda = categorias[i] * numeroTipos + tipos[i];
+            if (indice.sumas[celda] == null) {
+                indice.sumas[celda] = new long[dias + 1];
+                indice.cantidades[celda] = new int[dias + 1];
+            }
+            int posicion = diasFila[i] - diaBase + 1;
+            indice.sumas[celda][posicion] = Math.addExact(indice.sumas[celda][posicion], centimos[i]);
+            indice.cantidades[celda][posicion]++;
+        }
+        for (int celda = 0; celda < numeroCeldas; celda++) {
+            long[] suma = indice.sumas[celda];
+            int[] cantidad = indice.cantidades[celda];
+            if (suma == null) {
+                continue;
+            }
+            for (int i = 1; i <= dias; i++) {
+                int padre = i + (i & -i);
+                if (padre <= dias) {
+                    suma[padre] = Math.addExact(suma[padre], suma[i]);
+                    cantidad[padre] += cantidad[i];
+                }
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Indica si el día cae dentro del intervalo del índice y, por tanto, admite actualizaciones puntuales.
+     */
+    boolean cubre(int dia) {
+        return dia >= diaBase && dia < diaBase + dias;
+    }
+
+    int bytesAproximados() {
+        long bytes = 0;
+        for (long[] suma : sumas) {
+            if (suma != null) {
+                bytes += (long) suma.length * (Long.BYTES + Integer.BYTES);
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Aplica un lote de actualizaciones puntuales de forma atómica respecto a las consultas.
+     * @param actualizaciones Las actualizaciones; todas deben caer dentro del intervalo (ver cubre).
+     * @throws ArithmeticException si alguna suma desborda un long; el índice queda entonces inconsistente
+     * y debe descartarse.
+     */
+    void actualizar(Iterable<Actualizacion> actualizaciones) {
+        bloqueo.writeLock().lock();
+        try {
+            for (Actualizacion actualizacion : actualizaciones) {
+                int celda = actualizacion.celda();
+                if (sumas[celda] == null) {
+                    sumas[celda] = new long[dias + 1];
+                    cantidades[celda] = new int[dias + 1];
+                }
+                for (int i = actualizacion.dia() - diaBase + 1; i <= dias; i += i & -i) {
+                    sumas[celda][i] = Math.addExact(sumas[celda][i], actualizacion.centimos());
+                    cantidades[celda][i] += actualizacion.cantidad();
+                }
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suma y número de transacciones de cada celda entre dos días (inclusive).
+     * @param sumasSalida Array de tamaño igual al número de celdas donde se escriben las sumas.
+     * @param cantidadesSalida Array de tamaño igual al número de celdas donde se escriben las cantidades.
+     */
+    void sumarRango(int desde, int hasta, long[] sumasSalida, int[] cantidadesSalida) {
+        // Posiciones base 1 recortadas al intervalo; fuera de él no hay filas
+        int inicio = Math.max(desde - diaBase + 1, 1);
+        int fin = Math.min(hasta - diaBase + 1, dias);
+        bloqueo.readLock().lock();
+        try {
+            for (int celda = 0; celda < sumas.length; celda++) {
+                if (sumas[celda] == null || inicio > fin) {
+                    continue;
+                }
+                sumasSalida[celda] = Math.subtractExact(prefijo(sumas[celda], fin), prefijo(sumas[celda], inicio - 1));
+                cantidadesSalida[celda] = prefijo(cantidades[celda], fin) - prefijo(cantidades[celda], inicio - 1);
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private static long prefijo(long[] arbol, int posicion) {
+        long suma = 0;
+        for (int i = posicion; i > 0; i -= i & -i) {
+            suma = Math.addExact(suma, arbol[i]);
+        }
+        return suma;
+    }
+
+    private static int prefijo(int[] arbol, int posicion) {
+        int suma = 0;
+        for (int i = posicion; i > 0; i -= i & -i) {
+            suma += arbol[i];
+        }
+        return suma;
+    }
+
+    /**
+     * Variación de una celda en un día: céntimos y número de transacciones (positivos en altas, negativos en bajas).
+     */
+    record Actualizacion(int celda, int dia, long centimos, int cantidad) {
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.finanzaspersonales.servicio.columnar;
+
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.evento.CambioTransaccion;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copia inmutable en memoria de las transacciones de un usuario, organizada por columnas de tipos primitivos
+ * y ordenada por fecha (día epoch) e ID. Los montos se guardan como céntimos en un long, las categorías como
+ * un índice a la tabla de categorías del usuario y el tipo como el ordinal de TipoTransaccion.
+ * Un rango de fechas se localiza con dos búsquedas binarias y se suma con un bucle sobre arrays,
+ * sin crear objetos por fila. Los cambios no modifican las columnas: producen un libro nuevo.
+ * <p>
+ * A partir de cierto número de filas el libro lleva además un IndicePrefijos, con el que las sumas de
+ * cualquier rango cuestan O(celdas x log días) en lugar de recorrer las filas del rango. El índice
+ * se comparte entre un libro y el que resulta de aplicarle cambios, y se actualiza con deltas puntuales.
+ */
+final class LibroColumnar {
+
+    // Bytes aproximados por fila: id (8) + día (4) + céntimos (8) + categoría (4) + tipo (1)
+    private static final int BYTES_POR_FILA = 25;
+    private static final int ESCALA = 2;
+    private static final TipoTransaccion[] TIPOS = TipoTransaccion.values();
+    // Días posteriores al último movimiento que cubre un índice nuevo, para las altas de los días siguientes
+    private static final int MARGEN_INDICE_DIAS = 366;
+
+    private final long[] ids;
+    private final int[] dias;
+    private final long[] centimos;
+    private final int[] categorias;
+    private final byte[] tipos;
+    private final int filas;
+    private final long[] categoriaIds;
+    private final String[] nombresCategoria;
+    private final Map<Long, Integer> indicePorCategoria;
+    private final int umbralIndice;
+    private final IndicePrefijos indice; // null por debajo del umbral
+
+    private LibroColumnar(long[] ids, int[] dias, long[] centimos, int[] categorias, byte[] tipos, int filas,
+                          long[] categoriaIds, String[] nombresCategoria, int umbralIndice, IndicePrefijos indice) {
+        this.ids = ids;
+        this.dias = dias;
+        this.centimos = centimos;
+        this.categorias = categorias;
+        this.tipos = tipos;
+        this.filas = filas;
+        this.categoriaIds = categoriaIds;
+        this.nombresCategoria = nombresCategoria;
+        this.umbralIndice = umbralIndice;
+        this.indice = indice;
+        this.indicePorCategoria = new HashMap<>(categoriaIds.length * 2);
+        for (int i = 0; i < categoriaIds.length; i++) {
+            indicePorCategoria.put(categoriaIds[i], i);
+        }
+    }
+
+    int filas() {
+        return filas;
+    }
+
+    boolean tieneIndice() {
+        return indice != null;
+    }
+
+    int bytesAproximados() {
+        long bytes = (long) filas * BYTES_POR_FILA + categoriaIds.length * 64L
+                + (indice != null ? indice.bytesAproximados() : 0);
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Suma los montos de las filas con día epoch entre desde y hasta (ambos inclusive), por tipo y categoría.
+     * @throws ArithmeticException si alguna suma desborda un long.
+     */
+    List<TotalPorCategoriaDTO> sumarPorTipoYCategoria(int desde, int hasta) {
+        // Posición [categoría * número de tipos + tipo]
+        long[] sumas = new long[categoriaIds.length * TIPOS.length];
+        int[] cantidades = new int[sumas.length];
+        if (indice != null) {
+            indice.sumarRango(desde, hasta, sumas, cantidades);
+        } else {
+            int fin = primeraFilaDesde(hasta + 1);
+            for (int i = primeraFilaDesde(desde); i < fin; i++) {
+                int celda = categorias[i] * TIPOS.length + tipos[i];
+                sumas[celda] = Math.addExact(sumas[celda], centimos[i]);
+                cantidades[celda]++;
+            }
+        }
+
+        List<TotalPorCategoriaDTO> totales = new ArrayList<>();
+        for (int celda = 0; celda < sumas.length; celda++) {
+            if (cantidades[celda] > 0) {
+                totales.add(new TotalPorCategoriaDTO(TIPOS[celda % TIPOS.length],
+                        nombresCategoria[celda / TIPOS.length], BigDecimal.valueOf(sumas[celda], ESCALA)));
+            }
+        }
+        return totales;
+    }
+
+    /**
+     * Índice de la primera fila cuyo día es mayor o igual que el dado (búsqueda binaria del límite inferior).
+     */
+    private int primeraFilaDesde(int dia) {
+        int bajo = 0;
+        int alto = filas;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (dias[medio] < dia) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Devuelve un libro nuevo con los cambios aplicados. Cada cambio reemplaza la fila con el mismo ID
+     * (o la elimina en una baja), y solo se aplica si parte de la fila que hay en el libro: los valores
+     * anteriores de una modificación o una baja deben coincidir con ella, y una alta no debe tenerla.
+     * Así un cambio que llega fuera de orden (o repetido) no deja el libro con valores antiguos:
+     * el llamante lo descarta y se vuelve a cargar.
+     * @return El libro actualizado, o null si un cambio hace referencia a una categoría desconocida
+     * o no parte de la fila del libro.
+     * @throws ArithmeticException si un monto o una suma del índice desbordan un long.
+     */
+    LibroColumnar aplicar(List<CambioTransaccion> cambios) {
+        // Se comprueba antes de tocar el índice, que se comparte con este libro
+        if (!partenDelLibro(cambios)) {
+            return null;
+        }
+        Set<Long> reemplazados = new HashSet<>();
+        Map<Long, DatosTransaccion> nuevas = new HashMap<>();
+        for (CambioTransaccion cambio : cambios) {
+            if (cambio.getAnterior() != null) {
+                reemplazados.add(cambio.getAnterior().getId());
+                nuevas.remove(cambio.getAnterior().getId());
+            }
+            if (cambio.getNueva() != null) {
+                if (!indicePorCategoria.containsKey(cambio.getNueva().getCategoriaId())) {
+                    return null;
+                }
+                reemplazados.add(cambio.getNueva().getId());
+                nuevas.put(cambio.getNueva().getId(), cambio.getNueva());
+            }
+        }
+
+        List<DatosTransaccion> altas = new ArrayList<>(nuevas.values());
+        altas.sort(Comparator.comparing(DatosTransaccion::getFecha).thenComparing(DatosTransaccion::getId));
+
+        Constructor constructor = new Constructor(categoriaIds, nombresCategoria, filas + altas.size(), umbralIndice);
+        List<IndicePrefijos.Actualizacion> deltas = new ArrayList<>();
+        boolean indiceCubre = true;
+        int a = 0;
+        // Mezcla de las filas existentes (sin las reemplazadas) con las altas, ambas ordenadas por (día, id)
+        for (int i = 0; i < filas; i++) {
+            if (reemplazados.contains(ids[i])) {
+                deltas.add(new IndicePrefijos.Actualizacion(categorias[i] * TIPOS.length + tipos[i], dias[i], -centimos[i], -1));
+                continue;
+            }
+            while (a < altas.size() && vaAntes(altas.get(a), dias[i], ids[i])) {
+                indiceCubre &= agregarAlta(constructor, altas.get(a++), deltas);
+            }
+            constructor.agregarFila(ids[i], dias[i], centimos[i], categorias[i], tipos[i]);
+        }
+        while (a < altas.size()) {
+            indiceCubre &= agregarAlta(constructor, altas.get(a++), deltas);
+        }
+
+        if (indice != null && indiceCubre) {
+            indice.actualizar(deltas);
+            return constructor.construir(indice);
+        }
+        return constructor.construir(); // Crea un índice nuevo si el libro alcanza el umbral
+    }
+
+    private boolean partenDelLibro(List<CambioTransaccion> cambios) {
+        Map<Long, Integer> posiciones = new HashMap<>();
+        for (CambioTransaccion cambio : cambios) {
+            posiciones.put(idDe(cambio), -1);
+        }
+        for (int i = 0; i < filas; i++) {
+            if (posiciones.containsKey(ids[i])) {
+                posiciones.put(ids[i], i);
+            }
+        }
+        // Estado de cada transacción tras los cambios anteriores del mismo lote (null tras una baja)
+        Map<Long, DatosTransaccion> enLote = new HashMap<>();
+        for (CambioTransaccion cambio : cambios) {
+            Long id = idDe(cambio);
+            boolean coincide = enLote.containsKey(id)
+                    ? mismosValores(enLote.get(id), cambio.getAnterior())
+                    : coincideConFila(posiciones.get(id), cambio.getAnterior());
+            if (!coincide) {
+                return false;
+            }
+            enLote.put(id, cambio.getNueva());
+        }
+        return true;
+    }
+
+    private boolean coincideConFila(int fila, DatosTransaccion anterior) {
+        if (fila < 0 || anterior == null) {
+            return fila < 0 && anterior == null;
+        }
+        Integer categoria = indicePorCategoria.get(anterior.getCategoriaId());
+        return categoria != null && categoria == categorias[fila]
+                && anterior.getTipo().ordinal() == tipos[fila]
+                && anterior.getFecha().toEpochDay() == dias[fila]
+                && aCentimos(anterior.getMonto()) == centimos[fila];
+    }
+
+    private static boolean mismosValores(DatosTransaccion a, DatosTransaccion b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getCategoriaId().equals(b.getCategoriaId()) && a.getTipo() == b.getTipo()
+                && a.getFecha().equals(b.getFecha()) && aCentimos(a.getMonto()) == aCentimos(b.getMonto());
+    }
+
+    private static Long idDe(CambioTransaccion cambio) {
+        return cambio.getAnterior() != null ? cambio.getAnterior().getId() : cambio.getNueva().getId();
+    }
+
+    private boolean agregarAlta(Constructor constructor, DatosTransaccion alta, List<IndicePrefijos.Actualizacion> deltas) {
+        int fila = constructor.agregar(alta);
+        int dia = constructor.dias[fila];
+        deltas.add(new IndicePrefijos.Actualizacion(constructor.categorias[fila] * TIPOS.length + constructor.tipos[fila],
+                dia, constructor.centimos[fila], 1));
+        return indice == null || indice.cubre(dia);
+    }
+
+    private static boolean vaAntes(DatosTransaccion datos, int dia, long id) {
+        int diaDatos = (int) datos.getFecha().toEpochDay();
+        return diaDatos < dia || (diaDatos == dia && datos.getId() < id);
+    }
+
+    /**
+     * Céntimos de un monto, redondeado a la escala de la columna igual que lo hace la base de datos.
+     * @throws ArithmeticException si el monto no cabe en un long.
+     */
+    static long aCentimos(BigDecimal monto) {
+        return monto.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Construye un libro a partir de filas que llegan ya ordenadas por fecha e ID.
+     */
+    static final class Constructor {
+
+        private final long[] categoriaIds;
+        private final String[] nombresCategoria;
+        private final Map<Long, Integer> indicePorCategoria = new HashMap<>();
+        private final int umbralIndice;
+        private long[] ids;
+        private int[] dias;
+        private long[] centimos;
+        private int[] categorias;
+        private byte[] tipos;
+        private int filas;
+
+        /**
+         * @param umbralIndice Número de filas a partir del cual el libro construye su IndicePrefijos.
+         */
+        Constructor(long[] categoriaIds, String[] nombresCategoria, int capacidad, int umbralIndice) {
+            this.categoriaIds = categoriaIds;
+            this.nombresCategoria = nombresCategoria;
+            this.umbralIndice = umbralIndice;
+            for (int i = 0; i < categoriaIds.length; i++) {
+                indicePorCategoria.put(categoriaIds[i], i);
+            }
+            int inicial = Math.max(capacidad, 16);
+            this.ids = new long[inicial];
+            this.dias = new int[inicial];
+            this.centimos = new long[inicial];
+            this.categorias = new int[inicial];
+            this.tipos = new byte[inicial];
+        }
+
+        /**
+         * @return La posición de la fila añadida.
+         */
+        int agregar(DatosTransaccion datos) {
+            Integer categoria = indicePorCategoria.get(datos.getCategoriaId());
+            if (categoria == null) {
+                throw new IllegalStateException("Categoría " + datos.getCategoriaId() + " no cargada en el libro");
+            }
+            return agregarFila(datos.getId(), (int) datos.getFecha().toEpochDay(), aCentimos(datos.getMonto()),
+                    categoria, (byte) datos.getTipo().ordinal());
+        }
+
+        private int agregarFila(long id, int dia, long monto, int categoria, byte tipo) {
+            if (filas == ids.length) {
+                int capacidad = filas + (filas >> 1);
+                ids = Arrays.copyOf(ids, capacidad);
+                dias = Arrays.copyOf(dias, capacidad);
+                centimos = Arrays.copyOf(centimos, capacidad);
+                categorias = Arrays.copyOf(categorias, capacidad);
+                tipos = Arrays.copyOf(tipos, capacidad);
+            }
+            ids[filas] = id;
+            dias[filas] = dia;
+            centimos[filas] = monto;
+            categorias[filas] = categoria;
+            tipos[filas] = tipo;
+            return filas++;
+        }
+
+        LibroColumnar construir() {
+            recortar();
+            IndicePrefijos indice = filas >= umbralIndice
+                    ? IndicePrefijos.construir(dias, centimos, categorias, tipos, filas,
+                            categoriaIds.length, TIPOS.length, MARGEN_INDICE_DIAS)
+                    : null;
+            return construir(indice);
+        }
+
+        private LibroColumnar construir(IndicePrefijos indice) {
+            recortar();
+            return new LibroColumnar(ids, dias, centimos, categorias, tipos, filas, categoriaIds, nombresCategoria,
+                    umbralIndice, indice);
+        }
+
+        private void recortar() {
+            if (filas < ids.length) {
+                // Se recortan los arrays para que el peso en memoria refleje las filas reales
+                ids = Arrays.copyOf(ids, filas);
+                dias = Arrays.copyOf(dias, filas);
+                centimos = Arrays.copyOf(centimos, filas);
+                categorias = Arrays.copyOf(categorias, filas);
+                tipos = Arrays.copyOf(tipos, filas);
+            }
+        }
+    }
+}
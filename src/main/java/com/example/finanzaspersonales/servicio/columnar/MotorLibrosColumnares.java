@@ -0,0 +1,172 @@
+package com.example.finanzaspersonales.servicio.columnar;
+
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.evento.CategoriasModificadasEvent;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.evento.TransaccionesModificadasEvent;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import com.example.finanzaspersonales.repositorio.TransaccionRepository;
+import com.example.finanzaspersonales.servicio.SellosInvalidacion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Motor opcional de reportes en memoria. Mantiene, para los usuarios activos, un LibroColumnar con sus
+ * transacciones y responde a las sumas por rango de fechas sin consultar la base de datos.
+ * <p>
+ * Cada libro se carga la primera vez que se necesita y se desaloja por peso (bytes aproximados) cuando
+ * se supera el presupuesto de memoria, empezando por los usuarios menos usados. Tras cada escritura
+ * confirmada de transacciones se aplica el cambio al libro cargado; los cambios de categorías lo descartan
+ * para que se recargue con los nombres nuevos. Los avisos de confirmación de dos escrituras pueden llegar
+ * en otro orden que el de sus confirmaciones: un cambio que no parte de la fila del libro también lo descarta.
+ * <p>
+ * Los libros de historiales largos (a partir de finanzas.motor-columnar.indice.umbral-filas) llevan un
+ * índice de sumas prefijas, de modo que cualquier rango se resuelve en tiempo logarítmico.
+ * <p>
+ * Con finanzas.motor-columnar.habilitado=false (valor por defecto) no se carga ningún libro y los reportes
+ * se calculan en la base de datos.
+ */
+@Slf4j
+@Component
+public class MotorLibrosColumnares {
+
+    private final TransaccionRepository transaccionRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final boolean habilitado;
+    private final int umbralIndice;
+    private final Cache<Long, LibroColumnar> libros;
+    // Escrituras por usuario: un libro cargado antes de una de ellas puede no incluirla
+    private final SellosInvalidacion escrituras = new SellosInvalidacion(100_000);
+
+    private final Counter cargas;
+    private final Counter desbordamientos;
+
+    public MotorLibrosColumnares(TransaccionRepository transaccionRepository,
+                                 CategoriaRepository categoriaRepository,
+                                 @Value("${finanzas.motor-columnar.habilitado:false}") boolean habilitado,
+                                 @Value("${finanzas.motor-columnar.memoria-maxima:256MB}") DataSize memoriaMaxima,
+                                 @Value("${finanzas.motor-columnar.indice.umbral-filas:100000}") int umbralIndice,
+                                 MeterRegistry meterRegistry) {
+        this.transaccionRepository = transaccionRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.habilitado = habilitado;
+        this.umbralIndice = umbralIndice;
+        this.libros = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaxima.toBytes())
+                .weigher((Long usuarioId, LibroColumnar libro) -> libro.bytesAproximados())
+                .build();
+        this.cargas = Counter.builder("finanzas.motor-columnar.cargas").register(meterRegistry);
+        this.desbordamientos = Counter.builder("finanzas.motor-columnar.desbordamientos").register(meterRegistry);
+        Gauge.builder("finanzas.motor-columnar.memoria", libros,
+                        cache -> cache.asMap().values().stream().mapToLong(LibroColumnar::bytesAproximados).sum())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Suma los montos del usuario en un rango de fechas, agrupando por tipo y categoría, desde su libro en memoria.
+     * Si el libro no está cargado, lo carga; debe llamarse dentro de una transacción de solo lectura.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param fechaInicio Fecha de inicio del período (inclusive).
+     * @param fechaFin Fecha de fin del período (inclusive).
+     * @return Los totales, o vacío si el motor está deshabilitado o no puede representar los importes
+     * del usuario; en ese caso el llamante debe consultar la base de datos.
+     */
+    public Optional<List<TotalPorCategoriaDTO>> sumarPorTipoYCategoria(Usuario usuario, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (!habilitado) {
+            return Optional.empty();
+        }
+        try {
+            LibroColumnar libro = obtenerLibro(usuario);
+            return Optional.of(libro.sumarPorTipoYCategoria((int) fechaInicio.toEpochDay(), (int) fechaFin.toEpochDay()));
+        } catch (ArithmeticException e) {
+            // Un importe o una suma no caben en un long de céntimos
+            desbordamientos.increment();
+            libros.invalidate(usuario.getId());
+            return Optional.empty();
+        }
+    }
+
+    private LibroColumnar obtenerLibro(Usuario usuario) {
+        LibroColumnar libro = libros.getIfPresent(usuario.getId());
+        if (libro != null) {
+            return libro;
+        }
+
+        long sello = escrituras.sellar(); // Se toma antes de leer los datos
+        libro = cargar(usuario);
+        if (escrituras.esVigente(usuario.getId(), sello)) {
+            libros.asMap().putIfAbsent(usuario.getId(), libro);
+            // Una escritura entre la comprobación y el put puede no haber visto el libro
+            if (!escrituras.esVigente(usuario.getId(), sello)) {
+                libros.asMap().remove(usuario.getId(), libro);
+            }
+        }
+        return libro;
+    }
+
+    private LibroColumnar cargar(Usuario usuario) {
+        long inicio = System.nanoTime();
+        List<Categoria> categorias = categoriaRepository.findByUsuario(usuario);
+        long[] categoriaIds = new long[categorias.size()];
+        String[] nombres = new String[categorias.size()];
+        for (int i = 0; i < categorias.size(); i++) {
+            categoriaIds[i] = categorias.get(i).getId();
+            nombres[i] = categorias.get(i).getNombre();
+        }
+
+        LibroColumnar.Constructor constructor = new LibroColumnar.Constructor(categoriaIds, nombres, 1024, umbralIndice);
+        try (Stream<DatosTransaccion> filas = transaccionRepository.recorrerDatosPorUsuario(usuario)) {
+            filas.forEach(constructor::agregar);
+        }
+        LibroColumnar libro = constructor.construir();
+        cargas.increment();
+        log.debug("Libro columnar del usuario {} cargado: {} filas{} en {} ms", usuario.getId(), libro.filas(),
+                libro.tieneIndice() ? " con índice de sumas prefijas" : "", (System.nanoTime() - inicio) / 1_000_000);
+        return libro;
+    }
+
+    /**
+     * Aplica al libro cargado los cambios de transacciones, una vez confirmada la escritura.
+     * @param evento El evento con los cambios del usuario.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarTransacciones(TransaccionesModificadasEvent evento) {
+        Long usuarioId = evento.getUsuarioId();
+        escrituras.invalidar(usuarioId);
+        libros.asMap().computeIfPresent(usuarioId, (id, libro) -> {
+            try {
+                // null (desalojo) si aparece una categoría nueva o el cambio no parte de la fila del libro
+                return libro.aplicar(evento.getCambios());
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Descarta el libro del usuario cuando cambian sus categorías (nombres o categorías nuevas).
+     * @param evento El evento de modificación de categorías.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCategorias(CategoriasModificadasEvent evento) {
+        escrituras.invalidar(evento.getUsuarioId());
+        libros.invalidate(evento.getUsuarioId());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.finanzaspersonales.servicio.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lector de extractos en CSV.
+ * La primera línea es la cabecera e indica el orden de las columnas. Se aceptan como separador
+ * la coma o el punto y coma, y campos entre comillas dobles (sin saltos de línea internos).
+ */
+class LectorCsv implements LectorExtracto {
+
+    // Nombres de columna aceptados (sin tildes y en minúsculas) y el campo normalizado al que corresponden
+    private static final Map<String, String> ALIAS_COLUMNAS = Map.of(
+            "fecha", "fecha",
+            "descripcion", "descripcion",
+            "concepto", "descripcion",
+            "monto", "monto",
+            "importe", "monto",
+            "tipo", "tipo",
+            "categoria", "categoria"
+    );
+
+    private final BufferedReader reader;
+    private final String[] columnas;
+    private final char separador;
+    private long numeroLinea;
+
+    LectorCsv(Reader reader) throws IOException {
+        this.reader = new BufferedReader(reader);
+        String cabecera = this.reader.readLine();
+        if (cabecera == null) {
+            throw new IOException("El archivo CSV está vacío.");
+        }
+        if (!cabecera.isEmpty() && cabecera.charAt(0) == '\uFEFF') {
+            cabecera = cabecera.substring(1); // Marca BOM de UTF-8
+        }
+        this.numeroLinea = 1;
+        this.separador = cabecera.indexOf(';') >= 0 && cabecera.indexOf(',') < 0 ? ';' : ',';
+
+        List<String> nombres = dividir(cabecera);
+        this.columnas = new String[nombres.size()];
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas[i] = ALIAS_COLUMNAS.get(normalizar(nombres.get(i)));
+        }
+        // Las columnas desconocidas quedan a null, así que no vale List.of
+        List<String> reconocidas = Arrays.asList(columnas);
+        for (String obligatoria : List.of("fecha", "descripcion", "monto")) {
+            if (!reconocidas.contains(obligatoria)) {
+                throw new IOException("La cabecera del CSV no contiene la columna obligatoria '" + obligatoria + "'.");
+            }
+        }
+    }
+
+    @Override
+    public RegistroExtracto leerSiguiente() throws IOException {
+        String linea;
+        do {
+            linea = reader.readLine();
+            numeroLinea++;
+            if (linea == null) {
+                return null;
+            }
+        } while (linea.isBlank());
+
+        List<String> valores = dividir(linea);
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < columnas.length && i < valores.size(); i++) {
+            if (columnas[i] != null && !valores.get(i).isBlank()) {
+                campos.put(columnas[i], valores.get(i).trim());
+            }
+        }
+        return new RegistroExtracto(numeroLinea, campos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> dividir(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"'); // Comilla escapada
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+
+    private static String normalizar(String nombre) {
+        String sinTildes = Normalizer.normalize(nombre.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.finanzaspersonales.servicio.importacion;
+
+import com.example.finanzaspersonales.dto.importacion.FormatoExtracto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lector secuencial de registros de un extracto bancario.
+ * Los registros se leen de uno en uno, sin cargar el archivo completo en memoria.
+ */
+public interface LectorExtracto extends Closeable {
+
+    /**
+     * Lee el siguiente registro del extracto.
+     * @return El registro leído, o null si no quedan más.
+     * @throws IOException si falla la lectura o el formato del archivo es irrecuperable.
+     */
+    RegistroExtracto leerSiguiente() throws IOException;
+
+    static LectorExtracto para(FormatoExtracto formato, Reader reader) throws IOException {
+        return switch (formato) {
+            case CSV -> new LectorCsv(reader);
+            case OFX -> new LectorOfx(reader);
+        };
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.finanzaspersonales.servicio.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lector de extractos OFX.
+ * Recorre el archivo carácter a carácter buscando bloques &lt;STMTTRN&gt;, de modo que acepta tanto
+ * OFX 1.x (SGML, con etiquetas sin cerrar) como OFX 2.x (XML), en una o varias líneas.
+ * Los textos se devuelven con las entidades (&amp;amp;, &amp;lt;, &amp;#233;...) ya decodificadas.
+ */
+class LectorOfx implements LectorExtracto {
+
+    private final BufferedReader reader;
+    private long numeroLinea = 1;
+    private int siguiente = -2; // Carácter leído por adelantado (-2: ninguno)
+
+    LectorOfx(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    @Override
+    public RegistroExtracto leerSiguiente() throws IOException {
+        Map<String, String> etiquetas = null;
+        long lineaInicio = 0;
+
+        String etiqueta;
+        while ((etiqueta = leerEtiqueta()) != null) {
+            if (etiqueta.equals("STMTTRN")) {
+                etiquetas = new HashMap<>();
+                lineaInicio = numeroLinea;
+            } else if (etiqueta.equals("/STMTTRN")) {
+                if (etiquetas != null) {
+                    return new RegistroExtracto(lineaInicio, normalizar(etiquetas));
+                }
+            } else if (etiquetas != null && !etiqueta.startsWith("/")) {
+                String valor = leerTexto();
+                if (!valor.isEmpty()) {
+                    etiquetas.put(etiqueta, valor);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Map<String, String> normalizar(Map<String, String> etiquetas) {
+        Map<String, String> campos = new HashMap<>();
+        putSiExiste(campos, "fecha", etiquetas.get("DTPOSTED"));
+        // OFX no usa separador de miles: una coma en TRNAMT es el separador decimal
+        String monto = etiquetas.get("TRNAMT");
+        putSiExiste(campos, "monto", monto == null ? null : monto.replace(',', '.'));
+        // El signo de TRNAMT ya indica si es un ingreso o un egreso
+        putSiExiste(campos, "descripcion", etiquetas.getOrDefault("NAME", etiquetas.get("MEMO")));
+        return campos;
+    }
+
+    private static void putSiExiste(Map<String, String> campos, String clave, String valor) {
+        if (valor != null) {
+            campos.put(clave, valor);
+        }
+    }
+
+    /**
+     * Avanza hasta la siguiente etiqueta y devuelve su nombre en mayúsculas, o null al final del archivo.
+     */
+    private String leerEtiqueta() throws IOException {
+        int c;
+        while ((c = leer()) != -1 && c != '<') {
+            // Se descarta el texto fuera de etiquetas (cabecera SGML, espacios)
+        }
+        if (c == -1) {
+            return null;
+        }
+        StringBuilder nombre = new StringBuilder();
+        while ((c = leer()) != -1 && c != '>') {
+            nombre.append((char) c);
+        }
+        return nombre.toString().trim().toUpperCase();
+    }
+
+    /**
+     * Lee el texto que sigue a una etiqueta hasta la siguiente etiqueta, sin consumirla.
+     */
+    private String leerTexto() throws IOException {
+        StringBuilder texto = new StringBuilder();
+        int c;
+        while ((c = leer()) != -1 && c != '<') {
+            texto.append((char) c);
+        }
+        if (c == '<') {
+            siguiente = c;
+        }
+        return decodificarEntidades(texto.toString().trim());
+    }
+
+    /**
+     * Sustituye las entidades de caracteres, con nombre o numéricas, por el carácter al que representan.
+     * Una entidad desconocida o mal formada se deja tal cual.
+     */
+    static String decodificarEntidades(String texto) {
+        int ampersand = texto.indexOf('&');
+        if (ampersand < 0) {
+            return texto;
+        }
+        StringBuilder resultado = new StringBuilder(texto.length());
+        int desde = 0;
+        while (ampersand >= 0) {
+            int puntoYComa = texto.indexOf(';', ampersand);
+            String caracter = puntoYComa < 0 ? null : entidad(texto.substring(ampersand + 1, puntoYComa));
+            if (caracter == null) {
+                resultado.append(texto, desde, ampersand + 1);
+                desde = ampersand + 1;
+            } else {
+                resultado.append(texto, desde, ampersand).append(caracter);
+                desde = puntoYComa + 1;
+            }
+            ampersand = texto.indexOf('&', desde);
+        }
+        return resultado.append(texto, desde, texto.length()).toString();
+    }
+
+    private static String entidad(String nombre) {
+        switch (nombre) {
+            case "amp": return "&";
+            case "lt": return "<";
+            case "gt": return ">";
+            case "quot": return "\"";
+            case "apos": return "'";
+            case "nbsp": return " ";
+            default:
+                break;
+        }
+        if (nombre.length() < 2 || nombre.charAt(0) != '#') {
+            return null;
+        }
+        try {
+            boolean hexadecimal = nombre.charAt(1) == 'x' || nombre.charAt(1) == 'X';
+            int codigo = hexadecimal ? Integer.parseInt(nombre.substring(2), 16) : Integer.parseInt(nombre.substring(1));
+            return Character.isValidCodePoint(codigo) ? Character.toString(codigo) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int leer() throws IOException {
+        int c;
+        if (siguiente != -2) {
+            c = siguiente;
+            siguiente = -2;
+            return c;
+        }
+        c = reader.read();
+        if (c == '\n') {
+            numeroLinea++;
+        }
+        return c;
+    }
+}
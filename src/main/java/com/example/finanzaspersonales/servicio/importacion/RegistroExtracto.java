@@ -0,0 +1,19 @@
+package com.example.finanzaspersonales.servicio.importacion;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Registro en bruto leído de un extracto bancario, antes de validarlo.
+ * Las claves de los campos están normalizadas: fecha, descripcion, monto, tipo y categoria.
+ */
+@Value
+public class RegistroExtracto {
+    long numeroLinea;
+    Map<String, String> campos;
+
+    public String campo(String nombre) {
+        return campos.get(nombre);
+    }
+}
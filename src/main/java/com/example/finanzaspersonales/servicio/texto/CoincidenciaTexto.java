@@ -0,0 +1,10 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+/**
+ * Una transacción que coincide con una búsqueda de texto y su relevancia.
+ * Los resultados se ordenan por relevancia descendente y, a igual relevancia, por ID descendente.
+ * @param id El ID de la transacción.
+ * @param rango La relevancia de la coincidencia (mayor es mejor).
+ */
+public record CoincidenciaTexto(Long id, double rango) {
+}
@@ -0,0 +1,150 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria de las descripciones de un usuario: para cada término, las transacciones
+ * que lo contienen y cuántas veces. Los términos están ordenados, de modo que un prefijo se resuelve
+ * recorriendo solo el tramo de términos que empiezan por él.
+ * <p>
+ * La relevancia de una transacción es la suma, para cada término de la descripción que coincide con la consulta,
+ * de sus apariciones por log(1 + N / df), siendo N el número de transacciones indexadas y df el número de
+ * transacciones con ese término: los términos raros (un comercio concreto) pesan más que los frecuentes.
+ * <p>
+ * Es mutable y seguro para uso concurrente: las búsquedas toman el bloqueo de lectura y cada lote de
+ * cambios el de escritura.
+ */
+final class IndiceDescripcionesUsuario {
+
+    private static final Comparator<CoincidenciaTexto> MEJOR_PRIMERO = Comparator
+            .comparingDouble(CoincidenciaTexto::rango).reversed()
+            .thenComparing(CoincidenciaTexto::id, Comparator.reverseOrder());
+
+    // Término -> (ID de transacción -> apariciones del término en su descripción)
+    private final NavigableMap<String, Map<Long, Integer>> publicaciones = new TreeMap<>();
+    // Términos de cada transacción indexada, para poder retirarla al modificarla o borrarla
+    private final Map<Long, List<String>> terminosPorTransaccion = new HashMap<>();
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+    /**
+     * Indexa (o reindexa) la descripción de una transacción. Aplicar dos veces el mismo valor no cambia el índice.
+     */
+    void indexar(Long id, String descripcion) {
+        bloqueo.writeLock().lock();
+        try {
+            retirarSinBloqueo(id);
+            List<String> terminos = Tokenizador.terminos(descripcion);
+            terminosPorTransaccion.put(id, terminos);
+            for (String termino : terminos) {
+                publicaciones.computeIfAbsent(termino, t -> new HashMap<>()).merge(id, 1, Integer::sum);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    void retirar(Long id) {
+        bloqueo.writeLock().lock();
+        try {
+            retirarSinBloqueo(id);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private void retirarSinBloqueo(Long id) {
+        List<String> terminos = terminosPorTransaccion.remove(id);
+        if (terminos == null) {
+            return;
+        }
+        for (String termino : terminos) {
+            Map<Long, Integer> transacciones = publicaciones.get(termino);
+            if (transacciones != null && transacciones.remove(id) != null && transacciones.isEmpty()) {
+                publicaciones.remove(termino);
+            }
+        }
+    }
+
+    int transacciones() {
+        bloqueo.readLock().lock();
+        try {
+            return terminosPorTransaccion.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca las transacciones cuya descripción tiene, para cada término de la consulta, algún término que empieza por él.
+     * @param consulta Los términos distintos de la consulta (no vacío).
+     * @param despuesDe La última coincidencia de la página anterior, o null.
+     * @param limite Número máximo de coincidencias.
+     * @return Las mejores coincidencias posteriores a despuesDe, ordenadas por relevancia e ID descendentes.
+     */
+    List<CoincidenciaTexto> buscar(Set<String> consulta, CoincidenciaTexto despuesDe, int limite) {
+        bloqueo.readLock().lock();
+        try {
+            Map<Long, Double> rangos = null;
+            for (String terminoConsulta : consulta) {
+                Map<Long, Double> delTermino = rangosDelPrefijo(terminoConsulta);
+                if (rangos == null) {
+                    rangos = delTermino;
+                } else {
+                    // Todos los términos deben coincidir: se conservan solo las transacciones presentes en ambos
+                    Map<Long, Double> interseccion = new HashMap<>();
+                    for (Map.Entry<Long, Double> entrada : rangos.entrySet()) {
+                        Double rango = delTermino.get(entrada.getKey());
+                        if (rango != null) {
+                            interseccion.put(entrada.getKey(), entrada.getValue() + rango);
+                        }
+                    }
+                    rangos = interseccion;
+                }
+                if (rangos.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return mejores(rangos, despuesDe, limite);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> rangosDelPrefijo(String prefijo) {
+        Map<Long, Double> rangos = new HashMap<>();
+        double total = terminosPorTransaccion.size();
+        for (Map<Long, Integer> transacciones : publicaciones.subMap(prefijo, true, prefijo + Character.MAX_VALUE, false).values()) {
+            double peso = Math.log1p(total / transacciones.size());
+            transacciones.forEach((id, apariciones) -> rangos.merge(id, apariciones * peso, Double::sum));
+        }
+        return rangos;
+    }
+
+    private static List<CoincidenciaTexto> mejores(Map<Long, Double> rangos, CoincidenciaTexto despuesDe, int limite) {
+        // Montículo de las 'limite' mejores: la peor de ellas en la cabeza, para descartarla al llegar una mejor
+        PriorityQueue<CoincidenciaTexto> mejores = new PriorityQueue<>(limite + 1, MEJOR_PRIMERO.reversed());
+        for (Map.Entry<Long, Double> entrada : rangos.entrySet()) {
+            CoincidenciaTexto coincidencia = new CoincidenciaTexto(entrada.getKey(), entrada.getValue());
+            if (despuesDe != null && MEJOR_PRIMERO.compare(coincidencia, despuesDe) <= 0) {
+                continue; // Ya devuelta en una página anterior
+            }
+            mejores.add(coincidencia);
+            if (mejores.size() > limite) {
+                mejores.poll();
+            }
+        }
+        List<CoincidenciaTexto> resultado = new ArrayList<>(mejores);
+        resultado.sort(MEJOR_PRIMERO);
+        return resultado;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+import com.example.finanzaspersonales.evento.CambioTransaccion;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.evento.TransaccionesModificadasEvent;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.TransaccionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de texto en memoria para los perfiles sin PostgreSQL (H2 en desarrollo y pruebas).
+ * El índice de cada usuario se construye la primera vez que busca y, mientras está cargado, se mantiene
+ * al día con los cambios de transacciones confirmados. Los índices de los usuarios que dejan de buscar
+ * se desalojan, y un índice cargado antes de una escritura concurrente no se conserva (igual que los
+ * libros de MotorLibrosColumnares).
+ */
+@Slf4j
+@Component
+@Profile("!prod")
+public class IndiceTextoEnMemoria implements IndiceTextoTransacciones {
+
+    private final TransaccionRepository transaccionRepository;
+    private final Cache<Long, IndiceDescripcionesUsuario> indices;
+    // Sello de la última escritura por usuario: un índice cargado antes de ella puede no incluirla
+    private final Cache<Long, Long> escrituras;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private final Counter cargas;
+
+    public IndiceTextoEnMemoria(TransaccionRepository transaccionRepository,
+                                @Value("${finanzas.busqueda-texto.usuarios-maximos:1000}") long usuariosMaximos,
+                                @Value("${finanzas.busqueda-texto.inactividad:30m}") Duration inactividad,
+                                MeterRegistry meterRegistry) {
+        this.transaccionRepository = transaccionRepository;
+        this.indices = Caffeine.newBuilder()
+                .maximumSize(usuariosMaximos)
+                .expireAfterAccess(inactividad)
+                .build();
+        this.escrituras = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .build();
+        this.cargas = Counter.builder("finanzas.busqueda-texto.cargas").register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Si el índice del usuario no está cargado, lo carga; debe llamarse dentro de una transacción de solo lectura.
+     */
+    @Override
+    public List<CoincidenciaTexto> buscar(Usuario usuario, String texto, CoincidenciaTexto despuesDe, int limite) {
+        Set<String> terminos = Tokenizador.terminosDeConsulta(texto);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        return obtenerIndice(usuario).buscar(terminos, despuesDe, limite);
+    }
+
+    private IndiceDescripcionesUsuario obtenerIndice(Usuario usuario) {
+        IndiceDescripcionesUsuario indice = indices.getIfPresent(usuario.getId());
+        if (indice != null) {
+            return indice;
+        }
+
+        long sello = secuencia.incrementAndGet(); // Se toma antes de leer los datos
+        indice = cargar(usuario);
+        if (esVigente(usuario.getId(), sello)) {
+            IndiceDescripcionesUsuario existente = indices.asMap().putIfAbsent(usuario.getId(), indice);
+            return existente != null ? existente : indice;
+        }
+        return indice;
+    }
+
+    private IndiceDescripcionesUsuario cargar(Usuario usuario) {
+        long inicio = System.nanoTime();
+        IndiceDescripcionesUsuario indice = new IndiceDescripcionesUsuario();
+        try (Stream<DatosTransaccion> filas = transaccionRepository.recorrerDescripcionesPorUsuario(usuario)) {
+            filas.forEach(fila -> indice.indexar(fila.getId(), fila.getDescripcion()));
+        }
+        cargas.increment();
+        log.debug("Índice de texto del usuario {} cargado: {} transacciones en {} ms", usuario.getId(),
+                indice.transacciones(), (System.nanoTime() - inicio) / 1_000_000);
+        return indice;
+    }
+
+    /**
+     * Aplica al índice cargado los cambios de transacciones, una vez confirmada la escritura.
+     * @param evento El evento con los cambios del usuario.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarTransacciones(TransaccionesModificadasEvent evento) {
+        escrituras.put(evento.getUsuarioId(), secuencia.incrementAndGet());
+        IndiceDescripcionesUsuario indice = indices.getIfPresent(evento.getUsuarioId());
+        if (indice == null) {
+            return;
+        }
+        for (CambioTransaccion cambio : evento.getCambios()) {
+            if (cambio.getNueva() != null) {
+                indice.indexar(cambio.getNueva().getId(), cambio.getNueva().getDescripcion());
+            } else if (cambio.getAnterior() != null) {
+                indice.retirar(cambio.getAnterior().getId());
+            }
+        }
+    }
+
+    private boolean esVigente(Long usuarioId, long sello) {
+        Long escritoEn = escrituras.getIfPresent(usuarioId);
+        return escritoEn == null || sello > escritoEn;
+    }
+}
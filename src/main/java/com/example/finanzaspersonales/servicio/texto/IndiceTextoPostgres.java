@@ -0,0 +1,58 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+import com.example.finanzaspersonales.modelo.Usuario;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de texto en PostgreSQL sobre la columna generada transacciones.descripcion_tsv
+ * (to_tsvector('simple', descripcion)) y su índice GIN compuesto con usuario_id (migración V6).
+ * La columna la mantiene la propia base de datos en cada INSERT o UPDATE de TransaccionService.
+ */
+@Component
+@Profile("prod")
+public class IndiceTextoPostgres implements IndiceTextoTransacciones {
+
+    // ts_rank devuelve real; se convierte a double para que el cursor compare exactamente el mismo valor
+    private static final String COINCIDENCIAS =
+            "SELECT t.id, ts_rank(t.descripcion_tsv, q.consulta)::float8 AS rango " +
+            "FROM transacciones t, to_tsquery('simple', ?) AS q(consulta) " +
+            "WHERE t.usuario_id = ? AND t.descripcion_tsv @@ q.consulta";
+
+    private static final String PRIMERA_PAGINA =
+            "SELECT id, rango FROM (" + COINCIDENCIAS + ") c ORDER BY c.rango DESC, c.id DESC LIMIT ?";
+
+    private static final String PAGINA_DESPUES_DE =
+            "SELECT id, rango FROM (" + COINCIDENCIAS + ") c " +
+            "WHERE c.rango < ? OR (c.rango = ? AND c.id < ?) ORDER BY c.rango DESC, c.id DESC LIMIT ?";
+
+    private static final RowMapper<CoincidenciaTexto> COINCIDENCIA =
+            (fila, numero) -> new CoincidenciaTexto(fila.getLong("id"), fila.getDouble("rango"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndiceTextoPostgres(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<CoincidenciaTexto> buscar(Usuario usuario, String texto, CoincidenciaTexto despuesDe, int limite) {
+        Set<String> terminos = Tokenizador.terminosDeConsulta(texto);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+        // Los términos solo contienen letras y dígitos, así que no pueden alterar la sintaxis de tsquery
+        String consulta = terminos.stream().map(termino -> termino + ":*").collect(Collectors.joining(" & "));
+        if (despuesDe == null) {
+            return jdbcTemplate.query(PRIMERA_PAGINA, COINCIDENCIA, consulta, usuario.getId(), limite);
+        }
+        return jdbcTemplate.query(PAGINA_DESPUES_DE, COINCIDENCIA, consulta, usuario.getId(),
+                despuesDe.rango(), despuesDe.rango(), despuesDe.id(), limite);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+import com.example.finanzaspersonales.modelo.Usuario;
+
+import java.util.List;
+
+/**
+ * Índice invertido de las descripciones de las transacciones de cada usuario.
+ * Hay una implementación sobre tsvector/GIN de PostgreSQL (perfil prod) y otra en memoria para
+ * el resto de perfiles (H2). Ambas interpretan la consulta igual: cada término de la consulta debe
+ * ser prefijo de algún término de la descripción.
+ */
+public interface IndiceTextoTransacciones {
+
+    /**
+     * Busca las transacciones del usuario cuya descripción contiene todos los términos de la consulta.
+     * @param usuario El usuario propietario de las transacciones.
+     * @param texto El texto a buscar.
+     * @param despuesDe La última coincidencia de la página anterior, o null para la primera página.
+     * @param limite Número máximo de coincidencias a devolver.
+     * @return Las coincidencias ordenadas por relevancia e ID descendentes; vacía si la consulta no tiene términos.
+     */
+    List<CoincidenciaTexto> buscar(Usuario usuario, String texto, CoincidenciaTexto despuesDe, int limite);
+}
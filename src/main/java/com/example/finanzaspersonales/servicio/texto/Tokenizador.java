@@ -0,0 +1,41 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Divide las descripciones en términos: secuencias de letras o dígitos en minúsculas, igual que
+ * la configuración 'simple' de la búsqueda de texto de PostgreSQL (sin raíces ni palabras vacías).
+ */
+final class Tokenizador {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    static final int LONGITUD_MAXIMA = 64;
+
+    private Tokenizador() {
+    }
+
+    static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null) {
+            return terminos;
+        }
+        for (String termino : SEPARADORES.split(texto.toLowerCase(Locale.ROOT))) {
+            if (!termino.isEmpty()) {
+                terminos.add(termino.length() > LONGITUD_MAXIMA ? termino.substring(0, LONGITUD_MAXIMA) : termino);
+            }
+        }
+        return terminos;
+    }
+
+    /**
+     * Términos distintos de una consulta, en el orden en que aparecen.
+     */
+    static Set<String> terminosDeConsulta(String texto) {
+        return new LinkedHashSet<>(terminos(texto));
+    }
+}
@@ -0,0 +1,37 @@
+-- Esquema inicial de produccion (PostgreSQL), tal como lo generaba Hibernate antes de versionar las migraciones.
+-- Las bases de datos existentes se marcan como version 1 (spring.flyway.baseline-on-migrate) sin ejecutar este script.
+
+CREATE TABLE roles (
+    id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre VARCHAR(20) NOT NULL UNIQUE
+);
+
+CREATE TABLE usuarios (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre_usuario VARCHAR(255) NOT NULL UNIQUE,
+    contrasena     VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE usuarios_roles (
+    usuario_id BIGINT NOT NULL REFERENCES usuarios (id),
+    rol_id     BIGINT NOT NULL REFERENCES roles (id),
+    PRIMARY KEY (usuario_id, rol_id)
+);
+
+CREATE TABLE categorias (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre     VARCHAR(255) NOT NULL,
+    tipo       VARCHAR(255) NOT NULL CHECK (tipo IN ('INGRESO', 'EGRESO')),
+    usuario_id BIGINT       NOT NULL REFERENCES usuarios (id)
+);
+
+CREATE TABLE transacciones (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    monto        NUMERIC(38, 2) NOT NULL,
+    tipo         VARCHAR(255)   NOT NULL CHECK (tipo IN ('INGRESO', 'EGRESO')),
+    descripcion  VARCHAR(255)   NOT NULL,
+    fecha        DATE           NOT NULL,
+    categoria_id BIGINT         NOT NULL REFERENCES categorias (id)
+);
+
+INSERT INTO roles (nombre) VALUES ('ROLE_USER'), ('ROLE_ADMIN') ON CONFLICT (nombre) DO NOTHING;
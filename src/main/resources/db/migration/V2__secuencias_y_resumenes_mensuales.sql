@@ -0,0 +1,28 @@
+-- Identificadores por secuencia con bloques de 50 (lotes JDBC) y acumulados mensuales para los reportes.
+
+-- Hibernate (optimizador pooled) reserva los 50 valores anteriores al que devuelve la secuencia,
+-- por lo que el primer valor debe superar en 50 al mayor ID existente.
+CREATE SEQUENCE transacciones_seq INCREMENT BY 50;
+SELECT setval('transacciones_seq', COALESCE((SELECT MAX(id) FROM transacciones), 0) + 51, false);
+
+CREATE SEQUENCE resumenes_mensuales_seq INCREMENT BY 50;
+
+CREATE TABLE resumenes_mensuales (
+    id           BIGINT         PRIMARY KEY,
+    usuario_id   BIGINT         NOT NULL REFERENCES usuarios (id),
+    categoria_id BIGINT         NOT NULL REFERENCES categorias (id),
+    tipo         VARCHAR(255)   NOT NULL CHECK (tipo IN ('INGRESO', 'EGRESO')),
+    periodo      DATE           NOT NULL,
+    total        NUMERIC(38, 2) NOT NULL,
+    cantidad     BIGINT         NOT NULL,
+    CONSTRAINT uk_resumenes_mensuales UNIQUE (usuario_id, categoria_id, tipo, periodo)
+);
+
+-- Los acumulados de las transacciones ya existentes
+INSERT INTO resumenes_mensuales (id, usuario_id, categoria_id, tipo, periodo, total, cantidad)
+SELECT nextval('resumenes_mensuales_seq'), r.usuario_id, r.categoria_id, r.tipo, r.periodo, r.total, r.cantidad
+FROM (SELECT c.usuario_id, t.categoria_id, t.tipo, CAST(date_trunc('month', t.fecha) AS DATE) AS periodo,
+             SUM(t.monto) AS total, COUNT(*) AS cantidad
+      FROM transacciones t
+               JOIN categorias c ON c.id = t.categoria_id
+      GROUP BY c.usuario_id, t.categoria_id, t.tipo, CAST(date_trunc('month', t.fecha) AS DATE)) r;
@@ -0,0 +1,22 @@
+-- Propietario desnormalizado en transacciones e indices compuestos para las consultas por usuario y fecha.
+
+ALTER TABLE transacciones ADD COLUMN usuario_id BIGINT;
+
+UPDATE transacciones t
+SET usuario_id = c.usuario_id
+FROM categorias c
+WHERE c.id = t.categoria_id;
+
+ALTER TABLE transacciones ALTER COLUMN usuario_id SET NOT NULL;
+ALTER TABLE transacciones ADD CONSTRAINT fk_transacciones_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id);
+
+-- Rangos de fechas, listados y paginacion por clave (fecha, id) de un usuario
+CREATE INDEX idx_transacciones_usuario_fecha ON transacciones (usuario_id, fecha, id);
+-- Consultas por usuario y categoria en un rango de fechas
+CREATE INDEX idx_transacciones_usuario_categoria_fecha ON transacciones (usuario_id, categoria_id, fecha);
+-- Clave foranea: evita recorrer la tabla al borrar o comprobar una categoria
+CREATE INDEX idx_transacciones_categoria ON transacciones (categoria_id);
+
+CREATE INDEX idx_categorias_usuario ON categorias (usuario_id);
+
+ANALYZE transacciones;
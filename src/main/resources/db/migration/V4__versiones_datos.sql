@@ -0,0 +1,9 @@
+-- Version de los datos de cada usuario, incrementada por cada escritura de transacciones o categorias (ETags).
+
+CREATE TABLE versiones_datos (
+    usuario_id BIGINT PRIMARY KEY REFERENCES usuarios (id),
+    version    BIGINT NOT NULL
+);
+
+INSERT INTO versiones_datos (usuario_id, version)
+SELECT id, 1 FROM usuarios;
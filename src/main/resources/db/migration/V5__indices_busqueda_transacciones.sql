@@ -0,0 +1,9 @@
+-- Indices para la busqueda filtrada de transacciones (GET /api/transacciones/buscar).
+-- Ambos terminan en id, que desempata la paginacion por clave: el orden de la consulta sale del propio indice.
+
+-- Filtro por tipo ordenado por fecha (p. ej. solo los egresos de un rango)
+CREATE INDEX idx_transacciones_usuario_tipo_fecha ON transacciones (usuario_id, tipo, fecha, id);
+-- Rango de montos y orden por monto
+CREATE INDEX idx_transacciones_usuario_monto ON transacciones (usuario_id, monto, id);
+
+ANALYZE transacciones;
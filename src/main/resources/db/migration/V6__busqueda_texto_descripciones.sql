@@ -0,0 +1,14 @@
+-- Busqueda de texto en las descripciones de las transacciones (GET /api/transacciones/buscar-texto).
+
+-- Permite incluir usuario_id (un escalar) en el indice GIN, de modo que cada busqueda recorre solo las entradas del usuario
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+-- Configuracion 'simple': terminos en minusculas sin raices ni palabras vacias, adecuada para nombres de comercios.
+-- Al ser una columna generada, PostgreSQL la recalcula en cada INSERT o UPDATE de la descripcion.
+-- Anadirla reescribe la tabla, por lo que esta migracion debe ejecutarse en una ventana de mantenimiento.
+ALTER TABLE transacciones
+    ADD COLUMN descripcion_tsv tsvector GENERATED ALWAYS AS (to_tsvector('simple', descripcion)) STORED;
+
+CREATE INDEX idx_transacciones_usuario_descripcion_tsv ON transacciones USING gin (usuario_id, descripcion_tsv);
+
+ANALYZE transacciones;
@@ -0,0 +1,12 @@
+-- Claves de idempotencia de POST /api/transacciones (cabecera Idempotency-Key): una fila por clave y usuario,
+-- con la respuesta devuelta, hasta que caduca. La restriccion unica serializa los reintentos simultaneos.
+
+CREATE TABLE claves_idempotencia (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usuario_id BIGINT                   NOT NULL REFERENCES usuarios (id),
+    clave      VARCHAR(255)             NOT NULL,
+    huella     VARCHAR(64)              NOT NULL,
+    respuesta  VARCHAR(4000),
+    caduca_en  TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_claves_idempotencia_usuario_clave UNIQUE (usuario_id, clave)
+);
@@ -0,0 +1,167 @@
+package com.example.finanzaspersonales.controladores;
+
+import com.example.finanzaspersonales.observabilidad.MedicionConsultas;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración que fijan un presupuesto de sentencias SQL por endpoint.
+ * Cada usuario de prueba tiene varias categorías y transacciones, de modo que un N+1
+ * (una consulta por fila) haría que el número de sentencias superase el presupuesto.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("Presupuesto de consultas SQL por endpoint")
+class PresupuestoConsultasIntegrationTest {
+
+    // Autenticación: el usuario y sus roles. Es una cota: con la caché de segundo nivel caliente no ejecuta ninguna.
+    private static final int SENTENCIAS_AUTENTICACION = 2;
+    // Versión de los datos del usuario, leída antes que los datos para calcular el ETag
+    private static final int SENTENCIAS_ETAG = 1;
+    // Autenticación y ETag más, como mucho, tres consultas propias del endpoint
+    private static final int PRESUPUESTO_LECTURA = SENTENCIAS_AUTENTICACION + SENTENCIAS_ETAG + 3;
+    private static final int TRANSACCIONES = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String nombreUsuario = "presupuesto-" + UUID.randomUUID().toString().substring(0, 8);
+        Map<String, String> credenciales = Map.of("nombreUsuario", nombreUsuario, "contrasena", "secreto123");
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(credenciales)))
+                .andExpect(status().isCreated());
+        String login = mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(credenciales)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(login).get("token").asText();
+
+        long[] categorias = new long[3];
+        for (int i = 0; i < categorias.length; i++) {
+            String categoria = mockMvc.perform(autenticada(post("/api/categorias"))
+                            .content(objectMapper.writeValueAsString(Map.of("nombre", "Categoria " + i, "tipo", "EGRESO"))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            categorias[i] = objectMapper.readTree(categoria).get("id").asLong();
+        }
+        for (int i = 0; i < TRANSACCIONES; i++) {
+            Map<String, Object> transaccion = Map.of(
+                    "monto", "10.00",
+                    "tipo", "EGRESO",
+                    "descripcion", "Gasto " + i,
+                    "fecha", LocalDate.of(2024, 1 + i % 3, 1 + i % 28).toString(),
+                    "categoriaId", categorias[i % categorias.length]);
+            mockMvc.perform(autenticada(post("/api/transacciones")).content(objectMapper.writeValueAsString(transaccion)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/categorias no depende del número de categorías")
+    void listarCategorias_dentroDelPresupuesto() throws Exception {
+        try (MedicionConsultas medicion = MedicionConsultas.iniciar()) {
+            mockMvc.perform(autenticada(get("/api/categorias"))).andExpect(status().isOk());
+            medicion.verificarMaximoSentencias(PRESUPUESTO_LECTURA);
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/transacciones no carga las categorías una a una")
+    void listarTransacciones_dentroDelPresupuesto() throws Exception {
+        try (MedicionConsultas medicion = MedicionConsultas.iniciar()) {
+            String cuerpo = mockMvc.perform(autenticada(get("/api/transacciones"))).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            medicion.verificarMaximoSentencias(PRESUPUESTO_LECTURA);
+            JsonNode transacciones = objectMapper.readTree(cuerpo);
+            assertEquals(TRANSACCIONES, transacciones.size());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/reportes/financiero agrega en la base de datos")
+    void reporteFinanciero_dentroDelPresupuesto() throws Exception {
+        try (MedicionConsultas medicion = MedicionConsultas.iniciar()) {
+            mockMvc.perform(autenticada(get("/api/reportes/financiero"))
+                            .param("fechaInicio", "2024-01-10")
+                            .param("fechaFin", "2024-03-20"))
+                    .andExpect(status().isOk());
+            medicion.verificarMaximoSentencias(PRESUPUESTO_LECTURA);
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/transacciones con If-None-Match vigente responde 304 sin consultar las transacciones")
+    void listarTransacciones_conEtagVigente_noConsultaLosDatos() throws Exception {
+        String etag = mockMvc.perform(autenticada(get("/api/transacciones"))).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        try (MedicionConsultas medicion = MedicionConsultas.iniciar()) {
+            mockMvc.perform(autenticada(get("/api/transacciones")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+            medicion.verificarMaximoSentencias(SENTENCIAS_AUTENTICACION + SENTENCIAS_ETAG); // Nada de los datos
+        }
+
+        // Una escritura del usuario cambia la versión y, con ella, el ETag
+        mockMvc.perform(autenticada(post("/api/categorias"))
+                        .content(objectMapper.writeValueAsString(Map.of("nombre", "Nueva", "tipo", "INGRESO"))))
+                .andExpect(status().isCreated());
+        String nuevoEtag = mockMvc.perform(autenticada(get("/api/transacciones")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, nuevoEtag);
+    }
+
+    @Test
+    @DisplayName("La autenticación resuelve el usuario y sus roles desde la caché de segundo nivel")
+    void autenticacion_desdeLaCacheDeSegundoNivel() throws Exception {
+        String etag = mockMvc.perform(autenticada(get("/api/categorias"))).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long aciertosPorNombre = estadisticas.getNaturalIdCacheHitCount();
+
+        try (MedicionConsultas medicion = MedicionConsultas.iniciar()) {
+            mockMvc.perform(autenticada(get("/api/categorias")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+            medicion.verificarMaximoSentencias(1); // Solo la versión de los datos
+        }
+        assertTrue(estadisticas.getNaturalIdCacheHitCount() > aciertosPorNombre);
+    }
+
+    private MockHttpServletRequestBuilder autenticada(MockHttpServletRequestBuilder peticion) {
+        return peticion.header(HttpHeaders.AUTHORIZATION, "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+    }
+}
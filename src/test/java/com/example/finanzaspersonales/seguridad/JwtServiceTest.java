@@ -0,0 +1,106 @@
+package com.example.finanzaspersonales.seguridad;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de JwtService: la caché de tokens verificados evita volver a analizar un token,
+ * pero no hace válido un token caducado ni uno firmado con otra clave.
+ */
+@DisplayName("Pruebas Unitarias para JwtService")
+class JwtServiceTest {
+
+    private static final String CLAVE = clave("clave de firma de las pruebas unitarias de JwtService");
+    private static final String OTRA_CLAVE = clave("otra clave de firma, distinta de la del servicio");
+
+    @Test
+    @DisplayName("Debería analizar el token solo la primera vez y responder después desde la caché")
+    void validarToken_aciertoEnCache_noDeberiaVolverAAnalizarElToken() {
+        JwtService jwtService = spy(new JwtService(CLAVE, 60_000, 100));
+        String token = jwtService.generarToken("usuarioTest");
+
+        assertEquals("usuarioTest", jwtService.validarToken(token));
+        assertEquals("usuarioTest", jwtService.validarToken(token));
+        assertTrue(jwtService.esTokenValido(token, "usuarioTest"));
+
+        verify(jwtService, times(1)).extraerTodosLosClaims(token);
+    }
+
+    @Test
+    @DisplayName("Debería dejar de validar un token caducado aunque se hubiera guardado en la caché")
+    void validarToken_tokenCaducadoEnCache_deberiaRechazarlo() {
+        RelojManual reloj = new RelojManual(Instant.parse("2024-05-03T10:00:00Z"));
+        JwtService jwtService = new JwtService(CLAVE, 60_000, 100, reloj);
+        String token = jwtService.generarToken("usuarioTest");
+        assertEquals("usuarioTest", jwtService.validarToken(token));
+
+        reloj.adelantar(Duration.ofSeconds(59));
+        assertEquals("usuarioTest", jwtService.validarToken(token));
+
+        reloj.adelantar(Duration.ofSeconds(2)); // Pasado el claim exp
+        assertNull(jwtService.validarToken(token));
+        assertFalse(jwtService.esTokenValido(token, "usuarioTest"));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un token firmado con otra clave o con la firma alterada")
+    void validarToken_firmaAjena_deberiaRechazarlo() {
+        JwtService jwtService = new JwtService(CLAVE, 60_000, 100);
+        String ajeno = new JwtService(OTRA_CLAVE, 60_000, 100).generarToken("usuarioTest");
+
+        assertNull(jwtService.validarToken(ajeno));
+
+        // Un token válido en la caché no sirve de aval a otro con la misma cabecera y contenido
+        String propio = jwtService.generarToken("usuarioTest");
+        assertEquals("usuarioTest", jwtService.validarToken(propio));
+        String sinFirmaPropia = propio.substring(0, propio.lastIndexOf('.') + 1) + ajeno.substring(ajeno.lastIndexOf('.') + 1);
+        assertNull(jwtService.validarToken(sinFirmaPropia));
+        assertNull(jwtService.validarToken("no-es-un-jwt"));
+    }
+
+    private static String clave(String texto) {
+        return Base64.getEncoder().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reloj que solo avanza cuando la prueba lo adelanta.
+     */
+    private static final class RelojManual extends Clock {
+
+        private Instant ahora;
+
+        RelojManual(Instant inicio) {
+            this.ahora = inicio;
+        }
+
+        void adelantar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.operaciones.CategoriaDTO;
+import com.example.finanzaspersonales.evento.CategoriasModificadasEvent;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Rol;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de CategoriasUsuarioCache: las comprobaciones de propiedad y los listados se responden desde
+ * la caché tras la primera carga, una escritura confirmada obliga a recargar y una carga que se solapa con
+ * una invalidación no se guarda.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para CategoriasUsuarioCache")
+class CategoriasUsuarioCacheTest {
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    private CategoriasUsuarioCache categoriasUsuarioCache;
+    private SimpleMeterRegistry meterRegistry;
+    private Usuario usuarioPrueba;
+    private Categoria comida;
+    private Categoria salario;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        categoriasUsuarioCache = new CategoriasUsuarioCache(categoriaRepository, 100, Duration.ofMinutes(30), meterRegistry);
+        usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER")));
+        comida = new Categoria(101L, "Comida", TipoTransaccion.EGRESO, usuarioPrueba);
+        salario = new Categoria(201L, "Salario", TipoTransaccion.INGRESO, usuarioPrueba);
+    }
+
+    @Test
+    @DisplayName("Debería responder desde la caché tras la primera carga, con copias que el llamante puede modificar")
+    void obtener_trasLaPrimeraCarga_deberiaResponderDesdeLaCache() {
+        when(categoriaRepository.findByUsuario(usuarioPrueba)).thenReturn(List.of(comida, salario));
+
+        List<CategoriaDTO> categorias = categoriasUsuarioCache.listar(usuarioPrueba);
+        categorias.get(0).setNombre("Modificada");
+
+        assertEquals(List.of("Comida", "Salario"), nombres(categoriasUsuarioCache.listar(usuarioPrueba)));
+        assertTrue(categoriasUsuarioCache.pertenece(usuarioPrueba, 101L));
+        assertFalse(categoriasUsuarioCache.pertenece(usuarioPrueba, 999L));
+        assertEquals(TipoTransaccion.INGRESO, categoriasUsuarioCache.buscar(usuarioPrueba, 201L).orElseThrow().getTipo());
+        assertEquals(Set.of(7L, 999L), categoriasUsuarioCache.ajenas(usuarioPrueba, List.of(999L, 101L, 7L)));
+
+        verify(categoriaRepository, times(1)).findByUsuario(usuarioPrueba);
+        assertEquals(1.0, meterRegistry.counter("finanzas.cache.categorias.fallos").count());
+        assertEquals(5.0, meterRegistry.counter("finanzas.cache.categorias.aciertos").count());
+    }
+
+    @Test
+    @DisplayName("Debería recargar las categorías tras una escritura confirmada")
+    void alModificarCategorias_trasElCommit_deberiaRecargar() {
+        when(categoriaRepository.findByUsuario(usuarioPrueba))
+                .thenReturn(List.of(comida))
+                .thenReturn(List.of(comida, salario));
+        assertFalse(categoriasUsuarioCache.pertenece(usuarioPrueba, 201L));
+
+        categoriasUsuarioCache.alModificarCategorias(new CategoriasModificadasEvent(1L));
+
+        assertTrue(categoriasUsuarioCache.pertenece(usuarioPrueba, 201L));
+        assertEquals(List.of("Comida", "Salario"), nombres(categoriasUsuarioCache.listar(usuarioPrueba)));
+        verify(categoriaRepository, times(2)).findByUsuario(usuarioPrueba);
+
+        // La invalidación de otro usuario no afecta a este
+        categoriasUsuarioCache.alModificarCategorias(new CategoriasModificadasEvent(2L));
+        assertTrue(categoriasUsuarioCache.pertenece(usuarioPrueba, 101L));
+        verify(categoriaRepository, times(2)).findByUsuario(usuarioPrueba);
+    }
+
+    @Test
+    @DisplayName("No debería guardar una carga que se solapa con una invalidación")
+    void obtener_cargaSolapadaConInvalidacion_noDeberiaGuardarse() {
+        when(categoriaRepository.findByUsuario(usuarioPrueba))
+                .thenAnswer(invocation -> {
+                    // La escritura se confirma mientras se leen las categorías antiguas
+                    categoriasUsuarioCache.alModificarCategorias(new CategoriasModificadasEvent(1L));
+                    return List.of(comida);
+                })
+                .thenReturn(List.of(comida, salario));
+
+        // La carga solapada se devuelve a quien la pidió, pero no se guarda
+        assertFalse(categoriasUsuarioCache.pertenece(usuarioPrueba, 201L));
+
+        assertTrue(categoriasUsuarioCache.pertenece(usuarioPrueba, 201L));
+        assertTrue(categoriasUsuarioCache.pertenece(usuarioPrueba, 201L));
+        verify(categoriaRepository, times(2)).findByUsuario(usuarioPrueba);
+    }
+
+    private static List<String> nombres(List<CategoriaDTO> categorias) {
+        return categorias.stream().map(CategoriaDTO::getNombre).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.ComparacionPeriodosDTO;
+import com.example.finanzaspersonales.dto.agregacion.ComparacionReporteDTO;
+import com.example.finanzaspersonales.dto.agregacion.PeriodoDTO;
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.VariacionReporteDTO;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.modelo.Rol;
+import com.example.finanzaspersonales.modelo.Usuario;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de ComparacionReporteService: los períodos se devuelven en el orden pedido,
+ * cada uno con su variación respecto al anterior, y los errores de un período llegan al llamador.
+ * También comprueba que la validación de la petición rechaza los períodos nulos o incompletos.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para ComparacionReporteService")
+class ComparacionReporteServiceTest {
+
+    @Mock
+    private ReporteService reporteService;
+    @Mock
+    private ServicioSeguridad servicioSeguridad;
+
+    private ComparacionReporteService comparacionReporteService;
+    private Usuario usuarioPrueba;
+
+    @BeforeEach
+    void setUp() {
+        comparacionReporteService = new ComparacionReporteService(reporteService, servicioSeguridad, 2, 4);
+        usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        comparacionReporteService.detener();
+    }
+
+    @Test
+    @DisplayName("Debería devolver los meses en orden con la variación respecto al mes anterior")
+    void compararMeses_deberiaCalcularLaVariacionEntreMesesConsecutivos() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(reporteService.generarReporteFinancieroDeUsuario(usuarioPrueba, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)))
+                .thenReturn(new ReporteFinancieroDTO(new BigDecimal("2000.00"), new BigDecimal("0.00"), new BigDecimal("2000.00"), Map.of()));
+        when(reporteService.generarReporteFinancieroDeUsuario(usuarioPrueba, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)))
+                .thenReturn(new ReporteFinancieroDTO(new BigDecimal("2500.00"), new BigDecimal("300.00"), new BigDecimal("2200.00"),
+                        Map.of("Comida", new BigDecimal("300.00"))));
+
+        ComparacionReporteDTO comparacion = comparacionReporteService.compararMeses(2, LocalDate.of(2024, 2, 14));
+
+        assertEquals(2, comparacion.getPeriodos().size());
+        assertEquals(LocalDate.of(2024, 1, 1), comparacion.getPeriodos().get(0).getFechaInicio());
+        assertNull(comparacion.getPeriodos().get(0).getVariacion());
+
+        VariacionReporteDTO variacion = comparacion.getPeriodos().get(1).getVariacion();
+        assertEquals(new BigDecimal("500.00"), variacion.getIngresos());
+        assertEquals(new BigDecimal("200.00"), variacion.getBalanceNeto());
+        assertEquals(new BigDecimal("25.00"), variacion.getPorcentajeIngresos());
+        assertNull(variacion.getPorcentajeEgresos()); // Sin egresos el mes anterior
+        assertEquals(new BigDecimal("300.00"), variacion.getGastosPorCategoria().get("Comida"));
+    }
+
+    @Test
+    @DisplayName("Debería propagar la excepción original de un período y rechazar períodos invertidos")
+    void compararPeriodos_conErrores_deberiaPropagarLaExcepcion() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(reporteService.generarReporteFinancieroDeUsuario(any(Usuario.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new IllegalStateException("fallo"));
+        List<PeriodoDTO> periodos = List.of(new PeriodoDTO(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+
+        assertThrows(IllegalStateException.class, () -> comparacionReporteService.compararPeriodos(periodos));
+        assertThrows(SolicitudInvalidaException.class, () -> comparacionReporteService.compararPeriodos(
+                List.of(new PeriodoDTO(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)))));
+        assertThrows(SolicitudInvalidaException.class, () -> comparacionReporteService.compararMeses(0, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar en la validación de la petición los períodos nulos o sin fechas")
+    void comparacionPeriodosDTO_periodoNulo_deberiaSerInvalido() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        ComparacionPeriodosDTO comparacion = new ComparacionPeriodosDTO();
+
+        comparacion.setPeriodos(Arrays.asList(new PeriodoDTO(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)), null));
+        assertEquals(List.of("Los períodos no pueden ser nulos"), mensajes(validator, comparacion));
+
+        comparacion.setPeriodos(List.of(new PeriodoDTO(LocalDate.of(2024, 1, 1), null)));
+        assertEquals(List.of("La fecha de fin del período no puede ser nula"), mensajes(validator, comparacion));
+
+        comparacion.setPeriodos(List.of(new PeriodoDTO(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31))));
+        assertTrue(mensajes(validator, comparacion).isEmpty());
+    }
+
+    private static List<String> mensajes(Validator validator, ComparacionPeriodosDTO comparacion) {
+        return validator.validate(comparacion).stream().map(ConstraintViolation::getMessage).toList();
+    }
+}
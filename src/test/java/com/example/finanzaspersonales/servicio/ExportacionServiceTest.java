@@ -0,0 +1,190 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.exportacion.FormatoExportacion;
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.mapper.TransaccionMapper;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Rol;
+import com.example.finanzaspersonales.modelo.Transaccion;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.TransaccionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de ExportacionService: escapado de los campos CSV, un objeto JSON completo por línea
+ * en NDJSON y escritura en streaming, desvinculando cada entidad y volcando la salida cada pocas filas.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para ExportacionService")
+class ExportacionServiceTest {
+
+    private static final int FILAS_POR_VOLCADO = 4;
+
+    @Mock
+    private TransaccionRepository transaccionRepository;
+    @Mock
+    private TransaccionMapper transaccionMapper;
+    @Mock
+    private ServicioSeguridad servicioSeguridad;
+    @Mock
+    private EntityManager entityManager;
+
+    private ExportacionService exportacionService;
+    private Usuario usuarioPrueba;
+    private Categoria categoria;
+
+    @BeforeEach
+    void setUp() {
+        exportacionService = new ExportacionService(transaccionRepository, transaccionMapper, servicioSeguridad,
+                entityManager, new ObjectMapper().findAndRegisterModules()
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS), // Como el ObjectMapper de Spring Boot
+                FILAS_POR_VOLCADO);
+        usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER")));
+        categoria = new Categoria(101L, "Comida", TipoTransaccion.EGRESO, usuarioPrueba);
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        lenient().when(transaccionMapper.aTransaccionDTO(any(Transaccion.class))).thenAnswer(invocation -> {
+            Transaccion transaccion = invocation.getArgument(0);
+            TransaccionDTO dto = new TransaccionDTO();
+            dto.setId(transaccion.getId());
+            dto.setMonto(transaccion.getMonto());
+            dto.setTipo(transaccion.getTipo());
+            dto.setDescripcion(transaccion.getDescripcion());
+            dto.setFecha(transaccion.getFecha());
+            dto.setCategoriaId(transaccion.getCategoria().getId());
+            return dto;
+        });
+    }
+
+    @Test
+    @DisplayName("Debería entrecomillar en CSV las descripciones con comas, comillas o saltos de línea")
+    void exportarTransacciones_csv_deberiaEscaparLaDescripcion() throws IOException {
+        devolver(transaccion(1L, "Almuerzo"),
+                transaccion(2L, "Cena, bebidas"),
+                transaccion(3L, "Restaurante \"El Puerto\""),
+                transaccion(4L, "Línea 1\nLínea 2"),
+                transaccion(5L, "Retorno\r de carro"));
+
+        String csv = exportar(FormatoExportacion.CSV).toString(StandardCharsets.UTF_8);
+
+        assertEquals("id,fecha,tipo,monto,descripcion,categoriaId\n" +
+                "1,2024-05-03,EGRESO,12.50,Almuerzo,101\n" +
+                "2,2024-05-03,EGRESO,12.50,\"Cena, bebidas\",101\n" +
+                "3,2024-05-03,EGRESO,12.50,\"Restaurante \"\"El Puerto\"\"\",101\n" +
+                "4,2024-05-03,EGRESO,12.50,\"Línea 1\nLínea 2\",101\n" +
+                "5,2024-05-03,EGRESO,12.50,\"Retorno\r de carro\",101\n", csv);
+    }
+
+    @Test
+    @DisplayName("Debería escribir en NDJSON un objeto JSON completo por línea, sin cerrar la salida")
+    void exportarTransacciones_ndjson_deberiaEscribirUnObjetoPorLinea() throws IOException {
+        devolver(transaccion(1L, "Almuerzo"), transaccion(2L, "Línea 1\nLínea 2, \"con comillas\""));
+
+        SalidaRegistrada salida = exportar(FormatoExportacion.NDJSON);
+        String ndjson = salida.toString(StandardCharsets.UTF_8);
+
+        assertTrue(ndjson.endsWith("\n"));
+        String[] lineas = ndjson.split("\n");
+        assertEquals(2, lineas.length); // El salto de línea de la descripción va escapado dentro del JSON
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode segunda = objectMapper.readTree(lineas[1]);
+        assertEquals(2L, segunda.get("id").asLong());
+        assertEquals("Línea 1\nLínea 2, \"con comillas\"", segunda.get("descripcion").asText());
+        assertEquals("2024-05-03", segunda.get("fecha").asText());
+        assertEquals(0, new BigDecimal("12.50").compareTo(segunda.get("monto").decimalValue()));
+        assertEquals(101L, objectMapper.readTree(lineas[0]).get("categoriaId").asLong());
+        assertFalse(salida.cerrada, "La salida la cierra el contenedor, no el servicio");
+    }
+
+    @Test
+    @DisplayName("Debería desvincular cada entidad tras escribirla y volcar la salida cada bloque de filas")
+    void exportarTransacciones_muchasFilas_deberiaDesvincularYVolcarPorBloques() throws IOException {
+        List<Transaccion> transacciones = IntStream.rangeClosed(1, 2 * FILAS_POR_VOLCADO + 1)
+                .mapToObj(i -> transaccion((long) i, "Gasto " + i))
+                .toList();
+        AtomicBoolean flujoCerrado = new AtomicBoolean();
+        when(transaccionRepository.recorrerPorUsuario(usuarioPrueba))
+                .thenReturn(transacciones.stream().onClose(() -> flujoCerrado.set(true)));
+
+        SalidaRegistrada salida = exportar(FormatoExportacion.CSV);
+
+        // Volcados a las 4 y 8 filas y uno final; cada uno termina en una fila completa
+        List<String> volcados = salida.volcados.stream().map(v -> new String(v, StandardCharsets.UTF_8)).toList();
+        assertEquals(3, volcados.size());
+        assertEquals(FILAS_POR_VOLCADO + 1, volcados.get(0).lines().count()); // Cabecera y un bloque de filas
+        assertTrue(volcados.get(0).endsWith("Gasto 4,101\n"));
+        assertTrue(volcados.get(1).endsWith("Gasto 8,101\n"));
+        assertTrue(volcados.get(2).endsWith("Gasto 9,101\n"));
+
+        InOrder orden = inOrder(transaccionMapper, entityManager);
+        for (Transaccion transaccion : transacciones) {
+            orden.verify(transaccionMapper).aTransaccionDTO(transaccion);
+            orden.verify(entityManager).detach(transaccion);
+        }
+        assertTrue(flujoCerrado.get(), "El flujo del repositorio debe cerrarse para liberar el cursor");
+    }
+
+    private void devolver(Transaccion... transacciones) {
+        when(transaccionRepository.recorrerPorUsuario(usuarioPrueba)).thenReturn(List.of(transacciones).stream());
+    }
+
+    private SalidaRegistrada exportar(FormatoExportacion formato) throws IOException {
+        SalidaRegistrada salida = new SalidaRegistrada();
+        exportacionService.exportarTransacciones(formato, salida);
+        return salida;
+    }
+
+    private Transaccion transaccion(Long id, String descripcion) {
+        return new Transaccion(id, new BigDecimal("12.50"), TipoTransaccion.EGRESO, descripcion,
+                LocalDate.of(2024, 5, 3), categoria, usuarioPrueba);
+    }
+
+    /**
+     * Salida que guarda lo que contenía en cada volcado y si se ha cerrado.
+     */
+    private static final class SalidaRegistrada extends ByteArrayOutputStream {
+
+        private final List<byte[]> volcados = new ArrayList<>();
+        private boolean cerrada;
+
+        @Override
+        public void flush() {
+            // Cada volcado registra solo lo escrito desde el anterior
+            int anterior = volcados.stream().mapToInt(v -> v.length).sum();
+            byte[] todo = toByteArray();
+            byte[] nuevo = new byte[todo.length - anterior];
+            System.arraycopy(todo, anterior, nuevo, 0, nuevo.length);
+            volcados.add(nuevo);
+        }
+
+        @Override
+        public void close() {
+            cerrada = true;
+        }
+    }
+}
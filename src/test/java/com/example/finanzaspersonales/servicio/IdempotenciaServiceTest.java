@@ -0,0 +1,145 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
+import com.example.finanzaspersonales.modelo.ClaveIdempotencia;
+import com.example.finanzaspersonales.modelo.Rol;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.ClaveIdempotenciaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de IdempotenciaService: un reintento con la misma clave devuelve la transacción original
+ * sin volver a crearla, la misma clave con otra petición se rechaza y los duplicados simultáneos se serializan.
+ * El repositorio de claves se simula con un mapa en memoria.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para IdempotenciaService")
+class IdempotenciaServiceTest {
+
+    @Mock
+    private ClaveIdempotenciaRepository claveIdempotenciaRepository;
+    @Mock
+    private TransaccionService transaccionService;
+    @Mock
+    private ServicioSeguridad servicioSeguridad;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IdempotenciaService idempotenciaService;
+    private final Map<String, ClaveIdempotencia> claves = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        idempotenciaService = new IdempotenciaService(claveIdempotenciaRepository, transaccionService, servicioSeguridad,
+                new ObjectMapper().findAndRegisterModules(), transactionManager, Duration.ofHours(24));
+        Usuario usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER")));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        lenient().when(claveIdempotenciaRepository.findByUsuarioIdAndClave(anyLong(), anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(claves.get(invocation.<String>getArgument(1))));
+        lenient().when(claveIdempotenciaRepository.saveAndFlush(any(ClaveIdempotencia.class)))
+                .thenAnswer(invocation -> {
+                    ClaveIdempotencia clave = invocation.getArgument(0);
+                    claves.put(clave.getClave(), clave);
+                    return clave;
+                });
+        lenient().when(transaccionService.crearTransaccion(any(TransaccionDTO.class)))
+                .thenAnswer(invocation -> {
+                    TransaccionDTO creada = transaccion(invocation.<TransaccionDTO>getArgument(0).getDescripcion());
+                    creada.setId(ids.incrementAndGet());
+                    return creada;
+                });
+    }
+
+    @Test
+    @DisplayName("Debería devolver la transacción original al reintentar con la misma clave, sin crear otra")
+    void crearTransaccion_reintento_deberiaDevolverLaOriginal() {
+        IdempotenciaService.TransaccionIdempotente primera = idempotenciaService.crearTransaccion("clave-1", transaccion("Almuerzo"));
+        IdempotenciaService.TransaccionIdempotente reintento = idempotenciaService.crearTransaccion("clave-1", transaccion("Almuerzo"));
+
+        assertFalse(primera.repetida());
+        assertTrue(reintento.repetida());
+        assertEquals(primera.transaccion(), reintento.transaccion());
+        verify(transaccionService, times(1)).crearTransaccion(any(TransaccionDTO.class));
+
+        // Otra clave es otra operación
+        assertFalse(idempotenciaService.crearTransaccion("clave-2", transaccion("Almuerzo")).repetida());
+        verify(transaccionService, times(2)).crearTransaccion(any(TransaccionDTO.class));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar una clave reutilizada con otra petición y una clave vacía")
+    void crearTransaccion_claveReutilizadaOVacia_deberiaLanzarExcepcion() {
+        idempotenciaService.crearTransaccion("clave-1", transaccion("Almuerzo"));
+
+        assertThrows(SolicitudInvalidaException.class, () -> idempotenciaService.crearTransaccion("clave-1", transaccion("Cena")));
+        assertThrows(SolicitudInvalidaException.class, () -> idempotenciaService.crearTransaccion(" ", transaccion("Cena")));
+        verify(transaccionService, times(1)).crearTransaccion(any(TransaccionDTO.class));
+    }
+
+    @Test
+    @DisplayName("Debería crear una sola transacción ante reintentos simultáneos con la misma clave")
+    void crearTransaccion_duplicadosSimultaneos_deberianSerializarse() throws Exception {
+        int peticiones = 8;
+        ExecutorService hilos = Executors.newFixedThreadPool(peticiones);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<IdempotenciaService.TransaccionIdempotente>> resultados = new ArrayList<>();
+            for (int i = 0; i < peticiones; i++) {
+                resultados.add(hilos.submit(() -> {
+                    salida.await();
+                    return idempotenciaService.crearTransaccion("clave-movil", transaccion("Taxi"));
+                }));
+            }
+            salida.countDown();
+
+            int creadas = 0;
+            for (Future<IdempotenciaService.TransaccionIdempotente> resultado : resultados) {
+                IdempotenciaService.TransaccionIdempotente transaccion = resultado.get();
+                assertEquals(1L, transaccion.transaccion().getId());
+                creadas += transaccion.repetida() ? 0 : 1;
+            }
+            assertEquals(1, creadas);
+            verify(transaccionService, times(1)).crearTransaccion(any(TransaccionDTO.class));
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private static TransaccionDTO transaccion(String descripcion) {
+        TransaccionDTO transaccionDTO = new TransaccionDTO();
+        transaccionDTO.setMonto(new BigDecimal("12.50"));
+        transaccionDTO.setTipo(TipoTransaccion.EGRESO);
+        transaccionDTO.setDescripcion(descripcion);
+        transaccionDTO.setFecha(LocalDate.of(2024, 5, 3));
+        transaccionDTO.setCategoriaId(101L);
+        return transaccionDTO;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.importacion.EstadoImportacion;
+import com.example.finanzaspersonales.dto.importacion.FormatoExtracto;
+import com.example.finanzaspersonales.dto.importacion.ImportacionDTO;
+import com.example.finanzaspersonales.dto.importacion.SeparadorDecimal;
+import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.exception.LimiteExcedidoException;
+import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.modelo.Rol;
+import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.CategoriaRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de ImportacionService: lectura de importes con y sin separador decimal, confirmación
+ * de cada bloque en su propia transacción (un bloque fallido no deshace los demás), rechazo de nuevas
+ * importaciones cuando el ejecutor y su cola están llenos y retención del estado desde que la importación termina.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para ImportacionService")
+class ImportacionServiceTest {
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+    @Mock
+    private TransaccionService transaccionService;
+    @Mock
+    private ServicioSeguridad servicioSeguridad;
+
+    private ImportacionService importacionService;
+    private Usuario usuarioPrueba;
+
+    @BeforeEach
+    void setUp() {
+        usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER")));
+        lenient().when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        lenient().when(categoriaRepository.findByUsuario(usuarioPrueba)).thenReturn(List.of(
+                new Categoria(101L, "Comida", TipoTransaccion.EGRESO, usuarioPrueba),
+                new Categoria(201L, "Salario", TipoTransaccion.INGRESO, usuarioPrueba)));
+        importacionService = crearServicio(2, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importacionService.detener();
+    }
+
+    @Test
+    @DisplayName("Debería leer los importes con el separador decimal indicado")
+    void leerMonto_conSeparador_deberiaUsarloYAdmitirSeparadorDeMiles() {
+        assertEquals(new BigDecimal("1234"), ImportacionService.leerMonto("1,234", SeparadorDecimal.PUNTO));
+        assertEquals(new BigDecimal("1.234"), ImportacionService.leerMonto("1,234", SeparadorDecimal.COMA));
+        assertEquals(new BigDecimal("-1234567.89"), ImportacionService.leerMonto("-1,234,567.89", SeparadorDecimal.PUNTO));
+        assertEquals(new BigDecimal("1234.56"), ImportacionService.leerMonto("1 234,56", SeparadorDecimal.COMA));
+        // El separador de miles no puede ir detrás del decimal ni agrupar otra cosa que tres cifras
+        assertThrows(IllegalArgumentException.class, () -> ImportacionService.leerMonto("1.234,56", SeparadorDecimal.PUNTO));
+        assertThrows(IllegalArgumentException.class, () -> ImportacionService.leerMonto("12,5", SeparadorDecimal.PUNTO));
+    }
+
+    @Test
+    @DisplayName("Sin separador, debería deducirlo si solo hay una lectura posible y rechazar los importes ambiguos")
+    void leerMonto_sinSeparador_deberiaRechazarLosAmbiguos() {
+        assertEquals(new BigDecimal("12.5"), ImportacionService.leerMonto("12,5", null));
+        assertEquals(new BigDecimal("1234.56"), ImportacionService.leerMonto("1.234,56", null));
+        assertEquals(new BigDecimal("1234.56"), ImportacionService.leerMonto("1,234.56", null));
+        assertEquals(new BigDecimal("1234567"), ImportacionService.leerMonto("1,234,567", null));
+        assertEquals(new BigDecimal("42"), ImportacionService.leerMonto("42", null));
+
+        assertThrows(IllegalArgumentException.class, () -> ImportacionService.leerMonto("1,234", null));
+        assertThrows(IllegalArgumentException.class, () -> ImportacionService.leerMonto("1.234", null));
+        assertThrows(IllegalArgumentException.class, () -> ImportacionService.leerMonto("doce", null));
+    }
+
+    @Test
+    @DisplayName("Debería confirmar cada bloque por separado: un bloque fallido no deshace los demás")
+    void iniciarImportacion_bloqueFallido_deberiaConservarLosDemasBloques() throws Exception {
+        int lineas = 2 * ImportacionService.TAMANO_BLOQUE + 1;
+        StringBuilder csv = new StringBuilder("fecha,descripcion,monto,categoria\n");
+        for (int i = 0; i < lineas; i++) {
+            csv.append("2024-05-03,Gasto ").append(i).append(",-10.00,Comida\n");
+        }
+        csv.append("2024-05-03,Importe ambiguo,\"1,234\",Comida\n");
+        when(transaccionService.crearTransaccionesDeUsuario(eq(usuarioPrueba), anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(1))
+                .thenThrow(new IllegalStateException("violación de integridad"))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        ImportacionDTO importacion = esperar(importacionService.iniciarImportacion(
+                archivo(csv.toString()), FormatoExtracto.CSV, null, null, null).getId());
+
+        assertEquals(EstadoImportacion.COMPLETADA, importacion.getEstado());
+        assertEquals(lineas + 1, importacion.getLineasLeidas());
+        assertEquals(ImportacionService.TAMANO_BLOQUE + 1, importacion.getLineasImportadas());
+        assertEquals(ImportacionService.TAMANO_BLOQUE + 1, importacion.getLineasConError());
+        // La cabecera es la línea 1: el segundo bloque va de la 502 a la 1001
+        assertTrue(importacion.getErrores().stream().anyMatch(e -> e.startsWith("Líneas 502-1001: no se pudieron guardar")));
+        assertTrue(importacion.getErrores().stream().anyMatch(e -> e.startsWith("Línea 1003: Monto ambiguo")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransaccionDTO>> lotes = ArgumentCaptor.forClass(List.class);
+        verify(transaccionService, times(3)).crearTransaccionesDeUsuario(eq(usuarioPrueba), lotes.capture());
+        assertEquals(List.of(500, 500, 1), lotes.getAllValues().stream().map(List::size).toList());
+        TransaccionDTO primera = lotes.getAllValues().get(0).get(0);
+        assertEquals(new BigDecimal("10.00"), primera.getMonto());
+        assertEquals(TipoTransaccion.EGRESO, primera.getTipo());
+        assertEquals(101L, primera.getCategoriaId());
+        assertEquals(LocalDate.of(2024, 5, 3), primera.getFecha());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar la importación si el ejecutor y su cola están llenos")
+    void iniciarImportacion_colaLlena_deberiaLanzarLimiteExcedido() throws Exception {
+        importacionService.detener();
+        importacionService = crearServicio(1, 1);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(transaccionService.crearTransaccionesDeUsuario(eq(usuarioPrueba), anyList())).thenAnswer(invocation -> {
+            enCurso.countDown();
+            liberar.await(10, TimeUnit.SECONDS);
+            return invocation.getArgument(1);
+        });
+        String csv = "fecha,descripcion,monto,categoria\n2024-05-03,Almuerzo,-12.50,Comida\n";
+
+        try {
+            String primera = importacionService.iniciarImportacion(archivo(csv), FormatoExtracto.CSV, null, null, null).getId();
+            assertTrue(enCurso.await(10, TimeUnit.SECONDS)); // Ocupa el único hilo
+            String encolada = importacionService.iniciarImportacion(archivo(csv), FormatoExtracto.CSV, null, null, null).getId();
+
+            assertThrows(LimiteExcedidoException.class,
+                    () -> importacionService.iniciarImportacion(archivo(csv), FormatoExtracto.CSV, null, null, null));
+
+            liberar.countDown();
+            assertEquals(EstadoImportacion.COMPLETADA, esperar(primera).getEstado());
+            assertEquals(EstadoImportacion.COMPLETADA, esperar(encolada).getEstado());
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería contar la retención desde el final de la importación, no desde que se encoló")
+    void importaciones_retencion_deberiaContarDesdeElFinal() throws Exception {
+        Duration retencion = Duration.ofMillis(200);
+        importacionService.detener();
+        importacionService = crearServicio(1, 1, retencion);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(transaccionService.crearTransaccionesDeUsuario(eq(usuarioPrueba), anyList())).thenAnswer(invocation -> {
+            enCurso.countDown();
+            liberar.await(10, TimeUnit.SECONDS);
+            return invocation.getArgument(1);
+        });
+        String csv = "fecha,descripcion,monto,categoria\n2024-05-03,Almuerzo,-12.50,Comida\n";
+
+        try {
+            String primera = importacionService.iniciarImportacion(archivo(csv), FormatoExtracto.CSV, null, null, null).getId();
+            assertTrue(enCurso.await(10, TimeUnit.SECONDS)); // Ocupa el único hilo
+            String encolada = importacionService.iniciarImportacion(archivo(csv), FormatoExtracto.CSV, null, null, null).getId();
+
+            // En curso y en cola durante más tiempo que la retención: no caducan
+            Thread.sleep(retencion.multipliedBy(2).toMillis());
+            assertEquals(EstadoImportacion.EN_CURSO, importacionService.obtenerImportacion(primera).getEstado());
+            assertEquals(EstadoImportacion.PENDIENTE, importacionService.obtenerImportacion(encolada).getEstado());
+
+            liberar.countDown();
+            assertEquals(EstadoImportacion.COMPLETADA, esperar(primera).getEstado());
+            assertEquals(EstadoImportacion.COMPLETADA, esperar(encolada).getEstado());
+
+            Thread.sleep(retencion.multipliedBy(2).toMillis());
+            assertThrows(RecursoNoEncontradoException.class, () -> importacionService.obtenerImportacion(primera));
+            assertThrows(RecursoNoEncontradoException.class, () -> importacionService.obtenerImportacion(encolada));
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    private ImportacionService crearServicio(int hilos, int cola) {
+        return crearServicio(hilos, cola, Duration.ofMinutes(5));
+    }
+
+    private ImportacionService crearServicio(int hilos, int cola, Duration retencion) {
+        return new ImportacionService(categoriaRepository, transaccionService, servicioSeguridad,
+                Validation.buildDefaultValidatorFactory().getValidator(), hilos, cola, retencion);
+    }
+
+    private ImportacionDTO esperar(String id) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        ImportacionDTO importacion = importacionService.obtenerImportacion(id);
+        while (importacion.getEstado() != EstadoImportacion.COMPLETADA && importacion.getEstado() != EstadoImportacion.FALLIDA) {
+            assertTrue(System.nanoTime() < limite, "La importación no terminó a tiempo: " + importacion);
+            Thread.sleep(10);
+            importacion = importacionService.obtenerImportacion(id);
+        }
+        return importacion;
+    }
+
+    private static MockMultipartFile archivo(String contenido) {
+        return new MockMultipartFile("archivo", "extracto.csv", "text/csv", contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
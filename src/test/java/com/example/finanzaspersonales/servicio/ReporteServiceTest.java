@@ -1,23 +1,31 @@
 package com.example.finanzaspersonales.servicio;
 
+import com.example.finanzaspersonales.dto.agregacion.Granularidad;
+import com.example.finanzaspersonales.dto.agregacion.PuntoSerieDTO;
 import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.SerieTemporalDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.dto.agregacion.TotalPorFechaDTO;
 import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
-import com.example.finanzaspersonales.modelo.Categoria;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
 import com.example.finanzaspersonales.modelo.Rol;
 import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
-import com.example.finanzaspersonales.modelo.Transaccion;
 import com.example.finanzaspersonales.modelo.Usuario;
+import com.example.finanzaspersonales.repositorio.ResumenMensualRepository;
 import com.example.finanzaspersonales.repositorio.TransaccionRepository;
-import com.example.finanzaspersonales.repositorio.UsuarioRepository;
+import com.example.finanzaspersonales.servicio.columnar.MotorLibrosColumnares;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,8 +38,8 @@ import static org.mockito.Mockito.*;
 
 /**
  * Clase de pruebas unitarias para el ReporteService.
- * Prueba la lógica de negocio de los reportes: mockea el repositorio de transacciones
- * con datos de prueba y verifica que el servicio calcula los totales y las agrupaciones
+ * Prueba la lógica de negocio de los reportes: mockea la consulta agregada del repositorio
+ * de transacciones con datos de prueba y verifica que el servicio calcula los totales y las agrupaciones
  * por categoría correctamente. Prueba también los casos de borde (ej. un mes sin transacciones).
  */
 @ExtendWith(MockitoExtension.class)
@@ -41,9 +49,13 @@ class ReporteServiceTest {
     @Mock
     private TransaccionRepository transaccionRepository;
     @Mock
-    private UsuarioRepository usuarioRepository;
+    private ResumenMensualRepository resumenMensualRepository;
     @Mock
     private ServicioSeguridad servicioSeguridad; // 1. Mockear el servicio, no la utilidad estática
+    @Mock
+    private MotorLibrosColumnares motorLibrosColumnares; // Deshabilitado: devuelve Optional.empty()
+    @Spy
+    private ReporteCache reporteCache = new ReporteCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
 
     @InjectMocks
     private ReporteService reporteService;
@@ -65,27 +77,18 @@ class ReporteServiceTest {
     @DisplayName("Debería generar un reporte con ingresos y egresos correctos y agrupados por categoría")
     void generarReporteFinanciero_conTransacciones_deberiaDevolverReporteCorrecto() {
         // 3. Configurar el mock del servicio de seguridad (mucho más simple)
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
-
-        // Datos de prueba para transacciones
-        Categoria catSalario = new Categoria(100L, "Salario", TipoTransaccion.INGRESO, usuarioPrueba);
-        Categoria catComida = new Categoria(101L, "Comida", TipoTransaccion.EGRESO, usuarioPrueba);
-        Categoria catTransporte = new Categoria(102L, "Transporte", TipoTransaccion.EGRESO, usuarioPrueba);
-        Categoria catOcio = new Categoria(103L, "Ocio", TipoTransaccion.EGRESO, usuarioPrueba);
-
-        // 4. Corregir la instanciación de Transaccion (sin el usuario al final)
-        List<Transaccion> transacciones = Arrays.asList(
-                new Transaccion(1L, new BigDecimal("2000.00"), TipoTransaccion.INGRESO, "Pago de salario", LocalDate.of(2023, 1, 15), catSalario),
-                new Transaccion(2L, new BigDecimal("100.00"), TipoTransaccion.EGRESO, "Compra supermercado", LocalDate.of(2023, 1, 5), catComida),
-                new Transaccion(3L, new BigDecimal("50.00"), TipoTransaccion.EGRESO, "Billete de bus", LocalDate.of(2023, 1, 10), catTransporte),
-                new Transaccion(4L, new BigDecimal("75.00"), TipoTransaccion.EGRESO, "Cine", LocalDate.of(2023, 1, 20), catOcio),
-                new Transaccion(5L, new BigDecimal("25.00"), TipoTransaccion.EGRESO, "Café", LocalDate.of(2023, 1, 22), catComida),
-                new Transaccion(6L, new BigDecimal("500.00"), TipoTransaccion.INGRESO, "Venta de objeto", LocalDate.of(2023, 1, 25), catSalario)
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+
+        // Filas agregadas tal como las devuelve la consulta SUM ... GROUP BY tipo, categoría.
+        // Enero completo se resuelve con los acumulados mensuales.
+        List<TotalPorCategoriaDTO> totales = Arrays.asList(
+                new TotalPorCategoriaDTO(TipoTransaccion.INGRESO, "Salario", new BigDecimal("2500.00")),
+                new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Comida", new BigDecimal("125.00")),
+                new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Transporte", new BigDecimal("50.00")),
+                new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Ocio", new BigDecimal("75.00"))
         );
 
-        // 5. Corregir el nombre del método del repositorio
-        when(transaccionRepository.findAllByUsuarioAndFechaBetween(usuarioPrueba, fechaInicio, fechaFin)).thenReturn(transacciones);
+        when(resumenMensualRepository.sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio)).thenReturn(totales);
 
         // Ejecuta el método
         ReporteFinancieroDTO reporte = reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
@@ -102,16 +105,44 @@ class ReporteServiceTest {
         assertEquals(new BigDecimal("50.00"), reporte.getGastosPorCategoria().get("Transporte"));
         assertEquals(new BigDecimal("75.00"), reporte.getGastosPorCategoria().get("Ocio"));
 
-        verify(transaccionRepository, times(1)).findAllByUsuarioAndFechaBetween(usuarioPrueba, fechaInicio, fechaFin);
+        verify(resumenMensualRepository, times(1)).sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio);
+        verify(transaccionRepository, never()).sumarPorTipoYCategoria(any(Usuario.class), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Debería combinar acumulados mensuales con los días sueltos de los meses parciales")
+    void generarReporteFinanciero_conMesesParciales_deberiaCombinarAcumuladosYTransacciones() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+
+        LocalDate inicio = LocalDate.of(2023, 1, 15);
+        LocalDate fin = LocalDate.of(2023, 3, 10);
+
+        // Febrero completo desde los acumulados
+        when(resumenMensualRepository.sumarPorTipoYCategoria(usuarioPrueba, LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 1)))
+                .thenReturn(List.of(
+                        new TotalPorCategoriaDTO(TipoTransaccion.INGRESO, "Salario", new BigDecimal("2000.00")),
+                        new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Comida", new BigDecimal("100.00"))));
+        // Del 15 al 31 de enero y del 1 al 10 de marzo desde las transacciones
+        when(transaccionRepository.sumarPorTipoYCategoria(usuarioPrueba, inicio, LocalDate.of(2023, 1, 31)))
+                .thenReturn(List.of(new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Comida", new BigDecimal("40.00"))));
+        when(transaccionRepository.sumarPorTipoYCategoria(usuarioPrueba, LocalDate.of(2023, 3, 1), fin))
+                .thenReturn(List.of(new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Ocio", new BigDecimal("60.00"))));
+
+        ReporteFinancieroDTO reporte = reporteService.generarReporteFinanciero(inicio, fin);
+
+        assertEquals(new BigDecimal("2000.00"), reporte.getTotalIngresos());
+        assertEquals(new BigDecimal("200.00"), reporte.getTotalEgresos());
+        assertEquals(new BigDecimal("1800.00"), reporte.getBalanceNeto());
+        assertEquals(new BigDecimal("140.00"), reporte.getGastosPorCategoria().get("Comida"));
+        assertEquals(new BigDecimal("60.00"), reporte.getGastosPorCategoria().get("Ocio"));
     }
 
     @Test
     @DisplayName("Debería generar un reporte con cero en ingresos y egresos si no hay transacciones (caso de borde)")
     void generarReporteFinanciero_sinTransacciones_deberiaDevolverCero() {
         // No más MockedStatic
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
-        when(transaccionRepository.findAllByUsuarioAndFechaBetween(usuarioPrueba, fechaInicio, fechaFin)).thenReturn(Collections.emptyList());
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(resumenMensualRepository.sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio)).thenReturn(Collections.emptyList());
 
         // Ejecuta el método
         ReporteFinancieroDTO reporte = reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
@@ -123,17 +154,101 @@ class ReporteServiceTest {
         assertEquals(BigDecimal.ZERO, reporte.getBalanceNeto());
         assertTrue(reporte.getGastosPorCategoria().isEmpty());
 
-        verify(transaccionRepository, times(1)).findAllByUsuarioAndFechaBetween(usuarioPrueba, fechaInicio, fechaFin);
+        verify(resumenMensualRepository, times(1)).sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio);
+    }
+
+    @Test
+    @DisplayName("Debería servir desde la caché un reporte repetido y recalcularlo tras invalidar al usuario")
+    void generarReporteFinanciero_repetido_deberiaUsarCacheHastaInvalidar() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(resumenMensualRepository.sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio)).thenReturn(Collections.emptyList());
+
+        ReporteFinancieroDTO primero = reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
+        ReporteFinancieroDTO segundo = reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
+        assertSame(primero, segundo);
+        verify(resumenMensualRepository, times(1)).sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio);
+
+        reporteCache.invalidarUsuario(usuarioPrueba.getId());
+        reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
+        verify(resumenMensualRepository, times(2)).sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaInicio);
     }
 
     @Test
     @DisplayName("Debería lanzar excepción si el usuario autenticado no se encuentra")
     void generarReporteFinanciero_usuarioNoEncontrado_deberiaLanzarExcepcion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioInexistente");
-        when(usuarioRepository.findByNombreUsuario("usuarioInexistente")).thenReturn(Optional.empty());
+        when(servicioSeguridad.obtenerUsuarioAutenticado())
+                .thenThrow(new RecursoNoEncontradoException("Usuario no encontrado con nombre: usuarioInexistente"));
 
         assertThrows(RecursoNoEncontradoException.class, () -> reporteService.generarReporteFinanciero(fechaInicio, fechaFin));
-        verify(transaccionRepository, never()).findAllByUsuarioAndFechaBetween(any(Usuario.class), any(LocalDate.class), any(LocalDate.class));
+        verify(transaccionRepository, never()).sumarPorTipoYCategoria(any(Usuario.class), any(LocalDate.class), any(LocalDate.class));
+        verify(resumenMensualRepository, never()).sumarPorTipoYCategoria(any(Usuario.class), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Debería usar los totales del motor columnar sin consultar la base de datos cuando está disponible")
+    void generarReporteFinanciero_conMotorColumnar_noDeberiaConsultarRepositorios() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(motorLibrosColumnares.sumarPorTipoYCategoria(usuarioPrueba, fechaInicio, fechaFin)).thenReturn(Optional.of(List.of(
+                new TotalPorCategoriaDTO(TipoTransaccion.INGRESO, "Salario", new BigDecimal("1000.00")),
+                new TotalPorCategoriaDTO(TipoTransaccion.EGRESO, "Comida", new BigDecimal("80.50")))));
+
+        ReporteFinancieroDTO reporte = reporteService.generarReporteFinanciero(fechaInicio, fechaFin);
+
+        assertEquals(new BigDecimal("919.50"), reporte.getBalanceNeto());
+        assertEquals(new BigDecimal("80.50"), reporte.getGastosPorCategoria().get("Comida"));
+        verifyNoInteractions(transaccionRepository, resumenMensualRepository);
+    }
+
+    @Test
+    @DisplayName("Debería agrupar la serie semanal en semanas de lunes a domingo, recortadas al período, con saldo acumulado")
+    void generarSerieTemporal_semanal_deberiaAgruparPorSemanaYAcumularSaldo() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        // Del miércoles 4 al lunes 16 de enero de 2023: semanas 4-8, 9-15 y 16-16
+        LocalDate inicio = LocalDate.of(2023, 1, 4);
+        LocalDate fin = LocalDate.of(2023, 1, 16);
+        when(transaccionRepository.sumarPorFechaYTipo(usuarioPrueba, inicio, fin)).thenReturn(List.of(
+                new TotalPorFechaDTO(LocalDate.of(2023, 1, 5), TipoTransaccion.INGRESO, new BigDecimal("1000.00")),
+                new TotalPorFechaDTO(LocalDate.of(2023, 1, 5), TipoTransaccion.EGRESO, new BigDecimal("30.00")),
+                new TotalPorFechaDTO(LocalDate.of(2023, 1, 8), TipoTransaccion.EGRESO, new BigDecimal("20.00")),
+                new TotalPorFechaDTO(LocalDate.of(2023, 1, 16), TipoTransaccion.EGRESO, new BigDecimal("150.00"))
+        ));
+
+        SerieTemporalDTO serie = reporteService.generarSerieTemporal(inicio, fin, Granularidad.SEMANAL);
+
+        List<PuntoSerieDTO> puntos = serie.getPuntos();
+        assertEquals(3, puntos.size());
+        assertEquals(new PuntoSerieDTO(inicio, LocalDate.of(2023, 1, 8), new BigDecimal("1000.00"),
+                new BigDecimal("50.00"), new BigDecimal("950.00"), new BigDecimal("950.00")), puntos.get(0));
+        // Semana sin transacciones: totales a cero y el saldo se mantiene
+        assertEquals(new PuntoSerieDTO(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 15), BigDecimal.ZERO,
+                BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("950.00")), puntos.get(1));
+        assertEquals(new PuntoSerieDTO(fin, fin, BigDecimal.ZERO, new BigDecimal("150.00"),
+                new BigDecimal("-150.00"), new BigDecimal("800.00")), puntos.get(2));
+        verify(transaccionRepository, times(1)).sumarPorFechaYTipo(usuarioPrueba, inicio, fin);
+    }
+
+    @Test
+    @DisplayName("Debería devolver un punto por día con la granularidad diaria")
+    void generarSerieTemporal_diaria_deberiaDevolverUnPuntoPorDia() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(transaccionRepository.sumarPorFechaYTipo(usuarioPrueba, fechaInicio, fechaFin)).thenReturn(List.of(
+                new TotalPorFechaDTO(LocalDate.of(2023, 1, 31), TipoTransaccion.INGRESO, new BigDecimal("10.00"))));
+
+        SerieTemporalDTO serie = reporteService.generarSerieTemporal(fechaInicio, fechaFin, Granularidad.DIARIA);
+
+        assertEquals(31, serie.getPuntos().size());
+        assertEquals(BigDecimal.ZERO, serie.getPuntos().get(29).getSaldoAcumulado());
+        assertEquals(new BigDecimal("10.00"), serie.getPuntos().get(30).getSaldoAcumulado());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un rango invertido o con demasiados puntos sin consultar la base de datos")
+    void generarSerieTemporal_rangoInvalido_deberiaLanzarExcepcion() {
+        assertThrows(SolicitudInvalidaException.class,
+                () -> reporteService.generarSerieTemporal(fechaFin, fechaInicio, Granularidad.MENSUAL));
+        assertThrows(SolicitudInvalidaException.class,
+                () -> reporteService.generarSerieTemporal(LocalDate.of(2000, 1, 1), LocalDate.of(2023, 1, 1), Granularidad.DIARIA));
+        verify(transaccionRepository, never()).sumarPorFechaYTipo(any(Usuario.class), any(LocalDate.class), any(LocalDate.class));
     }
 
     // ... Los otros tests (soloIngresos, soloEgresos) se refactorizarían de la misma manera,
@@ -0,0 +1,118 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.evento.CambioTransaccion;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.evento.TransaccionesModificadasEvent;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import com.example.finanzaspersonales.repositorio.ResumenMensualRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de ResumenMensualService: comprueba los deltas que se aplican a cada acumulado mensual
+ * al crear, modificar o eliminar transacciones, y que cada acumulado se toca una sola vez por evento.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para ResumenMensualService")
+class ResumenMensualServiceTest {
+
+    private static final Long USUARIO_ID = 1L;
+    private static final LocalDate MAYO = LocalDate.of(2024, 5, 1);
+    private static final LocalDate JUNIO = LocalDate.of(2024, 6, 1);
+
+    @Mock
+    private ResumenMensualRepository resumenMensualRepository;
+
+    @InjectMocks
+    private ResumenMensualService resumenMensualService;
+
+    @Test
+    @DisplayName("Debería mover el importe de mes al cambiar la fecha de una transacción")
+    void alModificarTransacciones_cambioDeMes_deberiaRestarDeUnMesYSumarAlOtro() {
+        DatosTransaccion anterior = datos(101L, LocalDate.of(2024, 5, 20), "30.00");
+        DatosTransaccion nueva = datos(101L, LocalDate.of(2024, 6, 2), "30.00");
+
+        publicar(CambioTransaccion.modificacion(anterior, nueva));
+
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO, new BigDecimal("-30.00"), -1);
+        verify(resumenMensualRepository).eliminarSiVacio(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO);
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, JUNIO, new BigDecimal("30.00"), 1);
+        verifyNoMoreInteractions(resumenMensualRepository);
+    }
+
+    @Test
+    @DisplayName("Debería mover el importe de categoría al cambiar la categoría de una transacción")
+    void alModificarTransacciones_cambioDeCategoria_deberiaRestarDeUnaCategoriaYSumarALaOtra() {
+        DatosTransaccion anterior = datos(101L, LocalDate.of(2024, 5, 20), "30.00");
+        DatosTransaccion nueva = datos(102L, LocalDate.of(2024, 5, 20), "45.50");
+
+        publicar(CambioTransaccion.modificacion(anterior, nueva));
+
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO, new BigDecimal("-30.00"), -1);
+        verify(resumenMensualRepository).eliminarSiVacio(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO);
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 102L, TipoTransaccion.EGRESO, MAYO, new BigDecimal("45.50"), 1);
+        verifyNoMoreInteractions(resumenMensualRepository);
+    }
+
+    @Test
+    @DisplayName("Debería aplicar solo la diferencia de importe si la modificación no cambia de acumulado")
+    void alModificarTransacciones_mismoAcumulado_deberiaAplicarSoloLaDiferencia() {
+        publicar(CambioTransaccion.modificacion(datos(101L, LocalDate.of(2024, 5, 3), "30.00"),
+                datos(101L, LocalDate.of(2024, 5, 28), "42.25")));
+
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO, new BigDecimal("12.25"), 0);
+        verifyNoMoreInteractions(resumenMensualRepository);
+    }
+
+    @Test
+    @DisplayName("No debería tocar ningún acumulado si la modificación no cambia ni acumulado ni importe")
+    void alModificarTransacciones_sinCambios_noDeberiaTocarAcumulados() {
+        publicar(CambioTransaccion.modificacion(datos(101L, LocalDate.of(2024, 5, 3), "30.00"),
+                datos(101L, LocalDate.of(2024, 5, 3), "30.00")));
+
+        verifyNoInteractions(resumenMensualRepository);
+    }
+
+    @Test
+    @DisplayName("Debería restar y eliminar el acumulado si vacío al borrar su última transacción")
+    void alModificarTransacciones_baja_deberiaRestarYEliminarSiVacio() {
+        publicar(CambioTransaccion.baja(datos(101L, LocalDate.of(2024, 5, 3), "30.00")));
+
+        var orden = inOrder(resumenMensualRepository);
+        orden.verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO, new BigDecimal("-30.00"), -1);
+        orden.verify(resumenMensualRepository).eliminarSiVacio(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO);
+        verifyNoMoreInteractions(resumenMensualRepository);
+    }
+
+    @Test
+    @DisplayName("Debería agrupar en un solo delta los cambios de un lote sobre el mismo acumulado")
+    void alModificarTransacciones_loteConMismaClave_deberiaAplicarUnSoloDelta() {
+        publicar(CambioTransaccion.alta(datos(101L, LocalDate.of(2024, 5, 3), "30.00")),
+                CambioTransaccion.alta(datos(101L, LocalDate.of(2024, 5, 17), "12.50")),
+                CambioTransaccion.alta(datos(101L, LocalDate.of(2024, 6, 1), "5.00")));
+
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, MAYO, new BigDecimal("42.50"), 2);
+        verify(resumenMensualRepository).sumarAlResumen(USUARIO_ID, 101L, TipoTransaccion.EGRESO, JUNIO, new BigDecimal("5.00"), 1);
+        verify(resumenMensualRepository, never()).eliminarSiVacio(any(), any(), any(), any());
+        verifyNoMoreInteractions(resumenMensualRepository);
+    }
+
+    private void publicar(CambioTransaccion... cambios) {
+        resumenMensualService.alModificarTransacciones(new TransaccionesModificadasEvent(USUARIO_ID, List.of(cambios)));
+    }
+
+    private static DatosTransaccion datos(Long categoriaId, LocalDate fecha, String monto) {
+        return new DatosTransaccion(null, categoriaId, TipoTransaccion.EGRESO, fecha, new BigDecimal(monto));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.finanzaspersonales.servicio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de SellosInvalidacion: un cálculo solo es vigente si no ha habido invalidaciones del usuario
+ * desde su sello, también cuando la invalidación ya se ha olvidado por superar el número de usuarios recordados.
+ */
+@DisplayName("Pruebas Unitarias para SellosInvalidacion")
+class SellosInvalidacionTest {
+
+    @Test
+    @DisplayName("Debería dejar de ser vigente un cálculo que empezó antes de una invalidación del mismo usuario")
+    void esVigente_invalidacionPosterior_deberiaRechazarElCalculo() {
+        SellosInvalidacion sellos = new SellosInvalidacion(100);
+        long anterior = sellos.sellar();
+        assertTrue(sellos.esVigente(1L, anterior));
+
+        sellos.invalidar(1L);
+
+        assertFalse(sellos.esVigente(1L, anterior));
+        assertTrue(sellos.esVigente(2L, anterior)); // Otro usuario no se ve afectado
+        assertTrue(sellos.esVigente(1L, sellos.sellar()));
+    }
+
+    @Test
+    @DisplayName("Debería seguir rechazando un cálculo lento aunque su invalidación se haya olvidado")
+    void esVigente_invalidacionOlvidada_deberiaRechazarElCalculo() throws InterruptedException {
+        SellosInvalidacion sellos = new SellosInvalidacion(0); // No recuerda ninguna invalidación
+        long lento = sellos.sellar();
+        sellos.invalidar(1L);
+
+        // El desalojo es asíncrono: se espera a que eleve el mínimo común, que afecta también a otros usuarios
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sellos.esVigente(2L, lento)) {
+            assertTrue(System.nanoTime() < limite, "La invalidación no se olvidó a tiempo");
+            Thread.sleep(1);
+        }
+
+        assertFalse(sellos.esVigente(1L, lento));
+        assertTrue(sellos.esVigente(1L, sellos.sellar()));
+    }
+}
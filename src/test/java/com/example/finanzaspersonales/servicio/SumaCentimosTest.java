@@ -0,0 +1,53 @@
+package com.example.finanzaspersonales.servicio;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias de SumaCentimos: el resultado debe ser idéntico (valor y escala) al de sumar
+ * con BigDecimal, también cuando la suma desborda un long o un sumando tiene más de dos decimales.
+ */
+@DisplayName("Pruebas Unitarias para SumaCentimos")
+class SumaCentimosTest {
+
+    @Test
+    @DisplayName("Debería coincidir con la suma en BigDecimal para montos con dos decimales, positivos y negativos")
+    void sumar_montosConDosDecimales_deberiaCoincidirConBigDecimal() {
+        Random aleatorio = new Random(11);
+        SumaCentimos suma = new SumaCentimos();
+        BigDecimal esperado = BigDecimal.ZERO;
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal monto = BigDecimal.valueOf(aleatorio.nextInt(2_000_000) - 1_000_000, 2);
+            suma.sumar(monto);
+            esperado = esperado.add(monto);
+        }
+
+        assertEquals(esperado, suma.aBigDecimal());
+    }
+
+    @Test
+    @DisplayName("Debería conservar la escala de BigDecimal: cero sin sumandos y la escala máxima de los sumandos")
+    void aBigDecimal_deberiaConservarLaEscala() {
+        assertEquals(BigDecimal.ZERO, new SumaCentimos().aBigDecimal());
+        assertEquals(new BigDecimal("12"), new SumaCentimos().sumar(new BigDecimal("5")).sumar(new BigDecimal("7")).aBigDecimal());
+        assertEquals(new BigDecimal("7.5"), new SumaCentimos().sumar(new BigDecimal("5")).sumar(new BigDecimal("2.5")).aBigDecimal());
+        assertEquals(new BigDecimal("0.00"), new SumaCentimos().sumar(new BigDecimal("1.25")).sumar(new BigDecimal("-1.25")).aBigDecimal());
+    }
+
+    @Test
+    @DisplayName("Debería continuar en BigDecimal sin perder precisión si la suma desborda un long o hay más decimales")
+    void sumar_conDesbordamientoOMasDecimales_deberiaCoincidirConBigDecimal() {
+        BigDecimal grande = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+        SumaCentimos desbordada = new SumaCentimos().sumar(grande).sumar(grande).sumar(new BigDecimal("0.01"));
+        assertEquals(grande.add(grande).add(new BigDecimal("0.01")), desbordada.aBigDecimal());
+
+        SumaCentimos otra = new SumaCentimos().sumar(new BigDecimal("1.10")).sumar(new BigDecimal("0.125"));
+        assertEquals(new BigDecimal("1.225"), otra.aBigDecimal());
+        assertEquals(new BigDecimal("2.225"), otra.sumar(new SumaCentimos().sumar(BigDecimal.ONE)).aBigDecimal());
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.finanzaspersonales.servicio;
+
+import com.example.finanzaspersonales.dto.agregacion.EstadoTrabajoReporte;
+import com.example.finanzaspersonales.dto.agregacion.ReporteFinancieroDTO;
+import com.example.finanzaspersonales.dto.agregacion.TrabajoReporteDTO;
+import com.example.finanzaspersonales.exception.LimiteExcedidoException;
+import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.exception.TrabajoNoTerminadoException;
+import com.example.finanzaspersonales.modelo.Rol;
+import com.example.finanzaspersonales.modelo.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de TrabajoReporteService: límite de trabajos activos por usuario, rechazo cuando el pool
+ * está lleno, liberación de la plaza al terminar (también si falla), aislamiento entre usuarios, resultado
+ * no disponible antes de terminar y caducidad contada desde el final del trabajo.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Pruebas Unitarias para TrabajoReporteService")
+class TrabajoReporteServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2024, 12, 31);
+
+    @Mock
+    private ReporteService reporteService;
+    @Mock
+    private ServicioSeguridad servicioSeguridad;
+
+    private TrabajoReporteService trabajoReporteService;
+    private Usuario usuarioPrueba;
+    private final ReporteFinancieroDTO reporte = new ReporteFinancieroDTO(
+            new BigDecimal("100.00"), new BigDecimal("40.00"), new BigDecimal("60.00"), Map.of("Comida", new BigDecimal("40.00")));
+    // El cálculo del reporte espera a que la prueba lo libere
+    private final CountDownLatch enCurso = new CountDownLatch(1);
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER")));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        lenient().when(reporteService.generarReporteFinancieroDeUsuario(any(Usuario.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> {
+                    enCurso.countDown();
+                    liberar.await(10, TimeUnit.SECONDS);
+                    return reporte;
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        if (trabajoReporteService != null) {
+            trabajoReporteService.detener();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería rechazar más trabajos activos que el máximo por usuario y admitirlos al terminar")
+    void encolarReporteFinanciero_limitePorUsuario_deberiaLanzarLimiteExcedido() throws Exception {
+        trabajoReporteService = crearServicio(4, 8, 2, Duration.ofHours(1));
+        TrabajoReporteDTO primero = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN);
+        TrabajoReporteDTO segundo = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN);
+
+        assertThrows(LimiteExcedidoException.class, () -> trabajoReporteService.encolarReporteFinanciero(INICIO, FIN));
+
+        // El límite es por usuario
+        when(servicioSeguridad.obtenerUsuarioAutenticado())
+                .thenReturn(new Usuario(2L, "otroUsuario", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER"))));
+        assertNotNull(trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId());
+
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        liberar.countDown();
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, esperar(primero.getId()).getEstado());
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, esperar(segundo.getId()).getEstado());
+        assertNotNull(trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar el trabajo si el pool y su cola están llenos, sin ocupar una plaza del usuario")
+    void encolarReporteFinanciero_poolLleno_deberiaLanzarLimiteExcedido() throws Exception {
+        trabajoReporteService = crearServicio(1, 1, 2, Duration.ofHours(1));
+        TrabajoReporteDTO primero = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN);
+        assertTrue(enCurso.await(10, TimeUnit.SECONDS)); // Ocupa el único hilo
+        when(servicioSeguridad.obtenerUsuarioAutenticado())
+                .thenReturn(new Usuario(2L, "otroUsuario", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER"))));
+        TrabajoReporteDTO encolado = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN); // Ocupa la cola
+
+        // El usuario aún tiene plaza, pero el pool no admite más
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        LimiteExcedidoException rechazo = assertThrows(LimiteExcedidoException.class,
+                () -> trabajoReporteService.encolarReporteFinanciero(INICIO, FIN));
+        assertTrue(rechazo.getMessage().startsWith("Hay demasiados reportes en curso"));
+
+        liberar.countDown();
+        when(servicioSeguridad.obtenerUsuarioAutenticado())
+                .thenReturn(new Usuario(2L, "otroUsuario", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER"))));
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, esperar(encolado.getId()).getEstado());
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, esperar(primero.getId()).getEstado());
+        // El trabajo rechazado devolvió su plaza: vuelven a caber dos trabajos activos del usuario
+        CountDownLatch retener = new CountDownLatch(1);
+        // Los trabajos pueden no haber empezado aún al terminar la prueba
+        lenient().when(reporteService.generarReporteFinancieroDeUsuario(any(Usuario.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> {
+                    retener.await(10, TimeUnit.SECONDS);
+                    return reporte;
+                });
+        try {
+            encolarCuandoHayaHiloLibre();
+            encolarCuandoHayaHiloLibre();
+        } finally {
+            retener.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería liberar la plaza del usuario cuando el trabajo falla")
+    void ejecutar_trabajoFallido_deberiaLiberarLaPlaza() throws Exception {
+        trabajoReporteService = crearServicio(1, 4, 1, Duration.ofHours(1));
+        when(reporteService.generarReporteFinancieroDeUsuario(any(Usuario.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new IllegalStateException("Base de datos no disponible"))
+                .thenReturn(reporte);
+
+        TrabajoReporteDTO fallido = esperar(trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId());
+
+        assertEquals(EstadoTrabajoReporte.FALLIDO, fallido.getEstado());
+        assertEquals("Base de datos no disponible", fallido.getError());
+        assertThrows(TrabajoNoTerminadoException.class, () -> trabajoReporteService.obtenerResultado(fallido.getId()));
+        // Con un máximo de uno, solo se admite otro trabajo si la plaza del fallido se liberó
+        TrabajoReporteDTO siguiente = esperar(trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId());
+        assertEquals(reporte, trabajoReporteService.obtenerResultado(siguiente.getId()));
+    }
+
+    @Test
+    @DisplayName("Debería responder como no encontrado al consultar el trabajo de otro usuario")
+    void obtenerTrabajo_deOtroUsuario_deberiaLanzarRecursoNoEncontrado() {
+        trabajoReporteService = crearServicio(1, 4, 2, Duration.ofHours(1));
+        String id = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId();
+
+        when(servicioSeguridad.obtenerUsuarioAutenticado())
+                .thenReturn(new Usuario(2L, "otroUsuario", "passwordCodificado", Set.of(new Rol(1L, "ROLE_USER"))));
+
+        assertThrows(RecursoNoEncontradoException.class, () -> trabajoReporteService.obtenerTrabajo(id));
+        assertThrows(RecursoNoEncontradoException.class, () -> trabajoReporteService.obtenerResultado(id));
+        assertThrows(RecursoNoEncontradoException.class, () -> trabajoReporteService.obtenerTrabajo("no-existe"));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar TrabajoNoTerminadoException al pedir el resultado antes de que termine")
+    void obtenerResultado_antesDeTerminar_deberiaLanzarTrabajoNoTerminado() throws Exception {
+        trabajoReporteService = crearServicio(1, 4, 2, Duration.ofHours(1));
+        String id = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId();
+        assertTrue(enCurso.await(10, TimeUnit.SECONDS));
+
+        assertEquals(EstadoTrabajoReporte.EN_CURSO, trabajoReporteService.obtenerTrabajo(id).getEstado());
+        assertThrows(TrabajoNoTerminadoException.class, () -> trabajoReporteService.obtenerResultado(id));
+
+        liberar.countDown();
+        esperar(id);
+        assertEquals(reporte, trabajoReporteService.obtenerResultado(id));
+    }
+
+    @Test
+    @DisplayName("Debería contar la retención desde el final del trabajo, no desde que se encoló")
+    void trabajos_retencion_deberiaContarDesdeElFinal() throws Exception {
+        Duration retencion = Duration.ofMillis(200);
+        trabajoReporteService = crearServicio(1, 4, 2, retencion);
+        String id = trabajoReporteService.encolarReporteFinanciero(INICIO, FIN).getId();
+        assertTrue(enCurso.await(10, TimeUnit.SECONDS));
+
+        // En curso durante más tiempo que la retención: no caduca
+        Thread.sleep(retencion.multipliedBy(2).toMillis());
+        assertEquals(EstadoTrabajoReporte.EN_CURSO, trabajoReporteService.obtenerTrabajo(id).getEstado());
+
+        liberar.countDown();
+        assertEquals(EstadoTrabajoReporte.COMPLETADO, esperar(id).getEstado());
+        assertEquals(reporte, trabajoReporteService.obtenerResultado(id));
+
+        Thread.sleep(retencion.multipliedBy(2).toMillis());
+        assertThrows(RecursoNoEncontradoException.class, () -> trabajoReporteService.obtenerTrabajo(id));
+    }
+
+    private TrabajoReporteService crearServicio(int hilos, int cola, int maximoPorUsuario, Duration retencion) {
+        return new TrabajoReporteService(reporteService, servicioSeguridad, hilos, cola, maximoPorUsuario, retencion);
+    }
+
+    // Un trabajo se ve terminado un instante antes de que su hilo vuelva al pool: solo se reintenta ese rechazo
+    private TrabajoReporteDTO encolarCuandoHayaHiloLibre() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            try {
+                return trabajoReporteService.encolarReporteFinanciero(INICIO, FIN);
+            } catch (LimiteExcedidoException e) {
+                assertTrue(e.getMessage().startsWith("Hay demasiados reportes en curso"), e.getMessage());
+                assertTrue(System.nanoTime() < limite, "El pool no quedó libre a tiempo");
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private TrabajoReporteDTO esperar(String id) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        TrabajoReporteDTO trabajo = trabajoReporteService.obtenerTrabajo(id);
+        while (trabajo.getEstado() != EstadoTrabajoReporte.COMPLETADO && trabajo.getEstado() != EstadoTrabajoReporte.FALLIDO) {
+            assertTrue(System.nanoTime() < limite, "El trabajo no terminó a tiempo: " + trabajo);
+            Thread.sleep(10);
+            trabajo = trabajoReporteService.obtenerTrabajo(id);
+        }
+        return trabajo;
+    }
+}
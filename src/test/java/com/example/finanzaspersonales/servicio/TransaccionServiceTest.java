@@ -1,7 +1,12 @@
 package com.example.finanzaspersonales.servicio;
 
+import com.example.finanzaspersonales.dto.operaciones.FiltroTransaccionesDTO;
+import com.example.finanzaspersonales.dto.operaciones.OrdenTransacciones;
 import com.example.finanzaspersonales.dto.operaciones.TransaccionDTO;
+import com.example.finanzaspersonales.dto.paginacion.PaginaDTO;
+import com.example.finanzaspersonales.evento.TransaccionesModificadasEvent;
 import com.example.finanzaspersonales.exception.RecursoNoEncontradoException;
+import com.example.finanzaspersonales.exception.SolicitudInvalidaException;
 import com.example.finanzaspersonales.mapper.TransaccionMapper;
 import com.example.finanzaspersonales.modelo.Categoria;
 import com.example.finanzaspersonales.modelo.Transaccion;
@@ -10,17 +15,20 @@ import com.example.finanzaspersonales.modelo.Rol;
 import com.example.finanzaspersonales.modelo.Usuario;
 import com.example.finanzaspersonales.repositorio.CategoriaRepository;
 import com.example.finanzaspersonales.repositorio.TransaccionRepository;
-import com.example.finanzaspersonales.repositorio.UsuarioRepository;
 
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -28,6 +36,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -43,13 +52,15 @@ class TransaccionServiceTest {
     @Mock
     private TransaccionRepository transaccionRepository;
     @Mock
-    private UsuarioRepository usuarioRepository;
-    @Mock
     private CategoriaRepository categoriaRepository;
     @Mock
+    private CategoriasUsuarioCache categoriasUsuarioCache;
+    @Mock
     private TransaccionMapper transaccionMapper;
     @Mock
     private ServicioSeguridad servicioSeguridad;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private TransaccionService transaccionService;
@@ -64,7 +75,7 @@ class TransaccionServiceTest {
     void setUp() {
         usuarioPrueba = new Usuario(1L, "usuarioTest", "passwordCodificado", Collections.singleton(new Rol(1L, "ROLE_USER")));
         categoriaPrueba = new Categoria(101L, "Comida", TipoTransaccion.EGRESO, usuarioPrueba);
-        transaccionPrueba = new Transaccion(1L, new BigDecimal("50.00"), TipoTransaccion.EGRESO, "Almuerzo", LocalDate.now(), categoriaPrueba);
+        transaccionPrueba = new Transaccion(1L, new BigDecimal("50.00"), TipoTransaccion.EGRESO, "Almuerzo", LocalDate.now(), categoriaPrueba, usuarioPrueba);
 
         transaccionDTOCreado = new TransaccionDTO();
         transaccionDTOCreado.setMonto(new BigDecimal("50.00"));
@@ -84,9 +95,9 @@ class TransaccionServiceTest {
     @Test
     @DisplayName("Debería crear una transacción exitosamente")
     void crearTransaccion_deberiaCrearTransaccion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
-        when(categoriaRepository.findByIdAndUsuario(transaccionDTOCreado.getCategoriaId(), usuarioPrueba)).thenReturn(Optional.of(categoriaPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(categoriasUsuarioCache.pertenece(usuarioPrueba, 101L)).thenReturn(true);
+        when(categoriaRepository.getReferenceById(101L)).thenReturn(categoriaPrueba);
         when(transaccionMapper.aTransaccion(transaccionDTOCreado)).thenReturn(transaccionPrueba);
         when(transaccionRepository.save(any(Transaccion.class))).thenReturn(transaccionPrueba);
         when(transaccionMapper.aTransaccionDTO(transaccionPrueba)).thenReturn(transaccionDTOCreado);
@@ -98,24 +109,63 @@ class TransaccionServiceTest {
         assertNotNull(resultado);
         assertEquals(transaccionDTOCreado.getMonto(), resultado.getMonto());
         verify(transaccionRepository, times(1)).save(any(Transaccion.class));
+        verify(eventPublisher, times(1)).publishEvent(any(TransaccionesModificadasEvent.class));
+        // La propiedad de la categoría se comprueba en la caché, sin consultar la categoría
+        verify(categoriaRepository, never()).findByIdAndUsuario(anyLong(), any(Usuario.class));
     }
 
     @Test
     @DisplayName("Debería lanzar excepción si la categoría no es del usuario al crear transacción")
     void crearTransaccion_categoriaNoEncontradaOnoDelUsuario_deberiaLanzarExcepcion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
-        when(categoriaRepository.findByIdAndUsuario(transaccionDTOCreado.getCategoriaId(), usuarioPrueba)).thenReturn(Optional.empty());
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(categoriasUsuarioCache.pertenece(usuarioPrueba, 101L)).thenReturn(false);
 
         assertThrows(RecursoNoEncontradoException.class, () -> transaccionService.crearTransaccion(transaccionDTOCreado));
         verify(transaccionRepository, never()).save(any(Transaccion.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Debería crear un lote validando todas las categorías de una vez, sin consultarlas")
+    void crearTransacciones_deberiaValidarCategoriasUnaVezYGuardarEnLote() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        when(categoriasUsuarioCache.ajenas(eq(usuarioPrueba), anyCollection())).thenReturn(Collections.emptySet());
+        when(categoriaRepository.getReferenceById(101L)).thenReturn(categoriaPrueba);
+        when(transaccionMapper.aTransaccion(any(TransaccionDTO.class)))
+                .thenAnswer(invocation -> new Transaccion(null, new BigDecimal("50.00"), TipoTransaccion.EGRESO, "Almuerzo", LocalDate.now(), null, null));
+        when(transaccionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transaccionMapper.aTransaccionDTO(any(Transaccion.class))).thenReturn(transaccionDTOCreado);
+
+        List<TransaccionDTO> resultado = transaccionService.crearTransacciones(List.of(transaccionDTOCreado, transaccionDTOActualizado));
+
+        assertEquals(2, resultado.size());
+        verify(categoriasUsuarioCache, times(1)).ajenas(eq(usuarioPrueba), anyCollection());
+        verify(categoriaRepository, never()).findByIdAndUsuario(anyLong(), any(Usuario.class));
+        ArgumentCaptor<List<Transaccion>> guardadas = ArgumentCaptor.forClass(List.class);
+        verify(transaccionRepository, times(1)).saveAll(guardadas.capture());
+        // Cada transacción lleva su categoría y, desnormalizado, su propietario
+        assertTrue(guardadas.getValue().stream()
+                .allMatch(t -> t.getCategoria() == categoriaPrueba && t.getUsuario() == usuarioPrueba));
+        verify(eventPublisher, times(1)).publishEvent(any(TransaccionesModificadasEvent.class));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar el lote completo si alguna categoría no es del usuario")
+    void crearTransacciones_categoriaAjena_deberiaLanzarExcepcion() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        TransaccionDTO ajena = new TransaccionDTO();
+        ajena.setCategoriaId(999L);
+        when(categoriasUsuarioCache.ajenas(eq(usuarioPrueba), anyCollection())).thenReturn(Set.of(999L));
+
+        assertThrows(RecursoNoEncontradoException.class,
+                () -> transaccionService.crearTransacciones(List.of(transaccionDTOCreado, ajena)));
+        verify(transaccionRepository, never()).saveAll(anyList());
     }
 
     @Test
     @DisplayName("Debería obtener una transacción por ID exitosamente")
     void obtenerTransaccionPorId_deberiaDevolverTransaccion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
         when(transaccionRepository.findByIdAndUsuario(1L, usuarioPrueba)).thenReturn(Optional.of(transaccionPrueba));
         when(transaccionMapper.aTransaccionDTO(transaccionPrueba)).thenReturn(transaccionDTOCreado);
 
@@ -128,8 +178,7 @@ class TransaccionServiceTest {
     @Test
     @DisplayName("Debería lanzar excepción si la transacción no existe o no pertenece al usuario")
     void obtenerTransaccionPorId_noEncontradaOnoDelUsuario_deberiaLanzarExcepcion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
         when(transaccionRepository.findByIdAndUsuario(1L, usuarioPrueba)).thenReturn(Optional.empty());
 
         assertThrows(RecursoNoEncontradoException.class, () -> transaccionService.obtenerTransaccionPorId(1L));
@@ -138,14 +187,13 @@ class TransaccionServiceTest {
     @Test
     @DisplayName("Debería obtener todas las transacciones del usuario exitosamente")
     void obtenerTransaccionesDelUsuario_deberiaDevolverLista() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
 
         List<Transaccion> transacciones = Arrays.asList(transaccionPrueba);
         List<TransaccionDTO> transaccionesDTO = Arrays.asList(transaccionDTOCreado);
 
         // Corregir la llamada al método del repositorio
-        when(transaccionRepository.findByCategoriaUsuario(usuarioPrueba)).thenReturn(transacciones);
+        when(transaccionRepository.findByUsuario(usuarioPrueba)).thenReturn(transacciones);
         when(transaccionMapper.aTransaccionDTO(transaccionPrueba)).thenReturn(transaccionDTOCreado);
 
         List<TransaccionDTO> resultado = transaccionService.obtenerTransaccionesDelUsuario();
@@ -156,14 +204,84 @@ class TransaccionServiceTest {
         assertEquals(transaccionesDTO.get(0).getDescripcion(), resultado.get(0).getDescripcion());
     }
 
+    @Test
+    @DisplayName("Debería devolver una página con cursor y continuar desde la última clave (fecha, id)")
+    void obtenerPaginaDeTransacciones_deberiaPaginarPorClave() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+
+        Transaccion reciente = new Transaccion(3L, new BigDecimal("10.00"), TipoTransaccion.EGRESO, "Café", LocalDate.of(2024, 5, 3), categoriaPrueba, usuarioPrueba);
+        Transaccion intermedia = new Transaccion(2L, new BigDecimal("20.00"), TipoTransaccion.EGRESO, "Cena", LocalDate.of(2024, 5, 2), categoriaPrueba, usuarioPrueba);
+        Transaccion antigua = new Transaccion(1L, new BigDecimal("30.00"), TipoTransaccion.EGRESO, "Cine", LocalDate.of(2024, 5, 1), categoriaPrueba, usuarioPrueba);
+        when(transaccionRepository.buscarPrimeraPagina(eq(usuarioPrueba), any(Limit.class))).thenReturn(Arrays.asList(reciente, intermedia, antigua));
+        when(transaccionMapper.aTransaccionDTO(any(Transaccion.class))).thenReturn(transaccionDTOCreado);
+
+        PaginaDTO<TransaccionDTO> primera = transaccionService.obtenerPaginaDeTransacciones(null, 2);
+
+        assertEquals(2, primera.getElementos().size());
+        assertNotNull(primera.getSiguienteCursor());
+
+        when(transaccionRepository.buscarPaginaDespuesDe(eq(usuarioPrueba), eq(LocalDate.of(2024, 5, 2)), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(antigua));
+
+        PaginaDTO<TransaccionDTO> segunda = transaccionService.obtenerPaginaDeTransacciones(primera.getSiguienteCursor(), 2);
+
+        assertEquals(1, segunda.getElementos().size());
+        assertNull(segunda.getSiguienteCursor());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un cursor de paginación inválido")
+    void obtenerPaginaDeTransacciones_cursorInvalido_deberiaLanzarExcepcion() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+
+        assertThrows(SolicitudInvalidaException.class, () -> transaccionService.obtenerPaginaDeTransacciones("no-es-un-cursor", 10));
+    }
+
+    @Test
+    @DisplayName("Debería buscar con filtros y devolver un cursor que conserva el orden pedido")
+    void buscarTransacciones_deberiaPaginarEnElOrdenPedido() {
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
+        Transaccion mayor = new Transaccion(5L, new BigDecimal("90.00"), TipoTransaccion.EGRESO, "Cena", LocalDate.of(2024, 5, 3), categoriaPrueba, usuarioPrueba);
+        Transaccion menor = new Transaccion(4L, new BigDecimal("40.50"), TipoTransaccion.EGRESO, "Cine", LocalDate.of(2024, 5, 1), categoriaPrueba, usuarioPrueba);
+        when(transaccionRepository.findBy(any(Specification.class), any())).thenReturn(List.of(mayor, menor));
+        when(transaccionMapper.aTransaccionDTO(any(Transaccion.class))).thenReturn(transaccionDTOCreado);
+
+        FiltroTransaccionesDTO filtro = new FiltroTransaccionesDTO();
+        filtro.setTipo(TipoTransaccion.EGRESO);
+        filtro.setDescripcion("c");
+        filtro.setOrden(OrdenTransacciones.MONTO_DESC);
+        PaginaDTO<TransaccionDTO> pagina = transaccionService.buscarTransacciones(filtro, null, 1);
+
+        assertEquals(1, pagina.getElementos().size());
+        assertNotNull(pagina.getSiguienteCursor());
+
+        // El cursor de un orden no sirve para otro
+        filtro.setOrden(OrdenTransacciones.FECHA_DESC);
+        assertThrows(SolicitudInvalidaException.class, () -> transaccionService.buscarTransacciones(filtro, pagina.getSiguienteCursor(), 1));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar rangos de fechas o montos invertidos sin consultar la base de datos")
+    void buscarTransacciones_rangoInvertido_deberiaLanzarExcepcion() {
+        FiltroTransaccionesDTO fechas = new FiltroTransaccionesDTO();
+        fechas.setFechaDesde(LocalDate.of(2024, 2, 1));
+        fechas.setFechaHasta(LocalDate.of(2024, 1, 1));
+        FiltroTransaccionesDTO montos = new FiltroTransaccionesDTO();
+        montos.setMontoMinimo(new BigDecimal("100"));
+        montos.setMontoMaximo(new BigDecimal("10"));
+
+        assertThrows(SolicitudInvalidaException.class, () -> transaccionService.buscarTransacciones(fechas, null, 10));
+        assertThrows(SolicitudInvalidaException.class, () -> transaccionService.buscarTransacciones(montos, null, 10));
+        verifyNoInteractions(transaccionRepository);
+    }
+
     @Test
     @DisplayName("Debería actualizar una transacción existente exitosamente")
     void actualizarTransaccion_deberiaActualizarTransaccion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
 
         // Una transacción existente con la categoría original
-        Transaccion transaccionExistente = new Transaccion(1L, new BigDecimal("50.00"), TipoTransaccion.EGRESO, "Almuerzo original", LocalDate.now(), categoriaPrueba);
+        Transaccion transaccionExistente = new Transaccion(1L, new BigDecimal("50.00"), TipoTransaccion.EGRESO, "Almuerzo original", LocalDate.now(), categoriaPrueba, usuarioPrueba);
         Categoria nuevaCategoria = new Categoria(102L, "Transporte", TipoTransaccion.EGRESO, usuarioPrueba);
         TransaccionDTO transaccionDTOActualizadoConNuevaCategoria = new TransaccionDTO();
         transaccionDTOActualizadoConNuevaCategoria.setMonto(new BigDecimal("70.00"));
@@ -173,7 +291,8 @@ class TransaccionServiceTest {
         transaccionDTOActualizadoConNuevaCategoria.setCategoriaId(102L); // Nueva categoría ID
 
         when(transaccionRepository.findByIdAndUsuario(1L, usuarioPrueba)).thenReturn(Optional.of(transaccionExistente));
-        when(categoriaRepository.findByIdAndUsuario(102L, usuarioPrueba)).thenReturn(Optional.of(nuevaCategoria));
+        when(categoriasUsuarioCache.pertenece(usuarioPrueba, 102L)).thenReturn(true);
+        when(categoriaRepository.getReferenceById(102L)).thenReturn(nuevaCategoria);
         doAnswer(invocation -> {
             TransaccionDTO dto = invocation.getArgument(0);
             Transaccion target = invocation.getArgument(1);
@@ -199,21 +318,20 @@ class TransaccionServiceTest {
     @Test
     @DisplayName("Debería eliminar una transacción exitosamente")
     void eliminarTransaccion_deberiaEliminarTransaccion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
         when(transaccionRepository.findByIdAndUsuario(1L, usuarioPrueba)).thenReturn(Optional.of(transaccionPrueba));
         doNothing().when(transaccionRepository).delete(transaccionPrueba);
 
         transaccionService.eliminarTransaccion(1L);
 
         verify(transaccionRepository, times(1)).delete(transaccionPrueba);
+        verify(eventPublisher, times(1)).publishEvent(any(TransaccionesModificadasEvent.class));
     }
 
     @Test
     @DisplayName("Debería lanzar excepción si la transacción no existe o no pertenece al usuario al eliminar")
     void eliminarTransaccion_noEncontradaOnoDelUsuario_deberiaLanzarExcepcion() {
-        when(servicioSeguridad.obtenerNombreUsuarioAutenticado()).thenReturn("usuarioTest");
-        when(usuarioRepository.findByNombreUsuario("usuarioTest")).thenReturn(Optional.of(usuarioPrueba));
+        when(servicioSeguridad.obtenerUsuarioAutenticado()).thenReturn(usuarioPrueba);
         when(transaccionRepository.findByIdAndUsuario(1L, usuarioPrueba)).thenReturn(Optional.empty());
 
         assertThrows(RecursoNoEncontradoException.class, () -> transaccionService.eliminarTransaccion(1L));
@@ -0,0 +1,155 @@
+package com.example.finanzaspersonales.servicio.columnar;
+
+import com.example.finanzaspersonales.dto.agregacion.TotalPorCategoriaDTO;
+import com.example.finanzaspersonales.evento.CambioTransaccion;
+import com.example.finanzaspersonales.evento.DatosTransaccion;
+import com.example.finanzaspersonales.modelo.enums.TipoTransaccion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del LibroColumnar: compara las sumas por rango calculadas recorriendo las filas
+ * y con el índice de sumas prefijas contra un cálculo directo sobre los datos originales,
+ * también después de aplicar altas, modificaciones y bajas, y el rechazo de cambios que no parten de la fila del libro.
+ */
+@DisplayName("Pruebas Unitarias para LibroColumnar")
+class LibroColumnarTest {
+
+    private static final long[] CATEGORIAS = {10L, 20L, 30L};
+    private static final String[] NOMBRES = {"Salario", "Comida", "Ocio"};
+    private static final LocalDate INICIO = LocalDate.of(2023, 1, 1);
+
+    @Test
+    @DisplayName("Debería dar las mismas sumas con y sin índice que el cálculo directo, antes y después de aplicar cambios")
+    void sumarPorTipoYCategoria_conYSinIndice_deberiaCoincidirConCalculoDirecto() {
+        Random aleatorio = new Random(7);
+        Map<Long, DatosTransaccion> datos = new HashMap<>();
+        for (long id = 1; id <= 2_000; id++) {
+            datos.put(id, aleatoria(aleatorio, id));
+        }
+        LibroColumnar sinIndice = construir(datos.values(), Integer.MAX_VALUE);
+        LibroColumnar conIndice = construir(datos.values(), 0);
+        assertFalse(sinIndice.tieneIndice());
+        assertTrue(conIndice.tieneIndice());
+        comprobarRangos(aleatorio, datos, sinIndice, conIndice);
+
+        // Altas (algunas más allá del último día), modificaciones y bajas
+        List<CambioTransaccion> cambios = new ArrayList<>();
+        for (long id = 2_001; id <= 2_050; id++) {
+            DatosTransaccion nueva = aleatoria(aleatorio, id);
+            datos.put(id, nueva);
+            cambios.add(CambioTransaccion.alta(nueva));
+        }
+        for (long id = 1; id <= 100; id += 3) {
+            DatosTransaccion nueva = aleatoria(aleatorio, id);
+            cambios.add(CambioTransaccion.modificacion(datos.put(id, nueva), nueva));
+        }
+        for (long id = 500; id < 540; id++) {
+            cambios.add(CambioTransaccion.baja(datos.remove(id)));
+        }
+        sinIndice = sinIndice.aplicar(cambios);
+        conIndice = conIndice.aplicar(cambios);
+        assertEquals(datos.size(), conIndice.filas());
+        comprobarRangos(aleatorio, datos, sinIndice, conIndice);
+
+        // Los mismos cambios ya no parten de las filas del libro: se rechazan sin alterar el índice compartido
+        assertNull(sinIndice.aplicar(cambios));
+        assertNull(conIndice.aplicar(cambios));
+        comprobarRangos(aleatorio, datos, sinIndice, conIndice);
+    }
+
+    @Test
+    @DisplayName("Debería devolver null al aplicar un cambio fuera de orden, sin quedarse con los valores antiguos")
+    void aplicar_cambiosFueraDeOrden_deberiaDevolverNull() {
+        DatosTransaccion original = new DatosTransaccion(1L, 20L, TipoTransaccion.EGRESO, INICIO, new BigDecimal("5.00"));
+        DatosTransaccion w1 = new DatosTransaccion(1L, 20L, TipoTransaccion.EGRESO, INICIO, new BigDecimal("7.00"));
+        DatosTransaccion w2 = new DatosTransaccion(1L, 30L, TipoTransaccion.EGRESO, INICIO, new BigDecimal("9.00"));
+        LibroColumnar libro = construir(List.of(original), 0);
+        List<CambioTransaccion> primera = List.of(CambioTransaccion.modificacion(original, w1));
+        List<CambioTransaccion> segunda = List.of(CambioTransaccion.modificacion(w1, w2));
+
+        // En orden se aplican las dos
+        LibroColumnar enOrden = libro.aplicar(primera).aplicar(segunda);
+        int dia = (int) INICIO.toEpochDay();
+        assertEquals(Map.of("EGRESO:Ocio", new BigDecimal("9.00")), aMapa(enOrden.sumarPorTipoYCategoria(dia, dia)));
+
+        // La segunda antes que la primera, una alta repetida o una baja de una fila que no está
+        assertNull(libro.aplicar(segunda));
+        assertNull(libro.aplicar(List.of(CambioTransaccion.alta(original))));
+        assertNull(libro.aplicar(List.of(CambioTransaccion.baja(w2))));
+        assertNull(construir(List.of(), 0).aplicar(List.of(CambioTransaccion.baja(original))));
+
+        // Dentro de un mismo lote, cada cambio parte del anterior
+        assertEquals(1, libro.aplicar(List.of(CambioTransaccion.modificacion(original, w1),
+                CambioTransaccion.modificacion(w1, w2))).filas());
+        assertNull(libro.aplicar(List.of(CambioTransaccion.modificacion(original, w1),
+                CambioTransaccion.modificacion(original, w2))));
+    }
+
+    @Test
+    @DisplayName("Debería devolver null al aplicar un cambio con una categoría que no está en el libro")
+    void aplicar_conCategoriaDesconocida_deberiaDevolverNull() {
+        LibroColumnar libro = construir(List.of(), 0);
+        DatosTransaccion nueva = new DatosTransaccion(1L, 99L, TipoTransaccion.EGRESO, INICIO, new BigDecimal("5.00"));
+
+        assertNull(libro.aplicar(List.of(CambioTransaccion.alta(nueva))));
+    }
+
+    private static void comprobarRangos(Random aleatorio, Map<Long, DatosTransaccion> datos,
+                                        LibroColumnar sinIndice, LibroColumnar conIndice) {
+        for (int i = 0; i < 200; i++) {
+            LocalDate desde = INICIO.plusDays(aleatorio.nextInt(900) - 50);
+            LocalDate hasta = desde.plusDays(aleatorio.nextInt(400));
+            Map<String, BigDecimal> esperado = calcularDirecto(datos.values(), desde, hasta);
+            int d = (int) desde.toEpochDay();
+            int h = (int) hasta.toEpochDay();
+
+            assertEquals(esperado, aMapa(sinIndice.sumarPorTipoYCategoria(d, h)), "Sin índice: " + desde + " - " + hasta);
+            assertEquals(esperado, aMapa(conIndice.sumarPorTipoYCategoria(d, h)), "Con índice: " + desde + " - " + hasta);
+        }
+    }
+
+    private static DatosTransaccion aleatoria(Random aleatorio, long id) {
+        int categoria = aleatorio.nextInt(CATEGORIAS.length);
+        TipoTransaccion tipo = categoria == 0 ? TipoTransaccion.INGRESO : TipoTransaccion.EGRESO;
+        return new DatosTransaccion(id, CATEGORIAS[categoria], tipo, INICIO.plusDays(aleatorio.nextInt(800)),
+                BigDecimal.valueOf(1 + aleatorio.nextInt(500_000), 2));
+    }
+
+    private static LibroColumnar construir(Iterable<DatosTransaccion> datos, int umbralIndice) {
+        List<DatosTransaccion> ordenados = new ArrayList<>();
+        datos.forEach(ordenados::add);
+        ordenados.sort(Comparator.comparing(DatosTransaccion::getFecha).thenComparing(DatosTransaccion::getId));
+        LibroColumnar.Constructor constructor = new LibroColumnar.Constructor(CATEGORIAS, NOMBRES, 16, umbralIndice);
+        ordenados.forEach(constructor::agregar);
+        return constructor.construir();
+    }
+
+    private static Map<String, BigDecimal> calcularDirecto(Iterable<DatosTransaccion> datos, LocalDate desde, LocalDate hasta) {
+        Map<String, BigDecimal> totales = new HashMap<>();
+        for (DatosTransaccion dato : datos) {
+            if (!dato.getFecha().isBefore(desde) && !dato.getFecha().isAfter(hasta)) {
+                String categoria = NOMBRES[List.of(10L, 20L, 30L).indexOf(dato.getCategoriaId())];
+                totales.merge(dato.getTipo() + ":" + categoria, dato.getMonto(), BigDecimal::add);
+            }
+        }
+        return totales;
+    }
+
+    private static Map<String, BigDecimal> aMapa(List<TotalPorCategoriaDTO> totales) {
+        Map<String, BigDecimal> mapa = new HashMap<>();
+        totales.forEach(total -> mapa.put(total.getTipo() + ":" + total.getCategoria(), total.getTotal()));
+        return mapa;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.finanzaspersonales.servicio.importacion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del lector de CSV: cabecera con alias y en cualquier orden, separador coma o punto y coma,
+ * campos entre comillas y números de línea de cada registro.
+ */
+@DisplayName("Pruebas Unitarias para LectorCsv")
+class LectorCsvTest {
+
+    @Test
+    @DisplayName("Debería leer los campos por el nombre de la cabecera, aceptando alias, tildes y BOM")
+    void leerSiguiente_cabeceraConAlias_deberiaNormalizarLosCampos() throws IOException {
+        List<RegistroExtracto> registros = leer("\uFEFFImporte,Fecha,Concepto,Categoría,Otra\n" +
+                "12.50,2024-05-03,Almuerzo,Comida,x\n");
+
+        assertEquals(1, registros.size());
+        assertEquals(Map.of("monto", "12.50", "fecha", "2024-05-03", "descripcion", "Almuerzo", "categoria", "Comida"),
+                registros.get(0).getCampos());
+        assertEquals(2, registros.get(0).getNumeroLinea());
+    }
+
+    @Test
+    @DisplayName("Debería respetar las comillas: separadores dentro del campo y comillas escapadas")
+    void leerSiguiente_camposEntreComillas_deberianConservarSeparadoresYComillas() throws IOException {
+        List<RegistroExtracto> registros = leer("fecha,descripcion,monto\n" +
+                "2024-05-03,\"Cena, bebidas y \"\"postre\"\"\",\"1,234.50\"\n");
+
+        assertEquals("Cena, bebidas y \"postre\"", registros.get(0).campo("descripcion"));
+        assertEquals("1,234.50", registros.get(0).campo("monto"));
+    }
+
+    @Test
+    @DisplayName("Debería detectar el punto y coma como separador y dejar la coma dentro de los valores")
+    void leerSiguiente_puntoYComa_deberiaUsarloComoSeparador() throws IOException {
+        List<RegistroExtracto> registros = leer("fecha;descripcion;monto;tipo\n" +
+                "03/05/2024;Nómina;1.234,56;ingreso\n");
+
+        assertEquals(Map.of("fecha", "03/05/2024", "descripcion", "Nómina", "monto", "1.234,56", "tipo", "ingreso"),
+                registros.get(0).getCampos());
+    }
+
+    @Test
+    @DisplayName("Debería saltar las líneas en blanco sin perder la cuenta de líneas y omitir los campos vacíos")
+    void leerSiguiente_lineasEnBlancoYCamposVacios_deberianOmitirse() throws IOException {
+        List<RegistroExtracto> registros = leer("fecha,descripcion,monto,categoria\n" +
+                "2024-05-03,Almuerzo,12.50,\n" +
+                "\n" +
+                "   \n" +
+                "2024-05-04,  Taxi  ,8\n");
+
+        assertEquals(2, registros.size());
+        assertNull(registros.get(0).campo("categoria"));
+        assertEquals(5, registros.get(1).getNumeroLinea());
+        assertEquals("Taxi", registros.get(1).campo("descripcion"));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un archivo vacío o una cabecera sin las columnas obligatorias")
+    void constructor_cabeceraInvalida_deberiaLanzarExcepcion() {
+        assertThrows(IOException.class, () -> new LectorCsv(new StringReader("")));
+        assertThrows(IOException.class, () -> new LectorCsv(new StringReader("fecha,descripcion,tipo\n")));
+    }
+
+    private static List<RegistroExtracto> leer(String contenido) throws IOException {
+        List<RegistroExtracto> registros = new ArrayList<>();
+        try (LectorCsv lector = new LectorCsv(new StringReader(contenido))) {
+            RegistroExtracto registro;
+            while ((registro = lector.leerSiguiente()) != null) {
+                registros.add(registro);
+            }
+        }
+        return registros;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.finanzaspersonales.servicio.importacion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del lector de OFX: bloques &lt;STMTTRN&gt; en SGML (OFX 1.x, etiquetas sin cerrar) y en XML
+ * (OFX 2.x), con las entidades de los textos decodificadas.
+ */
+@DisplayName("Pruebas Unitarias para LectorOfx")
+class LectorOfxTest {
+
+    @Test
+    @DisplayName("Debería leer las transacciones de un OFX 1.x en SGML, con etiquetas sin cerrar")
+    void leerSiguiente_sgml_deberiaLeerCadaTransaccion() throws IOException {
+        String ofx = """
+                OFXHEADER:100
+                DATA:OFXSGML
+                VERSION:102
+
+                <OFX>
+                <BANKMSGSRSV1><STMTTRNRS><STMTRS>
+                <BANKTRANLIST>
+                <STMTTRN>
+                <TRNTYPE>DEBIT
+                <DTPOSTED>20240503120000[-5:EST]
+                <TRNAMT>-12,50
+                <NAME>Ben &amp; Jerry&apos;s
+                <MEMO>Helado
+                </STMTTRN>
+                <STMTTRN>
+                <TRNTYPE>CREDIT
+                <DTPOSTED>20240531
+                <TRNAMT>1500.00
+                <MEMO>N&oacute;mina &#60;mayo&#62;
+                </STMTTRN>
+                </BANKTRANLIST>
+                </STMTRS></STMTTRNRS></BANKMSGSRSV1>
+                </OFX>
+                """;
+
+        List<RegistroExtracto> registros = leer(ofx);
+
+        assertEquals(2, registros.size());
+        assertEquals(Map.of("fecha", "20240503120000[-5:EST]", "monto", "-12.50", "descripcion", "Ben & Jerry's"),
+                registros.get(0).getCampos());
+        assertEquals(8, registros.get(0).getNumeroLinea());
+        // Sin NAME se usa MEMO; una entidad desconocida se deja tal cual
+        assertEquals(Map.of("fecha", "20240531", "monto", "1500.00", "descripcion", "N&oacute;mina <mayo>"),
+                registros.get(1).getCampos());
+    }
+
+    @Test
+    @DisplayName("Debería leer las transacciones de un OFX 2.x en XML, aunque esté en una sola línea")
+    void leerSiguiente_xml_deberiaLeerCadaTransaccion() throws IOException {
+        String ofx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><?OFX OFXHEADER=\"200\" VERSION=\"220\"?>" +
+                "<OFX><BANKTRANLIST>" +
+                "<STMTTRN><TRNTYPE>DEBIT</TRNTYPE><DTPOSTED>20240503</DTPOSTED><TRNAMT>-8.00</TRNAMT>" +
+                "<NAME>Caf&#xE9; &lt;Centro&gt;</NAME><MEMO>Desayuno</MEMO></STMTTRN>" +
+                "<STMTTRN><TRNTYPE>DEBIT</TRNTYPE><DTPOSTED>20240504</DTPOSTED><TRNAMT>-3.20</TRNAMT>" +
+                "<NAME>AT&amp;T</NAME></STMTTRN>" +
+                "</BANKTRANLIST></OFX>";
+
+        List<RegistroExtracto> registros = leer(ofx);
+
+        assertEquals(2, registros.size());
+        assertEquals(Map.of("fecha", "20240503", "monto", "-8.00", "descripcion", "Café <Centro>"), registros.get(0).getCampos());
+        assertEquals(Map.of("fecha", "20240504", "monto", "-3.20", "descripcion", "AT&T"), registros.get(1).getCampos());
+    }
+
+    @Test
+    @DisplayName("Debería decodificar las entidades con nombre y numéricas y dejar tal cual las mal formadas")
+    void decodificarEntidades_deberiaSustituirSoloLasEntidadesValidas() {
+        assertEquals("Ben & Jerry's", LectorOfx.decodificarEntidades("Ben &amp; Jerry&#39;s"));
+        assertEquals("\"é\" <ñ>", LectorOfx.decodificarEntidades("&quot;&#233;&quot; &lt;&#xf1;&gt;"));
+        assertEquals("AT&T & Co", LectorOfx.decodificarEntidades("AT&T & Co"));
+        assertEquals("&desconocida; &#xZZ; &", LectorOfx.decodificarEntidades("&desconocida; &#xZZ; &"));
+    }
+
+    private static List<RegistroExtracto> leer(String contenido) throws IOException {
+        List<RegistroExtracto> registros = new ArrayList<>();
+        try (LectorOfx lector = new LectorOfx(new StringReader(contenido))) {
+            RegistroExtracto registro;
+            while ((registro = lector.leerSiguiente()) != null) {
+                registros.add(registro);
+            }
+        }
+        return registros;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.finanzaspersonales.servicio.texto;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias del índice invertido en memoria: coincidencia por prefijo de todos los términos,
+ * orden por relevancia, paginación sin repetir ni saltar resultados y reindexación tras los cambios.
+ */
+@DisplayName("Pruebas Unitarias para IndiceDescripcionesUsuario")
+class IndiceDescripcionesUsuarioTest {
+
+    @Test
+    @DisplayName("Debería exigir todos los términos como prefijo y ordenar primero los términos poco frecuentes")
+    void buscar_deberiaCoincidirPorPrefijoYOrdenarPorRelevancia() {
+        IndiceDescripcionesUsuario indice = new IndiceDescripcionesUsuario();
+        indice.indexar(1L, "Supermercado Día");
+        indice.indexar(2L, "Compra supermercado Carrefour");
+        indice.indexar(3L, "Carrefour Express gasolina");
+        indice.indexar(4L, "Cena");
+
+        assertEquals(List.of(2L), ids(indice.buscar(Tokenizador.terminosDeConsulta("super CARREF"), null, 10)));
+        assertEquals(Set.of(1L, 2L), new HashSet<>(ids(indice.buscar(Tokenizador.terminosDeConsulta("supermercado"), null, 10))));
+        assertTrue(indice.buscar(Tokenizador.terminosDeConsulta("farmacia"), null, 10).isEmpty());
+
+        // "express" aparece en una sola descripción, "carrefour" en dos: pesa más la coincidencia rara
+        List<CoincidenciaTexto> carrefour = indice.buscar(Tokenizador.terminosDeConsulta("carrefour"), null, 10);
+        List<CoincidenciaTexto> express = indice.buscar(Tokenizador.terminosDeConsulta("express"), null, 10);
+        assertTrue(express.get(0).rango() > carrefour.get(0).rango());
+    }
+
+    @Test
+    @DisplayName("Debería recorrer todas las coincidencias por páginas, sin repetir, aunque empaten en relevancia")
+    void buscar_porPaginas_deberiaDevolverCadaCoincidenciaUnaVez() {
+        IndiceDescripcionesUsuario indice = new IndiceDescripcionesUsuario();
+        for (long id = 1; id <= 95; id++) {
+            indice.indexar(id, id % 3 == 0 ? "Cafetería café" : "Café");
+        }
+
+        List<Long> recorridos = new ArrayList<>();
+        CoincidenciaTexto ultima = null;
+        List<CoincidenciaTexto> pagina;
+        do {
+            pagina = indice.buscar(Tokenizador.terminosDeConsulta("caf"), ultima, 10);
+            pagina.forEach(coincidencia -> recorridos.add(coincidencia.id()));
+            ultima = pagina.isEmpty() ? null : pagina.get(pagina.size() - 1);
+        } while (pagina.size() == 10);
+
+        assertEquals(95, recorridos.size());
+        assertEquals(95, new HashSet<>(recorridos).size());
+        assertEquals(93L, recorridos.get(0)); // Dos términos que coinciden; a igual relevancia, el ID mayor
+    }
+
+    @Test
+    @DisplayName("Debería reflejar las modificaciones y bajas, y reindexar de forma idempotente")
+    void indexarYRetirar_deberianActualizarLasCoincidencias() {
+        IndiceDescripcionesUsuario indice = new IndiceDescripcionesUsuario();
+        indice.indexar(1L, "Taxi aeropuerto");
+        indice.indexar(1L, "Taxi aeropuerto");
+        indice.indexar(2L, "Taxi");
+
+        indice.indexar(1L, "Tren");
+        assertEquals(List.of(2L), ids(indice.buscar(Tokenizador.terminosDeConsulta("taxi"), null, 10)));
+        assertTrue(indice.buscar(Tokenizador.terminosDeConsulta("aeropuerto"), null, 10).isEmpty());
+
+        indice.retirar(2L);
+        assertTrue(indice.buscar(Tokenizador.terminosDeConsulta("taxi"), null, 10).isEmpty());
+        assertEquals(1, indice.transacciones());
+    }
+
+    private static List<Long> ids(List<CoincidenciaTexto> coincidencias) {
+        return coincidencias.stream().map(CoincidenciaTexto::id).toList();
+    }
+}